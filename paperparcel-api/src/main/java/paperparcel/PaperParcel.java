@@ -172,5 +172,189 @@ public @interface PaperParcel {
     boolean allowSerializable() default true;
 
     boolean isLombokEnabled() default false;
+
+    /**
+     * <p>Configures PaperParcel to write {@code enum} values using their ordinal instead of their
+     * name. Ordinals are written as a single {@code int} and read back without allocating, which
+     * is considerably cheaper than writing and looking up the constant's name.</p>
+     *
+     * <p>Because ordinals depend on the declaration order of the enum constants, the generated
+     * code records a fingerprint of the constants it was compiled against and will fail fast if
+     * the constants have since been added, removed or reordered.</p>
+     *
+     * <p>Note: if your code will be obfuscated, be sure to retain the names of the enum constants
+     * so that the fingerprint computed at runtime matches the generated one.</p>
+     *
+     * <p>By default enums are written by name.</p>
+     */
+    boolean useEnumOrdinals() default false;
+
+    /**
+     * <p>Configures PaperParcel to track which fields are {@code null} using a bitmask that is
+     * written ahead of the fields, instead of writing a separate {@code int} flag before each
+     * nullable value. Each {@code int} in the bitmask covers up to 32 nullable fields.</p>
+     *
+     * <p>{@code Parcelable} fields are also written without their own presence flag when this
+     * option is enabled.</p>
+     *
+     * <p>By default a flag is written for each nullable field.</p>
+     */
+    boolean useNullBitmask() default false;
+
+    /**
+     * <p>Configures PaperParcel to pack {@code boolean}, {@code byte}, {@code short} and
+     * {@code char} fields together into shared {@code int}s instead of writing a full
+     * {@code int} for each one. {@code boolean[]}, {@code short[]} and {@code char[]} fields are
+     * packed in the same way, 32, 2 and 2 elements per {@code int} respectively.</p>
+     *
+     * <p>By default each of these values is written as its own {@code int}.</p>
+     */
+    boolean packPrimitives() default false;
+
+    /**
+     * <p>Configures PaperParcel to leave fields that hold their default value out of the
+     * {@code Parcel} entirely. A bitmask of the fields that were written is written ahead of the
+     * fields, and elided fields are restored to their default value when read.</p>
+     *
+     * <p>The default values are {@code 0} and {@code false} for primitive types, the empty string,
+     * and empty {@code List}s, {@code Set}s, {@code Map}s and {@code Collection}s. Note that
+     * elided collections are restored as new, mutable instances.</p>
+     *
+     * <p>By default every field is written.</p>
+     */
+    boolean elideDefaults() default false;
+
+    /**
+     * <p>Configures PaperParcel to write {@code String}s as length-prefixed UTF-8 rather than
+     * UTF-16. This halves the size of mostly-ASCII strings such as identifiers and URLs, and
+     * ASCII-only strings are encoded without going through a {@code CharsetEncoder}.</p>
+     *
+     * <p>Note that unpaired surrogate characters cannot be represented in UTF-8 and are replaced
+     * when encoded.</p>
+     *
+     * <p>By default strings are written using {@code Parcel.writeString}.</p>
+     */
+    boolean useUtf8Strings() default false;
+
+    /**
+     * <p>Configures PaperParcel to write each distinct {@code String} and {@code AutoValue}
+     * value only once per top-level object. Later values that are equal to one that has already
+     * been written are replaced with a small {@code int} reference to it, which can shrink
+     * payloads with many repeated values (e.g. names, URLs or tags in a large list)
+     * considerably.</p>
+     *
+     * <p>Every interned value costs an extra {@code int}, and equal values are read back as the
+     * same instance. {@code AutoValue} types are therefore assumed to be immutable.</p>
+     *
+     * <p>By default every value is written in full.</p>
+     */
+    boolean internValues() default false;
+
+    /**
+     * <p>Configures PaperParcel to replace each {@code String} and {@code AutoValue} value that
+     * is read with an equal instance from a shared pool, if there is one. This reduces the memory
+     * used by restored objects that hold many equal values, at the cost of a lookup per value.
+     * The format of the {@code Parcel} is unchanged.</p>
+     *
+     * <p>The pool is bounded and evicts the least recently used values. Its size and hit rate
+     * can be inspected and tuned via {@code paperparcel.ValuePool}.</p>
+     *
+     * <p>By default every value is read as a new instance.</p>
+     */
+    boolean canonicalizeValues() default false;
+
+    /**
+     * <p>Configures PaperParcel to write each instance of the annotated class only once per
+     * top-level object. If the same instance is reachable more than once, later occurrences are
+     * written as a reference to the first one, and are read back as the same instance. This
+     * shrinks object graphs with a lot of sharing and allows graphs with cycles to be
+     * parcelled.</p>
+     *
+     * <p>Cycles can only be read back through classes that have a no-arg constructor, as the
+     * instance must exist before the fields that refer to it are read.</p>
+     *
+     * <p>By default every occurrence of an instance is written in full.</p>
+     */
+    boolean trackReferences() default false;
+
+    /**
+     * <p>Configures PaperParcel to write {@code List}s of the annotated class column by column
+     * rather than element by element. Each primitive field is gathered into an array and written
+     * with a single bulk call (e.g. {@code writeIntArray}), followed by each of the other fields
+     * in turn. This avoids a method call per element and per field for large lists.</p>
+     *
+     * <p>Columns are used for {@code List} fields of {@code PaperParcel} classes in the same
+     * package as the annotated class. The annotated class must be final, and must not be generic
+     * or track references.</p>
+     *
+     * <p>By default lists are written one element at a time.</p>
+     */
+    boolean columnarLists() default false;
+
+    /**
+     * <p>Configures PaperParcel to compress the {@code String}, array, {@code Collection} and
+     * {@code Map} fields of the annotated class whose encoded size is at least this many bytes.
+     * Values are compressed with {@link java.util.zip.Deflater} and decompressed when read.
+     * Smaller values are never compressed, and cost one extra {@code int}. Values that would not
+     * get any smaller, or that contain binders or file descriptors, are written as-is.</p>
+     *
+     * <p>This can keep large payloads (e.g. long strings or big lists) under the Binder
+     * transaction limit, at the cost of CPU time while parcelling.</p>
+     *
+     * <p>By default ({@code 0}) nothing is compressed.</p>
+     */
+    int compressionThreshold() default 0;
+
+    /**
+     * <p>Configures PaperParcel to encode the primitive and {@code String} fields of the
+     * annotated class into a single {@code byte[]}, which is written to the {@code Parcel} in one
+     * call. {@code int}, {@code long}, {@code short}, {@code byte} and {@code char} values are
+     * written as variable-length integers, so small values take a single byte, and
+     * {@code boolean}s are packed eight to a byte. Any other fields are written after the
+     * encoded values as usual.</p>
+     *
+     * <p>{@code String} fields are only encoded when they are written with the default adapter,
+     * i.e. they are not interned, canonicalized or compressed.</p>
+     *
+     * <p>By default each field is written to the {@code Parcel} individually.</p>
+     */
+    boolean compactEncoding() default false;
+
+    /**
+     * <p>Configures PaperParcel to read {@code List}, {@code Collection}, {@code Set} and
+     * {@code Map} fields into more memory-efficient implementations. Empty collections are read
+     * as the shared instances from {@link java.util.Collections}. Lists and collections are read
+     * into an unmodifiable list that wraps a single array. Small sets and maps are read into an
+     * {@code ArraySet} or {@code ArrayMap} (on API 23 and 19 respectively), which iterate in hash
+     * order rather than insertion order. This includes collections of boxed {@code Integer}s or
+     * {@code Long}s, and maps with {@code Integer} or {@code Long} keys. The format of the
+     * {@code Parcel} is unchanged.</p>
+     *
+     * <p>Every restored collection is unmodifiable, whatever its size.</p>
+     *
+     * <p>By default these fields are read into an {@code ArrayList}, {@code LinkedHashSet} or
+     * {@code LinkedHashMap}.</p>
+     */
+    boolean compactCollections() default false;
+
+    /**
+     * <p>Configures PaperParcel to move the {@code String}, array, {@code Collection} and
+     * {@code Map} fields of the annotated class whose encoded size is at least this many bytes
+     * into an anonymous {@code SharedMemory} region. Only the region's file descriptor is written
+     * to the {@code Parcel}, so large payloads don't count against the Binder transaction limit.
+     * Smaller values are written as-is, and cost one extra {@code int}.</p>
+     *
+     * <p>This option only suits objects that are passed directly through Binder calls, e.g. as
+     * the arguments of an AIDL interface. Intent extras and saved instance state are written
+     * with file descriptors disallowed, so values are written as-is there. The generated
+     * {@code describeContents()} doesn't report {@code CONTENTS_FILE_DESCRIPTOR}.</p>
+     *
+     * <p>Shared memory requires API 27. On older versions, and for values that contain binders or
+     * file descriptors, values are always written as-is. If {@link #compressionThreshold()} is
+     * also set, values are compressed before they are moved into shared memory.</p>
+     *
+     * <p>By default ({@code 0}) values are always written to the {@code Parcel}.</p>
+     */
+    int sharedMemoryThreshold() default 0;
   }
 }
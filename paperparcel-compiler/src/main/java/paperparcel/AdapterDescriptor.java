@@ -24,11 +24,13 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
@@ -36,6 +38,7 @@ import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -78,9 +81,19 @@ abstract class AdapterDescriptor {
 
     static class AdapterParam extends Param {
       final AdapterDescriptor adapter;
+      /**
+       * True if the adapter that receives this parameter only passes it non-null values, so it
+       * doesn't need to be made null-safe.
+       */
+      final boolean nonNull;
 
       AdapterParam(AdapterDescriptor adapter) {
+        this(adapter, false);
+      }
+
+      AdapterParam(AdapterDescriptor adapter, boolean nonNull) {
         this.adapter = adapter;
+        this.nonNull = nonNull;
       }
     }
 
@@ -92,6 +105,40 @@ abstract class AdapterDescriptor {
       }
     }
 
+    /**
+     * An {@code int} parameter that receives a fingerprint of the enum constants declared by the
+     * adapted type (see {@link Utils#enumConstantsFingerprint(TypeElement)}).
+     */
+    static class FingerprintParam extends Param {
+      final int fingerprint;
+
+      FingerprintParam(int fingerprint) {
+        this.fingerprint = fingerprint;
+      }
+    }
+
+    /** An {@code int} parameter that receives a constant value, such as a size threshold. */
+    static class IntParam extends Param {
+      final int value;
+
+      IntParam(int value) {
+        this.value = value;
+      }
+    }
+
+    /**
+     * A {@code boolean} parameter that receives whether the adapted type's generated code writes
+     * and reads it within the current {@code InternTable} pass (see
+     * {@link Utils#isPaperParcelType(TypeMirror)}).
+     */
+    static class PaperParcelParam extends Param {
+      final boolean paperParcel;
+
+      PaperParcelParam(boolean paperParcel) {
+        this.paperParcel = paperParcel;
+      }
+    }
+
     static class CreatorParam extends Param {
       @Nullable final ClassName creatorOwner;
       final boolean requiresCast;
@@ -111,6 +158,15 @@ abstract class AdapterDescriptor {
   }
 
   static final class Factory {
+    private static final ClassName INTERNING_ADAPTER =
+        ClassName.get("paperparcel.internal", "InterningAdapter");
+    private static final ClassName CANONICALIZING_ADAPTER =
+        ClassName.get("paperparcel.internal", "CanonicalizingAdapter");
+    private static final ClassName COMPRESSING_ADAPTER =
+        ClassName.get("paperparcel.internal", "CompressingAdapter");
+    private static final ClassName SHARED_MEMORY_ADAPTER =
+        ClassName.get("paperparcel.internal", "SharedMemoryAdapter");
+
     private final Elements elements;
     private final Types types;
     private final AdapterRegistry adapterRegistry;
@@ -130,18 +186,19 @@ abstract class AdapterDescriptor {
      * this method returns {@code null}.
      */
     @SuppressWarnings("ConstantConditions") // Already validated
-    @Nullable AdapterDescriptor create(TypeMirror fieldType, boolean allowSerializable) {
+    @Nullable AdapterDescriptor create(TypeMirror fieldType, OptionsDescriptor options) {
       if (fieldType.getKind().isPrimitive()) {
         throw new IllegalArgumentException("Primitive types do not need a TypeAdapter.");
       }
 
       TypeName fieldTypeName = TypeName.get(fieldType);
-      final Optional<AdapterDescriptor> cached = adapterRegistry.getAdapterFor(fieldTypeName);
+      List<AdapterRegistry.Entry> adapterEntries = adapterRegistry.getEntries(options);
+      final Optional<AdapterDescriptor> cached =
+          adapterRegistry.getAdapterFor(options, fieldTypeName);
       if (cached.isPresent()) {
         return cached.get();
       }
 
-      List<AdapterRegistry.Entry> adapterEntries = adapterRegistry.getEntries(allowSerializable);
       for (AdapterRegistry.Entry entry : adapterEntries) {
         if (entry.typeKey().isMatch(types, fieldType)) {
 
@@ -179,7 +236,7 @@ abstract class AdapterDescriptor {
                 : Optional.<String>absent();
             constructorInfo = singletonInstance.isPresent()
                 ? Optional.<ConstructorInfo>absent()
-                : getConstructorInfo(adapterElement, resolvedAdapterType, allowSerializable);
+                : getConstructorInfo(adapterElement, resolvedAdapterType, options);
             // Ensure we can construct this adapter. If not, continue the search.
             if (!singletonInstance.isPresent()
                 && !constructorInfo.isPresent()) continue;
@@ -193,7 +250,16 @@ abstract class AdapterDescriptor {
           // Create and cache the adapter
           AdapterDescriptor adapter = new AutoValue_AdapterDescriptor(
               constructorInfo, singletonInstance, typeName, adaptedTypeName, entry.nullSafe());
-          adapterRegistry.registerAdapterFor(fieldTypeName, adapter);
+          if (Utils.isImmutableValueType(fieldType)) {
+            // Canonicalize first so that interned values are the canonical instances
+            if (options.canonicalizeValues()) {
+              adapter = wrap(CANONICALIZING_ADAPTER, adapter);
+            }
+            if (options.internValues()) {
+              adapter = wrap(INTERNING_ADAPTER, adapter);
+            }
+          }
+          adapterRegistry.registerAdapterFor(options, fieldTypeName, adapter);
 
           return adapter;
         }
@@ -202,9 +268,95 @@ abstract class AdapterDescriptor {
       return null;
     }
 
+    /**
+     * Returns an adapter for {@code listType} that refers to the {@code LIST_ADAPTER} generated
+     * for {@code itemElement}, which writes the list column by column (see
+     * {@link Utils#hasColumnarListAdapter(Types, TypeElement, OptionsDescriptor)}).
+     */
+    static AdapterDescriptor createColumnarList(TypeMirror listType, TypeElement itemElement) {
+      return new AutoValue_AdapterDescriptor(Optional.<ConstructorInfo>absent(),
+          Optional.of("LIST_ADAPTER"), PaperParcelGenerator.generatedClassName(itemElement),
+          TypeName.get(listType), false);
+    }
+
+    /**
+     * Wraps {@code adapter} in a {@code CompressingAdapter} if
+     * {@link OptionsDescriptor#compressionThreshold()} is set and values of {@code fieldType} may
+     * be large, i.e. {@code String}s, arrays, {@code Collection}s and {@code Map}s. Only the
+     * adapters of fields are wrapped so that nested values are not compressed again.
+     * {@code CompressingAdapter} writes nulls itself, so {@code adapter} is passed as-is.
+     */
+    AdapterDescriptor compressIfLarge(
+        TypeMirror fieldType, AdapterDescriptor adapter, OptionsDescriptor options) {
+      if (options.compressionThreshold() <= 0 || !mayBeLarge(fieldType)) {
+        return adapter;
+      }
+      ConstructorInfo constructorInfo = ConstructorInfo.create(
+          ImmutableList.<ConstructorInfo.Param>of(
+              new ConstructorInfo.AdapterParam(adapter, true),
+              new ConstructorInfo.IntParam(options.compressionThreshold())));
+      TypeName typeName =
+          ParameterizedTypeName.get(COMPRESSING_ADAPTER, adapter.adaptedTypeName());
+      return new AutoValue_AdapterDescriptor(Optional.of(constructorInfo),
+          Optional.<String>absent(), typeName, adapter.adaptedTypeName(), true);
+    }
+
+    /**
+     * Wraps {@code adapter} in a {@code SharedMemoryAdapter} if
+     * {@link OptionsDescriptor#sharedMemoryThreshold()} is set and values of {@code fieldType} may
+     * be large. This is applied after {@link #compressIfLarge}, so that compressed values are
+     * moved into shared memory rather than the other way around. Like
+     * {@code CompressingAdapter}, {@code SharedMemoryAdapter} writes nulls itself.
+     */
+    AdapterDescriptor shareIfLarge(
+        TypeMirror fieldType, AdapterDescriptor adapter, OptionsDescriptor options) {
+      if (options.sharedMemoryThreshold() <= 0 || !mayBeLarge(fieldType)) {
+        return adapter;
+      }
+      ConstructorInfo constructorInfo = ConstructorInfo.create(
+          ImmutableList.<ConstructorInfo.Param>of(
+              new ConstructorInfo.AdapterParam(adapter, true),
+              new ConstructorInfo.IntParam(options.sharedMemoryThreshold())));
+      TypeName typeName =
+          ParameterizedTypeName.get(SHARED_MEMORY_ADAPTER, adapter.adaptedTypeName());
+      return new AutoValue_AdapterDescriptor(Optional.of(constructorInfo),
+          Optional.<String>absent(), typeName, adapter.adaptedTypeName(), true);
+    }
+
+    private boolean mayBeLarge(TypeMirror type) {
+      if (type.getKind() == TypeKind.ARRAY) {
+        return true;
+      }
+      if (type.getKind() != TypeKind.DECLARED) {
+        return false;
+      }
+      if (MoreTypes.isTypeOf(String.class, type)) {
+        return true;
+      }
+      TypeMirror erasure = types.erasure(type);
+      return types.isAssignable(erasure, erasedType(Collection.class))
+          || types.isAssignable(erasure, erasedType(Map.class));
+    }
+
+    private TypeMirror erasedType(Class<?> type) {
+      return types.erasure(elements.getTypeElement(type.getCanonicalName()).asType());
+    }
+
+    /**
+     * Wraps {@code adapter} in {@code wrapper}, an adapter that takes the adapter it delegates to
+     * as its only constructor parameter.
+     */
+    private static AdapterDescriptor wrap(ClassName wrapper, AdapterDescriptor adapter) {
+      ConstructorInfo constructorInfo = ConstructorInfo.create(
+          ImmutableList.<ConstructorInfo.Param>of(new ConstructorInfo.AdapterParam(adapter)));
+      TypeName typeName = ParameterizedTypeName.get(wrapper, adapter.adaptedTypeName());
+      return new AutoValue_AdapterDescriptor(Optional.of(constructorInfo),
+          Optional.<String>absent(), typeName, adapter.adaptedTypeName(), adapter.nullSafe());
+    }
+
     @SuppressWarnings("ConstantConditions") // Already validated
     private Optional<ConstructorInfo> getConstructorInfo(
-        TypeElement adapterElement, DeclaredType resolvedAdapterType, boolean allowSerializable) {
+        TypeElement adapterElement, DeclaredType resolvedAdapterType, OptionsDescriptor options) {
 
       ExecutableElement mainConstructor = Utils.findLargestPublicConstructor(adapterElement);
       if (mainConstructor == null) return Optional.absent();
@@ -223,7 +375,7 @@ abstract class AdapterDescriptor {
         if (Utils.isAdapterType(dependencyElement, elements, types)) {
           TypeMirror dependencyAdaptedType =
               Utils.getAdaptedType(elements, types, MoreTypes.asDeclared(resolvedDependencyType));
-          AdapterDescriptor adapterDependency = create(dependencyAdaptedType, allowSerializable);
+          AdapterDescriptor adapterDependency = create(dependencyAdaptedType, options);
           if (adapterDependency == null) {
             return Optional.absent();
           }
@@ -254,6 +406,20 @@ abstract class AdapterDescriptor {
           }
           parameterBuilder.add(new ConstructorInfo.CreatorParam(creatorOwner, requiresCast));
 
+        } else if (resolvedDependencyType.getKind() == TypeKind.INT) {
+          TypeMirror adaptedType = Utils.getAdaptedType(elements, types, resolvedAdapterType);
+          TypeElement enumElement = fingerprintedEnum(adaptedType);
+          if (enumElement == null) {
+            return Optional.absent();
+          }
+          int fingerprint = Utils.enumConstantsFingerprint(enumElement);
+          parameterBuilder.add(new ConstructorInfo.FingerprintParam(fingerprint));
+
+        } else if (resolvedDependencyType.getKind() == TypeKind.BOOLEAN) {
+          TypeMirror adaptedType = Utils.getAdaptedType(elements, types, resolvedAdapterType);
+          parameterBuilder.add(
+              new ConstructorInfo.PaperParcelParam(Utils.isPaperParcelType(adaptedType)));
+
         } else {
           TypeMirror classArg =
               Utils.getClassArg(elements, types, MoreTypes.asDeclared(resolvedDependencyType));
@@ -265,6 +431,25 @@ abstract class AdapterDescriptor {
       return Optional.of(ConstructorInfo.create(parameterBuilder.build()));
     }
 
+    /**
+     * Returns the enum whose constants are fingerprinted for an adapter of {@code adaptedType}:
+     * either {@code adaptedType} itself, or its first type argument (e.g. the element type of an
+     * {@code EnumSet}). Returns null if neither is an enum.
+     */
+    @Nullable private TypeElement fingerprintedEnum(TypeMirror adaptedType) {
+      if (adaptedType.getKind() != TypeKind.DECLARED) {
+        return null;
+      }
+      List<? extends TypeMirror> typeArguments =
+          MoreTypes.asDeclared(adaptedType).getTypeArguments();
+      TypeMirror enumType = typeArguments.isEmpty() ? adaptedType : typeArguments.get(0);
+      if (enumType.getKind() != TypeKind.DECLARED
+          || MoreTypes.asElement(enumType).getKind() != ElementKind.ENUM) {
+        return null;
+      }
+      return MoreTypes.asTypeElement(enumType);
+    }
+
     private TypeMirror[] argumentsAsArray(
         Map<String, TypeMirror> parametersToArguments, TypeElement adapterElement) {
       List<? extends TypeParameterElement> adapterParameters = adapterElement.getTypeParameters();
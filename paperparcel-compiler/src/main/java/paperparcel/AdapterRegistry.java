@@ -19,12 +19,13 @@ package paperparcel;
 import com.google.auto.common.MoreTypes;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
 import com.squareup.javapoet.TypeName;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -44,6 +45,12 @@ final class AdapterRegistry {
   private static final TypeKey PERSISTABLE_BUNDLE = ClassKey.get("android.os.PersistableBundle");
   private static final TypeKey PARCELABLE =
       BoundedKey.get("T", asList(ClassKey.get("android.os.Parcelable")));
+  private static final TypeKey URI = ClassKey.get("android.net.Uri");
+  private static final TypeKey RECT = ClassKey.get("android.graphics.Rect");
+  private static final TypeKey RECT_F = ClassKey.get("android.graphics.RectF");
+  private static final TypeKey POINT = ClassKey.get("android.graphics.Point");
+  private static final TypeKey POINT_F = ClassKey.get("android.graphics.PointF");
+  private static final TypeKey COMPONENT_NAME = ClassKey.get("android.content.ComponentName");
   private static final TypeKey SHORT = ClassKey.get("java.lang.Short");
   private static final TypeKey LONG = ClassKey.get("java.lang.Long");
   private static final TypeKey FLOAT = ClassKey.get("java.lang.Float");
@@ -56,6 +63,8 @@ final class AdapterRegistry {
       ParameterizedKey.get(ClassKey.get("android.util.SparseArray"), asList(AnyKey.get("T")));
   private static final TypeKey BOOLEAN_ARRAY = PrimitiveArrayKey.BOOLEAN_ARRAY;
   private static final TypeKey BYTE_ARRAY = PrimitiveArrayKey.BYTE_ARRAY;
+  private static final TypeKey BYTE_BUFFER = ClassKey.get("java.nio.ByteBuffer");
+  private static final TypeKey BYTE_RANGE = ClassKey.get("paperparcel.ByteRange");
   private static final TypeKey IBINDER = ClassKey.get("android.os.IBinder");
   private static final TypeKey INT_ARRAY = PrimitiveArrayKey.INT_ARRAY;
   private static final TypeKey LONG_ARRAY = PrimitiveArrayKey.LONG_ARRAY;
@@ -64,6 +73,16 @@ final class AdapterRegistry {
   private static final TypeKey SIZE_F = ClassKey.get("android.util.SizeF");
   private static final TypeKey DOUBLE_ARRAY = PrimitiveArrayKey.DOUBLE_ARRAY;
   private static final TypeKey SPARSE_BOOLEAN_ARRAY = ClassKey.get("android.util.SparseBooleanArray");
+  private static final TypeKey SPARSE_INT_ARRAY = ClassKey.get("android.util.SparseIntArray");
+  private static final TypeKey SPARSE_LONG_ARRAY = ClassKey.get("android.util.SparseLongArray");
+  private static final TypeKey LONG_SPARSE_ARRAY =
+      ParameterizedKey.get(ClassKey.get("android.util.LongSparseArray"), asList(AnyKey.get("T")));
+  private static final TypeKey ARRAY_MAP = ParameterizedKey.get(
+      ClassKey.get("android.util.ArrayMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
+  private static final TypeKey ARRAY_SET =
+      ParameterizedKey.get(ClassKey.get("android.util.ArraySet"), asList(AnyKey.get("T")));
+  private static final TypeKey SIMPLE_ARRAY_MAP = ParameterizedKey.get(
+      ClassKey.get("androidx.collection.SimpleArrayMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
   private static final TypeKey COLLECTION =
       ParameterizedKey.get(ClassKey.get("java.util.Collection"), asList(AnyKey.get("T")));
   private static final TypeKey OBJECT_ARRAY = ArrayKey.of(AnyKey.get("T"));
@@ -76,6 +95,67 @@ final class AdapterRegistry {
   private static final TypeKey ENUM =
       BoundedKey.get("T", asList(
           ParameterizedKey.get(ClassKey.get("java.lang.Enum"), asList(AnyKey.get("T")))));
+  private static final TypeKey INTEGER_LIST =
+      ParameterizedKey.get(ClassKey.get("java.util.List"), asList(INTEGER));
+  private static final TypeKey LONG_LIST =
+      ParameterizedKey.get(ClassKey.get("java.util.List"), asList(LONG));
+  private static final TypeKey INTEGER_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.Set"), asList(INTEGER));
+  private static final TypeKey LONG_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.Set"), asList(LONG));
+  private static final TypeKey BOXED_INTEGER_ARRAY = ArrayKey.of(INTEGER);
+  private static final TypeKey BOXED_LONG_ARRAY = ArrayKey.of(LONG);
+  private static final TypeKey INTEGER_KEY_MAP =
+      ParameterizedKey.get(ClassKey.get("java.util.Map"), asList(INTEGER, AnyKey.get("V")));
+  private static final TypeKey LONG_KEY_MAP =
+      ParameterizedKey.get(ClassKey.get("java.util.Map"), asList(LONG, AnyKey.get("V")));
+  private static final TypeKey ARRAY_LIST =
+      ParameterizedKey.get(ClassKey.get("java.util.ArrayList"), asList(AnyKey.get("T")));
+  private static final TypeKey LINKED_LIST =
+      ParameterizedKey.get(ClassKey.get("java.util.LinkedList"), asList(AnyKey.get("T")));
+  private static final TypeKey ARRAY_DEQUE =
+      ParameterizedKey.get(ClassKey.get("java.util.ArrayDeque"), asList(AnyKey.get("T")));
+  private static final TypeKey HASH_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.HashSet"), asList(AnyKey.get("T")));
+  private static final TypeKey LINKED_HASH_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.LinkedHashSet"), asList(AnyKey.get("T")));
+  private static final TypeKey TREE_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.TreeSet"), asList(AnyKey.get("T")));
+  private static final TypeKey HASH_MAP = ParameterizedKey.get(
+      ClassKey.get("java.util.HashMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
+  private static final TypeKey LINKED_HASH_MAP = ParameterizedKey.get(
+      ClassKey.get("java.util.LinkedHashMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
+  private static final TypeKey TREE_MAP = ParameterizedKey.get(
+      ClassKey.get("java.util.TreeMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
+  private static final TypeKey ENUM_SET =
+      ParameterizedKey.get(ClassKey.get("java.util.EnumSet"), asList(AnyKey.get("T")));
+  private static final TypeKey ENUM_MAP = ParameterizedKey.get(
+      ClassKey.get("java.util.EnumMap"), asList(AnyKey.get("K"), AnyKey.get("V")));
+  private static final TypeKey DATE = ClassKey.get("java.util.Date");
+  private static final TypeKey UUID = ClassKey.get("java.util.UUID");
+  private static final TypeKey BIG_DECIMAL = ClassKey.get("java.math.BigDecimal");
+  private static final TypeKey BIG_INTEGER = ClassKey.get("java.math.BigInteger");
+  private static final TypeKey INSTANT = ClassKey.get("java.time.Instant");
+  private static final TypeKey LOCAL_DATE = ClassKey.get("java.time.LocalDate");
+  private static final TypeKey DURATION = ClassKey.get("java.time.Duration");
+  private static final TypeKey ATOMIC_INTEGER =
+      ClassKey.get("java.util.concurrent.atomic.AtomicInteger");
+  private static final TypeKey ATOMIC_LONG = ClassKey.get("java.util.concurrent.atomic.AtomicLong");
+  private static final TypeKey OPTIONAL =
+      ParameterizedKey.get(ClassKey.get("java.util.Optional"), asList(AnyKey.get("T")));
+  private static final TypeKey OPTIONAL_INT = ClassKey.get("java.util.OptionalInt");
+  private static final TypeKey OPTIONAL_LONG = ClassKey.get("java.util.OptionalLong");
+  private static final TypeKey OPTIONAL_DOUBLE = ClassKey.get("java.util.OptionalDouble");
+  private static final TypeKey KOTLIN_PAIR = ParameterizedKey.get(
+      ClassKey.get("kotlin.Pair"), asList(AnyKey.get("A"), AnyKey.get("B")));
+  private static final TypeKey KOTLIN_TRIPLE = ParameterizedKey.get(
+      ClassKey.get("kotlin.Triple"), asList(AnyKey.get("A"), AnyKey.get("B"), AnyKey.get("C")));
+  private static final TypeKey KOTLIN_INT_RANGE = ClassKey.get("kotlin.ranges.IntRange");
+  private static final TypeKey KOTLIN_LONG_RANGE = ClassKey.get("kotlin.ranges.LongRange");
+  private static final TypeKey KOTLIN_UBYTE = ClassKey.get("kotlin.UByte");
+  private static final TypeKey KOTLIN_USHORT = ClassKey.get("kotlin.UShort");
+  private static final TypeKey KOTLIN_UINT = ClassKey.get("kotlin.UInt");
+  private static final TypeKey KOTLIN_ULONG = ClassKey.get("kotlin.ULong");
   private static final TypeKey SERIALIZABLE =
       BoundedKey.get("T", asList(ClassKey.get("java.io.Serializable")));
 
@@ -115,23 +195,108 @@ final class AdapterRegistry {
     }
   }
 
+  private static final Entry STRING_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "STRING_ADAPTER", STRING, true);
+  private static final Entry UTF8_STRING_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "UTF8_STRING_ADAPTER", STRING, true);
+  private static final Entry PARCELABLE_ENTRY =
+      ClassEntry.create("paperparcel.internal.ParcelableAdapter", PARCELABLE, true);
+  private static final Entry NON_NULL_PARCELABLE_ENTRY =
+      ClassEntry.create("paperparcel.internal.NonNullParcelableAdapter", PARCELABLE, false);
+  private static final Entry BOOLEAN_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "BOOLEAN_ARRAY_ADAPTER", BOOLEAN_ARRAY, true);
+  private static final Entry PACKED_BOOLEAN_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "PACKED_BOOLEAN_ARRAY_ADAPTER", BOOLEAN_ARRAY, true);
+  private static final Entry CHAR_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "CHAR_ARRAY_ADAPTER", CHAR_ARRAY, true);
+  private static final Entry PACKED_CHAR_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "PACKED_CHAR_ARRAY_ADAPTER", CHAR_ARRAY, true);
+  private static final Entry SHORT_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "SHORT_ARRAY_ADAPTER", SHORT_ARRAY, false);
+  private static final Entry PACKED_SHORT_ARRAY_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "PACKED_SHORT_ARRAY_ADAPTER", SHORT_ARRAY, true);
+  private static final Entry ENUM_ENTRY =
+      ClassEntry.create("paperparcel.internal.EnumAdapter", ENUM, false);
+  private static final Entry ORDINAL_ENUM_ENTRY =
+      ClassEntry.create("paperparcel.internal.OrdinalEnumAdapter", ENUM, false);
+  private static final Entry MAP_ENTRY =
+      ClassEntry.create("paperparcel.internal.MapAdapter", MAP, false);
+  private static final Entry COMPACT_MAP_ENTRY =
+      ClassEntry.create("paperparcel.internal.CompactMapAdapter", MAP, false);
+  private static final Entry LIST_ENTRY =
+      ClassEntry.create("paperparcel.internal.ListAdapter", LIST, false);
+  private static final Entry COMPACT_LIST_ENTRY =
+      ClassEntry.create("paperparcel.internal.CompactListAdapter", LIST, false);
+  private static final Entry COLLECTION_ENTRY =
+      ClassEntry.create("paperparcel.internal.CollectionAdapter", COLLECTION, false);
+  private static final Entry COMPACT_COLLECTION_ENTRY =
+      ClassEntry.create("paperparcel.internal.CompactCollectionAdapter", COLLECTION, false);
+  private static final Entry SET_ENTRY =
+      ClassEntry.create("paperparcel.internal.SetAdapter", SET, false);
+  private static final Entry COMPACT_SET_ENTRY =
+      ClassEntry.create("paperparcel.internal.CompactSetAdapter", SET, false);
+
+  private static final Entry INTEGER_LIST_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "INTEGER_LIST_ADAPTER", INTEGER_LIST, false);
+  private static final Entry COMPACT_INTEGER_LIST_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "COMPACT_INTEGER_LIST_ADAPTER", INTEGER_LIST, false);
+  private static final Entry LONG_LIST_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "LONG_LIST_ADAPTER", LONG_LIST, false);
+  private static final Entry COMPACT_LONG_LIST_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "COMPACT_LONG_LIST_ADAPTER", LONG_LIST, false);
+  private static final Entry INTEGER_SET_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "INTEGER_SET_ADAPTER", INTEGER_SET, false);
+  private static final Entry COMPACT_INTEGER_SET_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "COMPACT_INTEGER_SET_ADAPTER", INTEGER_SET, false);
+  private static final Entry LONG_SET_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "LONG_SET_ADAPTER", LONG_SET, false);
+  private static final Entry COMPACT_LONG_SET_ENTRY =
+      FieldEntry.create(STATIC_ADAPTERS, "COMPACT_LONG_SET_ADAPTER", LONG_SET, false);
+  private static final Entry INTEGER_KEY_MAP_ENTRY =
+      ClassEntry.create("paperparcel.internal.IntegerKeyMapAdapter", INTEGER_KEY_MAP, false);
+  private static final Entry COMPACT_INTEGER_KEY_MAP_ENTRY = ClassEntry.create(
+      "paperparcel.internal.CompactIntegerKeyMapAdapter", INTEGER_KEY_MAP, false);
+  private static final Entry LONG_KEY_MAP_ENTRY =
+      ClassEntry.create("paperparcel.internal.LongKeyMapAdapter", LONG_KEY_MAP, false);
+  private static final Entry COMPACT_LONG_KEY_MAP_ENTRY =
+      ClassEntry.create("paperparcel.internal.CompactLongKeyMapAdapter", LONG_KEY_MAP, false);
+
   private static final ImmutableList<Entry> BUILT_IN_ADAPTER_ENTRIES = ImmutableList.of(
-      FieldEntry.create(STATIC_ADAPTERS, "STRING_ADAPTER", STRING, true),
+      STRING_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "INTEGER_ADAPTER", INTEGER, false),
-      ClassEntry.create("paperparcel.internal.MapAdapter", MAP, false),
+      // Collections of boxed primitives are written as primitive arrays, so must come before the
+      // general collection adapters.
+      INTEGER_LIST_ENTRY,
+      LONG_LIST_ENTRY,
+      INTEGER_SET_ENTRY,
+      LONG_SET_ENTRY,
+      FieldEntry.create(STATIC_ADAPTERS, "BOXED_INTEGER_ARRAY_ADAPTER", BOXED_INTEGER_ARRAY, false),
+      FieldEntry.create(STATIC_ADAPTERS, "BOXED_LONG_ARRAY_ADAPTER", BOXED_LONG_ARRAY, false),
+      INTEGER_KEY_MAP_ENTRY,
+      LONG_KEY_MAP_ENTRY,
+      MAP_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "BUNDLE_ADAPTER", BUNDLE, true),
       FieldEntry.create(STATIC_ADAPTERS, "PERSISTABLE_BUNDLE_ADAPTER", PERSISTABLE_BUNDLE, true),
-      ClassEntry.create("paperparcel.internal.ParcelableAdapter", PARCELABLE, true),
+      // Common framework Parcelables are written directly, without going through their creators.
+      FieldEntry.create(STATIC_ADAPTERS, "URI_ADAPTER", URI, true),
+      FieldEntry.create(STATIC_ADAPTERS, "RECT_ADAPTER", RECT, false),
+      FieldEntry.create(STATIC_ADAPTERS, "RECT_F_ADAPTER", RECT_F, false),
+      FieldEntry.create(STATIC_ADAPTERS, "POINT_ADAPTER", POINT, false),
+      FieldEntry.create(STATIC_ADAPTERS, "POINT_F_ADAPTER", POINT_F, false),
+      FieldEntry.create(STATIC_ADAPTERS, "COMPONENT_NAME_ADAPTER", COMPONENT_NAME, false),
+      PARCELABLE_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "SHORT_ADAPTER", SHORT, false),
       FieldEntry.create(STATIC_ADAPTERS, "LONG_ADAPTER", LONG, false),
       FieldEntry.create(STATIC_ADAPTERS, "FLOAT_ADAPTER", FLOAT, false),
       FieldEntry.create(STATIC_ADAPTERS, "DOUBLE_ADAPTER", DOUBLE, false),
       FieldEntry.create(STATIC_ADAPTERS, "BOOLEAN_ADAPTER", BOOLEAN, false),
       FieldEntry.create(STATIC_ADAPTERS, "CHAR_SEQUENCE_ADAPTER", CHAR_SEQUENCE, true),
-      ClassEntry.create("paperparcel.internal.ListAdapter", LIST, false),
+      LIST_ENTRY,
       ClassEntry.create("paperparcel.internal.SparseArrayAdapter", SPARSE_ARRAY, false),
-      FieldEntry.create(STATIC_ADAPTERS, "BOOLEAN_ARRAY_ADAPTER", BOOLEAN_ARRAY, true),
+      BOOLEAN_ARRAY_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "BYTE_ARRAY_ADAPTER", BYTE_ARRAY, true),
+      FieldEntry.create(STATIC_ADAPTERS, "BYTE_BUFFER_ADAPTER", BYTE_BUFFER, false),
+      FieldEntry.create(STATIC_ADAPTERS, "BYTE_RANGE_ADAPTER", BYTE_RANGE, false),
       FieldEntry.create(STATIC_ADAPTERS, "IBINDER_ADAPTER", IBINDER, true),
       FieldEntry.create(STATIC_ADAPTERS, "INT_ARRAY_ADAPTER", INT_ARRAY, true),
       FieldEntry.create(STATIC_ADAPTERS, "LONG_ARRAY_ADAPTER", LONG_ARRAY, true),
@@ -140,19 +305,65 @@ final class AdapterRegistry {
       FieldEntry.create(STATIC_ADAPTERS, "SIZE_F_ADAPTER", SIZE_F, false),
       FieldEntry.create(STATIC_ADAPTERS, "DOUBLE_ARRAY_ADAPTER", DOUBLE_ARRAY, true),
       FieldEntry.create(STATIC_ADAPTERS, "SPARSE_BOOLEAN_ARRAY_ADAPTER", SPARSE_BOOLEAN_ARRAY, true),
-      ClassEntry.create("paperparcel.internal.CollectionAdapter", COLLECTION, false),
-      ClassEntry.create("paperparcel.internal.SetAdapter", SET, false),
-      FieldEntry.create(STATIC_ADAPTERS, "CHAR_ARRAY_ADAPTER", CHAR_ARRAY, true),
+      FieldEntry.create(STATIC_ADAPTERS, "SPARSE_INT_ARRAY_ADAPTER", SPARSE_INT_ARRAY, false),
+      FieldEntry.create(STATIC_ADAPTERS, "SPARSE_LONG_ARRAY_ADAPTER", SPARSE_LONG_ARRAY, false),
+      ClassEntry.create("paperparcel.internal.LongSparseArrayAdapter", LONG_SPARSE_ARRAY, false),
+      ClassEntry.create("paperparcel.internal.ArrayMapAdapter", ARRAY_MAP, false),
+      ClassEntry.create("paperparcel.internal.ArraySetAdapter", ARRAY_SET, false),
+      ClassEntry.create("paperparcel.internal.SimpleArrayMapAdapter", SIMPLE_ARRAY_MAP, false),
+      COLLECTION_ENTRY,
+      SET_ENTRY,
+      CHAR_ARRAY_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "FLOAT_ARRAY_ADAPTER", FLOAT_ARRAY, true),
-      FieldEntry.create(STATIC_ADAPTERS, "SHORT_ARRAY_ADAPTER", SHORT_ARRAY, false),
+      SHORT_ARRAY_ENTRY,
       FieldEntry.create(STATIC_ADAPTERS, "CHARACTER_ADAPTER", CHARACTER, false),
-      ClassEntry.create("paperparcel.internal.EnumAdapter", ENUM, false),
+      ENUM_ENTRY,
+      ClassEntry.create("paperparcel.internal.EnumSetAdapter", ENUM_SET, false),
+      ClassEntry.create("paperparcel.internal.EnumMapAdapter", ENUM_MAP, false),
       ClassEntry.create("paperparcel.internal.ArrayAdapter", OBJECT_ARRAY, false),
+      // Concrete collection types would otherwise fall through to Serializable.
+      ClassEntry.create("paperparcel.internal.ArrayListAdapter", ARRAY_LIST, false),
+      ClassEntry.create("paperparcel.internal.LinkedListAdapter", LINKED_LIST, false),
+      ClassEntry.create("paperparcel.internal.ArrayDequeAdapter", ARRAY_DEQUE, false),
+      ClassEntry.create("paperparcel.internal.HashSetAdapter", HASH_SET, false),
+      ClassEntry.create("paperparcel.internal.LinkedHashSetAdapter", LINKED_HASH_SET, false),
+      ClassEntry.create("paperparcel.internal.TreeSetAdapter", TREE_SET, false),
+      ClassEntry.create("paperparcel.internal.HashMapAdapter", HASH_MAP, false),
+      ClassEntry.create("paperparcel.internal.LinkedHashMapAdapter", LINKED_HASH_MAP, false),
+      ClassEntry.create("paperparcel.internal.TreeMapAdapter", TREE_MAP, false),
+      // As are these common value types.
+      FieldEntry.create(STATIC_ADAPTERS, "DATE_ADAPTER", DATE, false),
+      FieldEntry.create(STATIC_ADAPTERS, "UUID_ADAPTER", UUID, false),
+      FieldEntry.create(STATIC_ADAPTERS, "BIG_DECIMAL_ADAPTER", BIG_DECIMAL, false),
+      FieldEntry.create(STATIC_ADAPTERS, "BIG_INTEGER_ADAPTER", BIG_INTEGER, false),
+      FieldEntry.create(STATIC_ADAPTERS, "INSTANT_ADAPTER", INSTANT, false),
+      FieldEntry.create(STATIC_ADAPTERS, "LOCAL_DATE_ADAPTER", LOCAL_DATE, false),
+      FieldEntry.create(STATIC_ADAPTERS, "DURATION_ADAPTER", DURATION, false),
+      FieldEntry.create(STATIC_ADAPTERS, "ATOMIC_INTEGER_ADAPTER", ATOMIC_INTEGER, false),
+      FieldEntry.create(STATIC_ADAPTERS, "ATOMIC_LONG_ADAPTER", ATOMIC_LONG, false),
+      ClassEntry.create("paperparcel.internal.OptionalAdapter", OPTIONAL, false),
+      FieldEntry.create(STATIC_ADAPTERS, "OPTIONAL_INT_ADAPTER", OPTIONAL_INT, false),
+      FieldEntry.create(STATIC_ADAPTERS, "OPTIONAL_LONG_ADAPTER", OPTIONAL_LONG, false),
+      FieldEntry.create(STATIC_ADAPTERS, "OPTIONAL_DOUBLE_ADAPTER", OPTIONAL_DOUBLE, false),
       // Serializable must be last.
       ClassEntry.create("paperparcel.internal.SerializableAdapter", SERIALIZABLE, false));
 
+  /**
+   * Adapters for Kotlin stdlib types. These live in paperparcel-kotlin, so are only registered
+   * when that artifact is on the classpath.
+   */
+  private static final ImmutableList<ClassEntry> KOTLIN_ADAPTER_ENTRIES = ImmutableList.of(
+      ClassEntry.create("paperparcel.internal.PairAdapter", KOTLIN_PAIR, false),
+      ClassEntry.create("paperparcel.internal.TripleAdapter", KOTLIN_TRIPLE, false),
+      ClassEntry.create("paperparcel.internal.IntRangeAdapter", KOTLIN_INT_RANGE, false),
+      ClassEntry.create("paperparcel.internal.LongRangeAdapter", KOTLIN_LONG_RANGE, false),
+      ClassEntry.create("paperparcel.internal.UByteAdapter", KOTLIN_UBYTE, false),
+      ClassEntry.create("paperparcel.internal.UShortAdapter", KOTLIN_USHORT, false),
+      ClassEntry.create("paperparcel.internal.UIntAdapter", KOTLIN_UINT, false),
+      ClassEntry.create("paperparcel.internal.ULongAdapter", KOTLIN_ULONG, false));
+
   private final List<Entry> entries = Lists.newArrayList(BUILT_IN_ADAPTER_ENTRIES);
-  private final Map<TypeName, AdapterDescriptor> adapters = Maps.newLinkedHashMap();
+  private final Table<List<Object>, TypeName, AdapterDescriptor> adapters = HashBasedTable.create();
 
   private final Elements elements;
   private final Types types;
@@ -162,6 +373,12 @@ final class AdapterRegistry {
       Types types) {
     this.elements = elements;
     this.types = types;
+    // Pair, Triple and the ranges are Serializable, so these must come before Serializable.
+    for (ClassEntry entry : KOTLIN_ADAPTER_ENTRIES) {
+      if (elements.getTypeElement(entry.qualifiedName()) != null) {
+        entries.add(entries.size() - 1, entry);
+      }
+    }
   }
 
   void addClassEntry(TypeElement element, boolean nullSafe) {
@@ -183,19 +400,59 @@ final class AdapterRegistry {
     return false;
   }
 
-  List<Entry> getEntries(boolean allowSerializable) {
-    if (allowSerializable) {
-      return entries;
-    } else {
-      return entries.subList(0, entries.size() - 1);
+  /**
+   * Returns the ordered adapter entries to search when resolving adapters for a type that is
+   * configured with {@code options}.
+   */
+  ImmutableList<Entry> getEntries(OptionsDescriptor options) {
+    List<Entry> result = Lists.newArrayList(entries);
+    if (options.useEnumOrdinals()) {
+      result.set(result.indexOf(ENUM_ENTRY), ORDINAL_ENUM_ENTRY);
+    }
+    if (options.useUtf8Strings()) {
+      result.set(result.indexOf(STRING_ENTRY), UTF8_STRING_ENTRY);
     }
+    if (options.useNullBitmask()) {
+      result.set(result.indexOf(PARCELABLE_ENTRY), NON_NULL_PARCELABLE_ENTRY);
+    }
+    if (options.packPrimitives()) {
+      result.set(result.indexOf(BOOLEAN_ARRAY_ENTRY), PACKED_BOOLEAN_ARRAY_ENTRY);
+      result.set(result.indexOf(CHAR_ARRAY_ENTRY), PACKED_CHAR_ARRAY_ENTRY);
+      result.set(result.indexOf(SHORT_ARRAY_ENTRY), PACKED_SHORT_ARRAY_ENTRY);
+    }
+    if (options.compactCollections()) {
+      result.set(result.indexOf(MAP_ENTRY), COMPACT_MAP_ENTRY);
+      result.set(result.indexOf(LIST_ENTRY), COMPACT_LIST_ENTRY);
+      result.set(result.indexOf(COLLECTION_ENTRY), COMPACT_COLLECTION_ENTRY);
+      result.set(result.indexOf(SET_ENTRY), COMPACT_SET_ENTRY);
+      result.set(result.indexOf(INTEGER_LIST_ENTRY), COMPACT_INTEGER_LIST_ENTRY);
+      result.set(result.indexOf(LONG_LIST_ENTRY), COMPACT_LONG_LIST_ENTRY);
+      result.set(result.indexOf(INTEGER_SET_ENTRY), COMPACT_INTEGER_SET_ENTRY);
+      result.set(result.indexOf(LONG_SET_ENTRY), COMPACT_LONG_SET_ENTRY);
+      result.set(result.indexOf(INTEGER_KEY_MAP_ENTRY), COMPACT_INTEGER_KEY_MAP_ENTRY);
+      result.set(result.indexOf(LONG_KEY_MAP_ENTRY), COMPACT_LONG_KEY_MAP_ENTRY);
+    }
+    if (!options.allowSerializable()) {
+      result.remove(result.size() - 1);
+    }
+    return ImmutableList.copyOf(result);
+  }
+
+  void registerAdapterFor(
+      OptionsDescriptor options, TypeName fieldType, AdapterDescriptor adapter) {
+    adapters.put(cacheKey(options), fieldType, adapter);
   }
 
-  void registerAdapterFor(TypeName fieldType, AdapterDescriptor adapter) {
-    adapters.put(fieldType, adapter);
+  Optional<AdapterDescriptor> getAdapterFor(OptionsDescriptor options, TypeName fieldType) {
+    return Optional.fromNullable(adapters.get(cacheKey(options), fieldType));
   }
 
-  Optional<AdapterDescriptor> getAdapterFor(TypeName fieldType) {
-    return Optional.fromNullable(adapters.get(fieldType));
+  /**
+   * Adapters are cached by the entries they were resolved from and by the options that wrap the
+   * resolved adapters (see {@link AdapterDescriptor.Factory}).
+   */
+  private List<Object> cacheKey(OptionsDescriptor options) {
+    return Arrays.<Object>asList(
+        getEntries(options), options.internValues(), options.canonicalizeValues());
   }
 }
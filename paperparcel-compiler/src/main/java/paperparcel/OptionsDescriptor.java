@@ -41,7 +41,20 @@ abstract class OptionsDescriptor {
       false,
       ImmutableList.<String>of(),
       true,
-      false);
+      false,
+      false,
+      false,
+      false,
+      false,
+      false,
+      false,
+      false,
+      false,
+      false,
+      0,
+      false,
+      false,
+      0);
 
   @Nullable abstract AnnotationMirror mirror();
 
@@ -59,6 +72,32 @@ abstract class OptionsDescriptor {
 
   abstract boolean isLombokEnabled();
 
+  abstract boolean useEnumOrdinals();
+
+  abstract boolean useNullBitmask();
+
+  abstract boolean packPrimitives();
+
+  abstract boolean elideDefaults();
+
+  abstract boolean useUtf8Strings();
+
+  abstract boolean internValues();
+
+  abstract boolean canonicalizeValues();
+
+  abstract boolean trackReferences();
+
+  abstract boolean columnarLists();
+
+  abstract int compressionThreshold();
+
+  abstract boolean compactEncoding();
+
+  abstract boolean compactCollections();
+
+  abstract int sharedMemoryThreshold();
+
   static OptionsDescriptor create(
       AnnotationMirror mirror,
       ImmutableList<Set<Modifier>> excludeModifiers,
@@ -67,7 +106,20 @@ abstract class OptionsDescriptor {
       boolean excludeNonExposedFields,
       ImmutableList<String> reflectAnnotations,
       boolean allowSerializable,
-      boolean isLombokEnabled) {
+      boolean isLombokEnabled,
+      boolean useEnumOrdinals,
+      boolean useNullBitmask,
+      boolean packPrimitives,
+      boolean elideDefaults,
+      boolean useUtf8Strings,
+      boolean internValues,
+      boolean canonicalizeValues,
+      boolean trackReferences,
+      boolean columnarLists,
+      int compressionThreshold,
+      boolean compactEncoding,
+      boolean compactCollections,
+      int sharedMemoryThreshold) {
     return new AutoValue_OptionsDescriptor(
         mirror,
         excludeModifiers,
@@ -76,6 +128,19 @@ abstract class OptionsDescriptor {
         excludeNonExposedFields,
         reflectAnnotations,
         allowSerializable,
-        isLombokEnabled);
+        isLombokEnabled,
+        useEnumOrdinals,
+        useNullBitmask,
+        packPrimitives,
+        elideDefaults,
+        useUtf8Strings,
+        internValues,
+        canonicalizeValues,
+        trackReferences,
+        columnarLists,
+        compressionThreshold,
+        compactEncoding,
+        compactCollections,
+        sharedMemoryThreshold);
   }
 }
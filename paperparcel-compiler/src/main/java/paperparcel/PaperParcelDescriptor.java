@@ -17,6 +17,7 @@
 package paperparcel;
 
 import com.google.auto.common.MoreElements;
+import com.google.auto.common.MoreTypes;
 import com.google.auto.common.Visibility;
 import com.google.auto.value.AutoValue;
 import com.google.common.base.Optional;
@@ -32,10 +33,12 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.UnknownTypeException;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
+import androidx.annotation.Nullable;
 
 /** Represents a {@link PaperParcel} annotated object */
 @AutoValue
@@ -84,6 +87,15 @@ abstract class PaperParcelDescriptor {
    */
   abstract boolean isSingleton();
 
+  /**
+   * Returns true if a columnar {@code List} adapter should be generated for this class, as per
+   * {@link Utils#hasColumnarListAdapter(Types, TypeElement, OptionsDescriptor)}
+   */
+  abstract boolean hasColumnarListAdapter();
+
+  /** The options that this class was processed with. */
+  abstract OptionsDescriptor options();
+
   private static boolean isGetterMethod(String fieldName, String methodName) {
     fieldName = stripKaptEscaping(fieldName);
     methodName = stripKotlinInternalVisibilityQualifier(methodName);
@@ -177,16 +189,19 @@ abstract class PaperParcelDescriptor {
     private final Types types;
     private final AdapterDescriptor.Factory adapterFactory;
     private final FieldDescriptor.Factory fieldDescriptorFactory;
+    private final OptionsHolder optionsHolder;
 
     Factory(
         Elements elements,
         Types types,
         AdapterDescriptor.Factory adapterFactory,
-        FieldDescriptor.Factory fieldDescriptorFactory) {
+        FieldDescriptor.Factory fieldDescriptorFactory,
+        OptionsHolder optionsHolder) {
       this.elements = elements;
       this.types = types;
       this.adapterFactory = adapterFactory;
       this.fieldDescriptorFactory = fieldDescriptorFactory;
+      this.optionsHolder = optionsHolder;
     }
 
     PaperParcelDescriptor create(TypeElement element, OptionsDescriptor options)
@@ -219,7 +234,7 @@ abstract class PaperParcelDescriptor {
             methods, options.reflectAnnotations());
         readableFields = readInfo.readableFields();
         getterMethodMap = readInfo.getterMethodMap();
-        adapters = getAdapterMap(readInfo, options.allowSerializable());
+        adapters = getAdapterMap(element, readInfo, options);
 
       } else {
         constructorFields = ImmutableList.of();
@@ -240,19 +255,21 @@ abstract class PaperParcelDescriptor {
           readableFields,
           getterMethodMap,
           adapters,
-          singleton);
+          singleton,
+          Utils.hasColumnarListAdapter(types, element, options),
+          options);
     }
 
-    private ImmutableMap<FieldDescriptor, AdapterDescriptor> getAdapterMap(ReadInfo readInfo,
-        boolean allowSerializable) {
+    private ImmutableMap<FieldDescriptor, AdapterDescriptor> getAdapterMap(TypeElement element,
+        ReadInfo readInfo, OptionsDescriptor options) {
       ImmutableMap.Builder<FieldDescriptor, AdapterDescriptor> fieldAdapterMap =
           ImmutableMap.builder();
       if (readInfo != null) {
         for (FieldDescriptor field : readInfo.readableFields()) {
-          addAdapterForField(fieldAdapterMap, field, allowSerializable);
+          addAdapterForField(fieldAdapterMap, element, field, options);
         }
         for (FieldDescriptor field : readInfo.getterMethodMap().keySet()) {
-          addAdapterForField(fieldAdapterMap, field, allowSerializable);
+          addAdapterForField(fieldAdapterMap, element, field, options);
         }
       }
       return fieldAdapterMap.build();
@@ -260,18 +277,50 @@ abstract class PaperParcelDescriptor {
 
     private void addAdapterForField(
         ImmutableMap.Builder<FieldDescriptor, AdapterDescriptor> fieldAdapterMap,
-        FieldDescriptor field, boolean allowSerializable) {
+        TypeElement element, FieldDescriptor field, OptionsDescriptor options) {
       TypeMirror fieldType = field.type().get();
       //noinspection ConstantConditions
       if (!fieldType.getKind().isPrimitive()) {
-        AdapterDescriptor adapter = adapterFactory.create(fieldType, allowSerializable);
+        AdapterDescriptor adapter = getColumnarListAdapter(element, fieldType);
+        if (adapter == null) {
+          adapter = adapterFactory.create(fieldType, options);
+        }
         if (adapter != null) {
-          fieldAdapterMap.put(field, adapter);
+          adapter = adapterFactory.compressIfLarge(fieldType, adapter, options);
+          fieldAdapterMap.put(field, adapterFactory.shareIfLarge(fieldType, adapter, options));
         } else {
           throw new UnknownTypeException(fieldType, field.element());
         }
       }
     }
+
+    /**
+     * Returns the columnar list adapter for {@code fieldType} if it is a {@code List} of a
+     * {@link PaperParcel} class that has one, or null otherwise. The generated adapter is package
+     * private, so it can only be used by classes in the same package.
+     */
+    @Nullable private AdapterDescriptor getColumnarListAdapter(
+        TypeElement element, TypeMirror fieldType) {
+      if (fieldType.getKind() != TypeKind.DECLARED
+          || !MoreTypes.isTypeOf(List.class, fieldType)) {
+        return null;
+      }
+      List<? extends TypeMirror> typeArguments = MoreTypes.asDeclared(fieldType).getTypeArguments();
+      if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+        return null;
+      }
+      TypeElement itemElement = MoreTypes.asTypeElement(typeArguments.get(0));
+      if (!MoreElements.isAnnotationPresent(itemElement, PaperParcel.class)
+          || !elements.getPackageOf(itemElement).equals(elements.getPackageOf(element))) {
+        return null;
+      }
+      OptionsDescriptor itemOptions =
+          Utils.getOptions(itemElement).or(optionsHolder.getOptions());
+      if (!Utils.hasColumnarListAdapter(types, itemElement, itemOptions)) {
+        return null;
+      }
+      return AdapterDescriptor.Factory.createColumnarList(fieldType, itemElement);
+    }
   }
 
   private static class WriteInfo {
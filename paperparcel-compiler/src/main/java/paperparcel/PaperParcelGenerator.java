@@ -22,6 +22,7 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.TypeSpec;
 import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
 
 /**
  * The class responsible for generating the Parcelable implementation code classes for the
@@ -34,7 +35,12 @@ final class PaperParcelGenerator extends SourceFileGenerator<PaperParcelDescript
   }
 
   @Override ClassName nameGeneratedType(PaperParcelDescriptor input) {
-    ClassName paperParcelClassName = ClassName.get(input.element());
+    return generatedClassName(input.element());
+  }
+
+  /** Returns the name of the class that is generated for {@code element}. */
+  static ClassName generatedClassName(TypeElement element) {
+    ClassName paperParcelClassName = ClassName.get(element);
     String implName =
         "PaperParcel" + Joiner.on('_').join(paperParcelClassName.simpleNames());
     return paperParcelClassName.topLevelClassName().peerClass(implName);
@@ -62,7 +62,8 @@ public class PaperParcelProcessor extends BasicAnnotationProcessor {
             elements,
             types,
             adapterFactory,
-            fieldDescriptorFactory);
+            fieldDescriptorFactory,
+            optionsHolder);
 
     PaperParcelGenerator paperParcelGenerator = new PaperParcelGenerator(filer);
 
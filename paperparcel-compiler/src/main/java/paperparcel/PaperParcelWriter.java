@@ -23,7 +23,9 @@ import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
@@ -36,15 +38,18 @@ import com.squareup.javapoet.TypeSpec;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import paperparcel.AdapterDescriptor.ConstructorInfo;
 
 import static javax.lang.model.element.Modifier.FINAL;
@@ -60,29 +65,373 @@ final class PaperParcelWriter {
   private static final ClassName PARCEL = ClassName.get("android.os", "Parcel");
   private static final ClassName UTILS = ClassName.get("paperparcel.internal", "Utils");
   private static final ClassName TYPE_ADAPTER = ClassName.get("paperparcel", "TypeAdapter");
+  private static final ClassName INTERN_TABLE =
+      ClassName.get("paperparcel.internal", "InternTable");
+  private static final ClassName STRING = ClassName.get(String.class);
+  private static final ClassName STATIC_ADAPTERS =
+      ClassName.get("paperparcel.internal", "StaticAdapters");
+  private static final ImmutableSet<String> PLAIN_STRING_ADAPTERS =
+      ImmutableSet.of("STRING_ADAPTER", "UTF8_STRING_ADAPTER");
+  private static final ClassName COMPACT_ENCODER =
+      ClassName.get("paperparcel.internal", "CompactEncoder");
+  private static final ClassName COMPACT_DECODER =
+      ClassName.get("paperparcel.internal", "CompactDecoder");
+  private static final ImmutableSet<ClassName> PARCELABLE_ADAPTERS = ImmutableSet.of(
+      ClassName.get("paperparcel.internal", "ParcelableAdapter"),
+      ClassName.get("paperparcel.internal", "NonNullParcelableAdapter"));
+
+  /**
+   * Maps the built-in collection adapters to the type of the (mutable) collection that they
+   * create, so that an elided empty collection can be restored to the same type. Sorted
+   * collections are not included as their comparator would be lost.
+   */
+  private static final ImmutableMap<ClassName, ClassName> EMPTY_COLLECTION_TYPES =
+      ImmutableMap.<ClassName, ClassName>builder()
+          .put(ClassName.get("paperparcel.internal", "CollectionAdapter"),
+              ClassName.get("java.util", "ArrayList"))
+          .put(ClassName.get("paperparcel.internal", "ListAdapter"),
+              ClassName.get("java.util", "ArrayList"))
+          .put(ClassName.get("paperparcel.internal", "MapAdapter"),
+              ClassName.get("java.util", "LinkedHashMap"))
+          .put(ClassName.get("paperparcel.internal", "IntegerKeyMapAdapter"),
+              ClassName.get("java.util", "LinkedHashMap"))
+          .put(ClassName.get("paperparcel.internal", "LongKeyMapAdapter"),
+              ClassName.get("java.util", "LinkedHashMap"))
+          .put(ClassName.get("paperparcel.internal", "SetAdapter"),
+              ClassName.get("java.util", "LinkedHashSet"))
+          .put(ClassName.get("paperparcel.internal", "ArrayListAdapter"),
+              ClassName.get("java.util", "ArrayList"))
+          .put(ClassName.get("paperparcel.internal", "LinkedListAdapter"),
+              ClassName.get("java.util", "LinkedList"))
+          .put(ClassName.get("paperparcel.internal", "ArrayDequeAdapter"),
+              ClassName.get("java.util", "ArrayDeque"))
+          .put(ClassName.get("paperparcel.internal", "HashSetAdapter"),
+              ClassName.get("java.util", "HashSet"))
+          .put(ClassName.get("paperparcel.internal", "LinkedHashSetAdapter"),
+              ClassName.get("java.util", "LinkedHashSet"))
+          .put(ClassName.get("paperparcel.internal", "HashMapAdapter"),
+              ClassName.get("java.util", "HashMap"))
+          .put(ClassName.get("paperparcel.internal", "LinkedHashMapAdapter"),
+              ClassName.get("java.util", "LinkedHashMap"))
+          .build();
+
+  /** Same as {@link #EMPTY_COLLECTION_TYPES}, for the collection adapters in StaticAdapters. */
+  private static final ImmutableMap<String, ClassName> EMPTY_STATIC_COLLECTION_TYPES =
+      ImmutableMap.of(
+          "INTEGER_LIST_ADAPTER", ClassName.get("java.util", "ArrayList"),
+          "LONG_LIST_ADAPTER", ClassName.get("java.util", "ArrayList"),
+          "INTEGER_SET_ADAPTER", ClassName.get("java.util", "LinkedHashSet"),
+          "LONG_SET_ADAPTER", ClassName.get("java.util", "LinkedHashSet"));
+
+  /**
+   * Maps the compact collection adapters to the {@code java.util.Collections} factory method of
+   * the shared empty instance that they read empty collections as.
+   */
+  private static final ImmutableMap<ClassName, String> EMPTY_COMPACT_COLLECTION_FACTORIES =
+      ImmutableMap.<ClassName, String>builder()
+          .put(ClassName.get("paperparcel.internal", "CompactListAdapter"), "emptyList")
+          .put(ClassName.get("paperparcel.internal", "CompactCollectionAdapter"), "emptyList")
+          .put(ClassName.get("paperparcel.internal", "CompactSetAdapter"), "emptySet")
+          .put(ClassName.get("paperparcel.internal", "CompactMapAdapter"), "emptyMap")
+          .put(ClassName.get("paperparcel.internal", "CompactIntegerKeyMapAdapter"), "emptyMap")
+          .put(ClassName.get("paperparcel.internal", "CompactLongKeyMapAdapter"), "emptyMap")
+          .build();
+
+  /** Same as {@link #EMPTY_COMPACT_COLLECTION_FACTORIES}, for the adapters in StaticAdapters. */
+  private static final ImmutableMap<String, String> EMPTY_STATIC_COMPACT_COLLECTION_FACTORIES =
+      ImmutableMap.of(
+          "COMPACT_INTEGER_LIST_ADAPTER", "emptyList",
+          "COMPACT_LONG_LIST_ADAPTER", "emptyList",
+          "COMPACT_INTEGER_SET_ADAPTER", "emptySet",
+          "COMPACT_LONG_SET_ADAPTER", "emptySet");
+
+  private static final ClassName COLLECTIONS = ClassName.get("java.util", "Collections");
 
   private final AdapterNameGenerator adapterNames = new AdapterNameGenerator();
 
   private final ClassName name;
   private final PaperParcelDescriptor descriptor;
+  private final Header header = new Header();
+  private final ImmutableMap<FieldDescriptor, Header.Slot> packedFields;
+  private final ImmutableMap<FieldDescriptor, Header.Slot> nullBits;
+  private final ImmutableMap<FieldDescriptor, Header.Slot> presenceBits;
+  @Nullable private final FieldDescriptor selfLink;
+  private final ImmutableSet<FieldDescriptor> compactFields;
 
   PaperParcelWriter(
       ClassName name,
       PaperParcelDescriptor descriptor) {
     this.name = name;
     this.descriptor = descriptor;
+    this.selfLink = findSelfLink();
+    this.compactFields = findCompactFields();
+    this.packedFields = allocatePackedFields();
+    this.nullBits = allocateNullBits();
+    this.presenceBits = allocatePresenceBits();
+  }
+
+  /**
+   * Returns the field that links an instance to another instance of the same class (e.g. the
+   * {@code next} field of a linked list node), or null if there isn't exactly one such field.
+   * Chains of instances linked by this field are written and read in a loop, rather than
+   * recursing once per instance, so that long chains cannot overflow the stack.
+   *
+   * <p>The class must be final so that every linked instance is written by this class, and the
+   * field must be assignable after construction so that instances can be linked as they are
+   * read.</p>
+   */
+  @SuppressWarnings("ConstantConditions")
+  @Nullable private FieldDescriptor findSelfLink() {
+    TypeElement element = descriptor.element();
+    if (descriptor.isSingleton()
+        || descriptor.options().trackReferences()
+        || !element.getModifiers().contains(FINAL)
+        || !element.getTypeParameters().isEmpty()) {
+      return null;
+    }
+    ClassName className = ClassName.get(element);
+    FieldDescriptor result = null;
+    for (Map.Entry<FieldDescriptor, AdapterDescriptor> entry : descriptor.adapters().entrySet()) {
+      FieldDescriptor field = entry.getKey();
+      if (!className.equals(TypeName.get(field.type().get()))) {
+        continue;
+      }
+      TypeName adapterTypeName = entry.getValue().typeName();
+      if (result != null
+          || !(adapterTypeName instanceof ParameterizedTypeName)
+          || !PARCELABLE_ADAPTERS.contains(((ParameterizedTypeName) adapterTypeName).rawType)) {
+        return null;
+      }
+      result = field;
+    }
+    if (result == null || descriptor.constructorFields().contains(result)) {
+      return null;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the fields that are encoded into a single {@code byte[]} by a {@code CompactEncoder}
+   * when {@link OptionsDescriptor#compactEncoding()} is enabled. These are the primitive fields,
+   * and the {@code String} fields that are written with one of the plain string adapters.
+   */
+  @SuppressWarnings("ConstantConditions")
+  private ImmutableSet<FieldDescriptor> findCompactFields() {
+    ImmutableSet.Builder<FieldDescriptor> result = ImmutableSet.builder();
+    if (descriptor.options().compactEncoding() && !descriptor.isSingleton()) {
+      for (FieldDescriptor field : Iterables.concat(
+          descriptor.readableFields(), descriptor.getterMethodMap().keySet())) {
+        if (field.equals(selfLink)) continue;
+        TypeName fieldTypeName = TypeName.get(field.type().get());
+        AdapterDescriptor adapter = descriptor.adapters().get(field);
+        if (fieldTypeName.isPrimitive()
+            || (STRING.equals(fieldTypeName)
+            && STATIC_ADAPTERS.equals(adapter.typeName())
+            && PLAIN_STRING_ADAPTERS.contains(adapter.singletonInstance().get()))) {
+          result.add(field);
+        }
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Allocates a header slot for each {@code boolean}, {@code byte}, {@code short} and
+   * {@code char} field when {@link OptionsDescriptor#packPrimitives()} is enabled. The widest
+   * slots are allocated first so that narrower ones can fill the gaps.
+   */
+  private ImmutableMap<FieldDescriptor, Header.Slot> allocatePackedFields() {
+    ImmutableMap.Builder<FieldDescriptor, Header.Slot> result = ImmutableMap.builder();
+    if (descriptor.options().packPrimitives()) {
+      for (int width : new int[] { Short.SIZE, Byte.SIZE, 1 }) {
+        for (FieldDescriptor field : fieldsInParcelOrder()) {
+          if (packedWidth(field) == width && !compactFields.contains(field)) {
+            result.put(field, header.next(width));
+          }
+        }
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Returns the number of bits that {@code field} occupies when packed into the header, or 0 if
+   * it cannot be packed.
+   */
+  private static int packedWidth(FieldDescriptor field) {
+    TypeName fieldTypeName = TypeName.get(field.type().get());
+    if (TypeName.BOOLEAN.equals(fieldTypeName)) {
+      return 1;
+    } else if (TypeName.BYTE.equals(fieldTypeName)) {
+      return Byte.SIZE;
+    } else if (TypeName.SHORT.equals(fieldTypeName) || TypeName.CHAR.equals(fieldTypeName)) {
+      return Short.SIZE;
+    }
+    return 0;
+  }
+
+  /**
+   * Allocates a header bit for each field that would otherwise be written with its own null flag
+   * when {@link OptionsDescriptor#useNullBitmask()} is enabled.
+   */
+  private ImmutableMap<FieldDescriptor, Header.Slot> allocateNullBits() {
+    ImmutableMap.Builder<FieldDescriptor, Header.Slot> result = ImmutableMap.builder();
+    if (descriptor.options().useNullBitmask()) {
+      for (FieldDescriptor field : fieldsInParcelOrder()) {
+        if (requiresNullCheck(field) && !compactFields.contains(field)) {
+          result.put(field, header.next(1));
+        }
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Allocates a header bit for each field that may be left out of the Parcel when it holds its
+   * default value, when {@link OptionsDescriptor#elideDefaults()} is enabled. The bit is set
+   * when the field's value is written.
+   */
+  private ImmutableMap<FieldDescriptor, Header.Slot> allocatePresenceBits() {
+    ImmutableMap.Builder<FieldDescriptor, Header.Slot> result = ImmutableMap.builder();
+    if (descriptor.options().elideDefaults()) {
+      for (FieldDescriptor field : fieldsInParcelOrder()) {
+        if (!packedFields.containsKey(field)
+            && !compactFields.contains(field)
+            && defaultValue(field) != null) {
+          result.put(field, header.next(1));
+        }
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Returns the value that {@code field} is restored to when it is elided, or null if
+   * {@code field} cannot be elided. These are the zero value of primitive types, the empty string
+   * and the empty collections created by the built-in collection adapters. Wildcard types are
+   * never elided as they cannot be used to create an empty collection.
+   */
+  @SuppressWarnings("ConstantConditions")
+  @Nullable private CodeBlock defaultValue(FieldDescriptor field) {
+    if (Utils.containsWildcards(field.type().get())) {
+      return null;
+    }
+    TypeName fieldTypeName = TypeName.get(field.type().get());
+    if (TypeName.BOOLEAN.equals(fieldTypeName)) {
+      return CodeBlock.of("false");
+    } else if (fieldTypeName.isPrimitive()) {
+      return CodeBlock.of("0");
+    } else if (STRING.equals(fieldTypeName)) {
+      return CodeBlock.of("$S", "");
+    }
+    AdapterDescriptor adapter = descriptor.adapters().get(field);
+    TypeName adapterTypeName = adapter.typeName();
+    if (fieldTypeName instanceof ParameterizedTypeName) {
+      List<TypeName> typeArguments = ((ParameterizedTypeName) fieldTypeName).typeArguments;
+      ClassName collectionType = null;
+      String emptyFactory = null;
+      if (adapterTypeName instanceof ParameterizedTypeName) {
+        ClassName adapterRawType = ((ParameterizedTypeName) adapterTypeName).rawType;
+        collectionType = EMPTY_COLLECTION_TYPES.get(adapterRawType);
+        emptyFactory = EMPTY_COMPACT_COLLECTION_FACTORIES.get(adapterRawType);
+      } else if (STATIC_ADAPTERS.equals(adapterTypeName)) {
+        collectionType = EMPTY_STATIC_COLLECTION_TYPES.get(adapter.singletonInstance().get());
+        emptyFactory =
+            EMPTY_STATIC_COMPACT_COLLECTION_FACTORIES.get(adapter.singletonInstance().get());
+      }
+      if (collectionType != null) {
+        return CodeBlock.of("new $T()", ParameterizedTypeName.get(
+            collectionType, typeArguments.toArray(new TypeName[typeArguments.size()])));
+      }
+      if (emptyFactory != null) {
+        // Explicit type arguments, as this may be one side of a conditional expression
+        CodeBlock.Builder block = CodeBlock.builder().add("$T.<", COLLECTIONS);
+        for (int i = 0; i < typeArguments.size(); i++) {
+          block.add(i == 0 ? "$T" : ", $T", typeArguments.get(i));
+        }
+        return block.add(">$L()", emptyFactory).build();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a boolean expression that is true when {@code accessorBlock} does not hold the
+   * default value of {@code field}.
+   */
+  private CodeBlock isPresent(FieldDescriptor field, CodeBlock accessorBlock) {
+    TypeName fieldTypeName = TypeName.get(field.type().get());
+    if (TypeName.BOOLEAN.equals(fieldTypeName)) {
+      return accessorBlock;
+    } else if (TypeName.FLOAT.equals(fieldTypeName)) {
+      // Compare the raw bits so that -0.0f is not mistaken for the default value
+      return CodeBlock.of("$T.floatToRawIntBits($L) != 0", Float.class, accessorBlock);
+    } else if (TypeName.DOUBLE.equals(fieldTypeName)) {
+      return CodeBlock.of("$T.doubleToRawLongBits($L) != 0", Double.class, accessorBlock);
+    } else if (fieldTypeName.isPrimitive()) {
+      return CodeBlock.of("$L != 0", accessorBlock);
+    } else if (field.isNullable()) {
+      return CodeBlock.of("$L == null || !$L.isEmpty()", accessorBlock, accessorBlock);
+    } else {
+      return CodeBlock.of("!$L.isEmpty()", accessorBlock);
+    }
+  }
+
+  /**
+   * Returns all of the fields in the exact order that they are written to the Parcel. Currently
+   * directly readable fields first, then all fields that are read via getters, and finally all
+   * fields that require reflection. The {@link #compactFields} come before all of the others as
+   * they are written together, and the {@link #selfLink} is not included as it is written
+   * separately, after all of the other fields.
+   */
+  private ImmutableList<FieldDescriptor> fieldsInParcelOrder() {
+    ImmutableList.Builder<FieldDescriptor> result = ImmutableList.builder();
+    result.addAll(compactFields);
+    for (FieldDescriptor field : Iterables.concat(
+        descriptor.readableFields(), descriptor.getterMethodMap().keySet())) {
+      if (!field.equals(selfLink) && !compactFields.contains(field)) {
+        result.add(field);
+      }
+    }
+    return result.build();
+  }
+
+  /** Returns true if {@code field} may be null but its adapter does not handle null values. */
+  @SuppressWarnings("ConstantConditions")
+  private boolean requiresNullCheck(FieldDescriptor field) {
+    if (field.type().get().getKind().isPrimitive()) return false;
+    AdapterDescriptor adapter = descriptor.adapters().get(field);
+    return field.isNullable() && !adapter.nullSafe();
   }
 
   final TypeSpec.Builder write() {
     ClassName className = ClassName.get(descriptor.element());
-    return TypeSpec.classBuilder(name)
-        .addModifiers(FINAL)
-        .addFields(adapterDependencies(descriptor.adapters().values()))
-        .addField(creator(className))
-        .addMethod(writeToParcel(className))
+    TypeSpec.Builder builder = TypeSpec.classBuilder(name)
+        .addModifiers(FINAL);
+    if (descriptor.hasColumnarListAdapter()) {
+      // The list adapter also writes the selfLink, so needs all of the adapters
+      builder.addFields(adapterDependencies(descriptor.adapters().values()))
+          .addField(creator(className))
+          .addField(listAdapter(className));
+    } else {
+      builder.addFields(adapterDependencies(fieldAdapters()))
+          .addField(creator(className));
+    }
+    return builder.addMethod(writeToParcel(className))
         .addMethod(MethodSpec.constructorBuilder().addModifiers(PRIVATE).build());
   }
 
+  /** Returns the adapters used to read and write the fields of this class. */
+  private ImmutableList<AdapterDescriptor> fieldAdapters() {
+    ImmutableList.Builder<AdapterDescriptor> result = ImmutableList.builder();
+    for (Map.Entry<FieldDescriptor, AdapterDescriptor> entry : descriptor.adapters().entrySet()) {
+      if (!entry.getKey().equals(selfLink)) {
+        result.add(entry.getValue());
+      }
+    }
+    return result.build();
+  }
+
   private FieldSpec creator(ClassName className) {
     UniqueNameSet readNames = new UniqueNameSet();
 
@@ -99,16 +448,77 @@ final class PaperParcelWriter {
     if (descriptor.isSingleton()) {
       createFromParcel.addStatement("return $T.INSTANCE", className);
     } else {
-      // Read the fields from the parcel
-      ImmutableMap<String, FieldSpec> fieldMap = readFields(in, readNames);
+      if (usesInternTable()) {
+        beginInternTable(createFromParcel, in);
+      }
+      String reference = null;
+      if (descriptor.options().trackReferences()) {
+        reference = readNames.getUniqueName("reference");
+        createFromParcel.addStatement("int $N = $N.readInt()", reference, in)
+            .beginControlFlow("if ($N >= 0)", reference)
+            .addStatement("return ($T) $T.getReference($N, $N)",
+                className, INTERN_TABLE, in, reference)
+            .endControlFlow()
+            .addStatement("$N = $T.newReference($N)", reference, INTERN_TABLE, in);
+      }
+      ImmutableList<String> headerNames = header.names(readNames);
+      String decoder = compactFields.isEmpty() ? null : readNames.getUniqueName("decoder");
+      ImmutableMap<String, FieldSpec> fieldMap = readFields(in, readNames, headerNames, decoder);
+      FieldSpec model = initModel(className, readNames, fieldMap);
+      String first = null;
+      String last = null;
+      if (selfLink != null) {
+        // Read each instance in the chain in turn, linking it to the previous one
+        first = readNames.getUniqueName("first");
+        last = readNames.getUniqueName("last");
+        createFromParcel.addStatement("$T $N = null", className, first)
+            .addStatement("$T $N = null", className, last)
+            .beginControlFlow("do");
+      }
+      // When tracking references, construct the model up front if we can so that the fields can
+      // refer back to it (i.e. so that cycles can be read).
+      boolean constructFirst = reference != null && descriptor.constructorFields().isEmpty();
+      if (constructFirst) {
+        createFromParcel.addStatement("$T $N = $L", model.type, model.name, model.initializer)
+            .addStatement("$T.setReference($N, $N, $N)", INTERN_TABLE, in, reference, model.name);
+      }
+      // Read the header and then the fields from the parcel
+      for (String headerName : headerNames) {
+        createFromParcel.addStatement("int $N = $N.readInt()", headerName, in);
+      }
+      if (decoder != null) {
+        createFromParcel.addStatement("$T $N = new $T($N)",
+            COMPACT_DECODER, decoder, COMPACT_DECODER, in);
+      }
       for (FieldSpec field : fieldMap.values()) {
         createFromParcel.addStatement("$T $N = $L", field.type, field.name, field.initializer);
       }
       // Re-construct the model and return
-      FieldSpec model = initModel(className, readNames, fieldMap);
-      createFromParcel.addStatement("$T $N = $L", model.type, model.name, model.initializer)
-          .addCode(setFields(model, fieldMap))
-          .addStatement("return $N", model.name);
+      if (!constructFirst) {
+        createFromParcel.addStatement("$T $N = $L", model.type, model.name, model.initializer);
+        if (reference != null) {
+          createFromParcel.addStatement("$T.setReference($N, $N, $N)",
+              INTERN_TABLE, in, reference, model.name);
+        }
+      }
+      createFromParcel.addCode(setFields(model, fieldMap));
+      if (selfLink != null) {
+        CodeBlock.Builder link = CodeBlock.builder();
+        setField(link, last, selfLink, model.name);
+        createFromParcel.beginControlFlow("if ($N == null)", first)
+            .addStatement("$N = $N", first, model.name)
+            .nextControlFlow("else")
+            .addCode(link.build())
+            .endControlFlow()
+            .addStatement("$N = $N", last, model.name)
+            .endControlFlow("while ($N.readInt() == 1)", in)
+            .addStatement("return $N", first);
+      } else {
+        createFromParcel.addStatement("return $N", model.name);
+      }
+      if (usesInternTable()) {
+        endInternTable(createFromParcel, in);
+      }
     }
 
     MethodSpec.Builder newArray = MethodSpec.methodBuilder("newArray")
@@ -130,33 +540,279 @@ final class PaperParcelWriter {
         .build();
   }
 
-  private ImmutableMap<String, FieldSpec> readFields(
-      ParameterSpec in, UniqueNameSet readNames) {
-    ImmutableMap.Builder<String, FieldSpec> result = ImmutableMap.builder();
+  /**
+   * Returns the {@code LIST_ADAPTER} field, which writes {@code List}s of this class column by
+   * column. The null elements are marked in a {@code boolean[]} (which is itself null if there
+   * are none), followed by a single array for each primitive field and finally each of the other
+   * fields, one column at a time.
+   */
+  @SuppressWarnings("ConstantConditions")
+  private FieldSpec listAdapter(ClassName className) {
+    TypeName listOfClass = ParameterizedTypeName.get(ClassName.get(List.class), className);
+    ImmutableList<FieldDescriptor> fields =
+        ImmutableList.copyOf(accessorBlocks("data").keySet());
+
+    // Read each column into an array, then construct the items a row at a time
+    UniqueNameSet readNames = new UniqueNameSet();
+    ParameterSpec in = ParameterSpec.builder(PARCEL, readNames.getUniqueName("in"))
+        .addAnnotation(NonNull.class)
+        .build();
+    String size = readNames.getUniqueName("size");
+    String nulls = readNames.getUniqueName("nulls");
+    String i = readNames.getUniqueName("i");
+    MethodSpec.Builder readFromParcel = MethodSpec.methodBuilder("readFromParcel")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .returns(listOfClass)
+        .addParameter(in);
+    if (descriptor.options().internValues()) {
+      beginInternTable(readFromParcel, in);
+    }
+    readFromParcel.addStatement("int $N = $N.readInt()", size, in)
+        .addStatement("boolean[] $N = $N.createBooleanArray()", nulls, in);
+
+    Map<FieldDescriptor, String> readColumns = new LinkedHashMap<>();
+    for (FieldDescriptor field : fields) {
+      TypeName fieldTypeName = TypeName.get(field.type().get());
+      if (fieldTypeName.isPrimitive()) {
+        String column = readNames.getUniqueName(field.name() + "Column");
+        readColumns.put(field, column);
+        readFromParcel.addStatement("$T $N = $N.create$LArray()", ArrayTypeName.of(
+            columnTypeOf(fieldTypeName)), column, in, columnMethodSuffix(fieldTypeName));
+      }
+    }
+    boolean unchecked = false;
+    for (FieldDescriptor field : fields) {
+      TypeName fieldTypeName = TypeName.get(field.type().get());
+      if (fieldTypeName.isPrimitive()) continue;
+      // Generic arrays cannot be created, so use an array of the raw type instead
+      unchecked |= fieldTypeName instanceof ParameterizedTypeName;
+      TypeName columnType = rawTypeFrom(field.type().get());
+      String column = readNames.getUniqueName(field.name() + "Column");
+      readColumns.put(field, column);
+      AdapterDescriptor adapter = descriptor.adapters().get(field);
+      CodeBlock adapterInstance = adapterInstance(adapter);
+      readFromParcel.addStatement("$T $N = new $T[$N]",
+          ArrayTypeName.of(columnType), column, columnType, size)
+          .beginControlFlow("for (int $N = 0; $N < $N; $N++)", i, i, size, i)
+          .beginControlFlow("if ($N == null || !$N[$N])", nulls, nulls, i);
+      if (field.isNullable() && !adapter.nullSafe()) {
+        readFromParcel.addStatement("$N[$N] = $T.readNullable($N, $L)",
+            column, i, UTILS, in, adapterInstance);
+      } else {
+        readFromParcel.addStatement("$N[$N] = $L.readFromParcel($N)",
+            column, i, adapterInstance, in);
+      }
+      readFromParcel.endControlFlow()
+          .endControlFlow();
+    }
+    if (unchecked) {
+      readFromParcel.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+          .addMember("value", "$S", "unchecked")
+          .build());
+    }
+
+    String list = readNames.getUniqueName("list");
+    readFromParcel.addStatement("$T $N = new $T($N)", listOfClass, list,
+        ParameterizedTypeName.get(ClassName.get(ArrayList.class), className), size)
+        .beginControlFlow("for (int $N = 0; $N < $N; $N++)", i, i, size, i)
+        .beginControlFlow("if ($N != null && $N[$N])", nulls, nulls, i)
+        .addStatement("$N.add(null)", list)
+        .addStatement("continue")
+        .endControlFlow();
+    ImmutableMap.Builder<String, FieldSpec> fieldMapBuilder = ImmutableMap.builder();
+    for (FieldDescriptor field : fields) {
+      TypeName fieldTypeName = TypeName.get(field.type().get());
+      FieldSpec.Builder local =
+          FieldSpec.builder(fieldTypeName, readNames.getUniqueName(field.name()));
+      if (TypeName.SHORT.equals(fieldTypeName)) {
+        local.initializer("(short) $N[$N]", readColumns.get(field), i);
+      } else {
+        local.initializer("$N[$N]", readColumns.get(field), i);
+      }
+      fieldMapBuilder.put(field.name(), local.build());
+    }
+    ImmutableMap<String, FieldSpec> fieldMap = fieldMapBuilder.build();
+    for (FieldSpec field : fieldMap.values()) {
+      readFromParcel.addStatement("$T $N = $L", field.type, field.name, field.initializer);
+    }
+    FieldSpec model = initModel(className, readNames, fieldMap);
+    readFromParcel.addStatement("$T $N = $L", model.type, model.name, model.initializer)
+        .addCode(setFields(model, fieldMap));
+    if (selfLink != null) {
+      CodeBlock.Builder link = CodeBlock.builder();
+      setField(link, model.name, selfLink, fieldMap.get(selfLink.name()).name);
+      readFromParcel.addCode(link.build());
+    }
+    readFromParcel.addStatement("$N.add($N)", list, model.name)
+        .endControlFlow()
+        .addStatement("return $N", list);
+    if (descriptor.options().internValues()) {
+      endInternTable(readFromParcel, in);
+    }
+
+    // Gather the primitive fields into arrays and write them, then write the other fields
+    UniqueNameSet writeNames = new UniqueNameSet();
+    ParameterSpec value = ParameterSpec.builder(listOfClass, writeNames.getUniqueName("value"))
+        .addAnnotation(NonNull.class)
+        .build();
+    ParameterSpec dest = ParameterSpec.builder(PARCEL, writeNames.getUniqueName("dest"))
+        .addAnnotation(NonNull.class)
+        .build();
+    ParameterSpec flags = ParameterSpec.builder(int.class, writeNames.getUniqueName("flags"))
+        .build();
+    size = writeNames.getUniqueName("size");
+    String items = writeNames.getUniqueName("items");
+    nulls = writeNames.getUniqueName("nulls");
+    i = writeNames.getUniqueName("i");
+    String data = writeNames.getUniqueName("data");
+    Map<FieldDescriptor, CodeBlock> accessorBlocks = accessorBlocks(data);
+    MethodSpec.Builder writeToParcel = MethodSpec.methodBuilder("writeToParcel")
+        .addAnnotation(Override.class)
+        .addModifiers(PUBLIC)
+        .addParameter(value)
+        .addParameter(dest)
+        .addParameter(flags);
+    if (descriptor.options().internValues()) {
+      beginInternTable(writeToParcel, dest);
+    }
+    writeToParcel.addStatement("int $N = $N.size()", size, value)
+        .addStatement("$T $N = $N.toArray(new $T[$N])",
+            ArrayTypeName.of(className), items, value, className, size)
+        .addStatement("boolean[] $N = null", nulls);
+
+    Map<FieldDescriptor, String> writeColumns = new LinkedHashMap<>();
+    for (FieldDescriptor field : fields) {
+      TypeName fieldTypeName = TypeName.get(field.type().get());
+      if (fieldTypeName.isPrimitive()) {
+        String column = writeNames.getUniqueName(field.name() + "Column");
+        writeColumns.put(field, column);
+        TypeName columnType = columnTypeOf(fieldTypeName);
+        writeToParcel.addStatement("$T $N = new $T[$N]",
+            ArrayTypeName.of(columnType), column, columnType, size);
+      }
+    }
+    writeToParcel.beginControlFlow("for (int $N = 0; $N < $N; $N++)", i, i, size, i)
+        .addStatement("$T $N = $N[$N]", className, data, items, i)
+        .beginControlFlow("if ($N == null)", data)
+        .beginControlFlow("if ($N == null)", nulls)
+        .addStatement("$N = new boolean[$N]", nulls, size)
+        .endControlFlow()
+        .addStatement("$N[$N] = true", nulls, i);
+    if (!writeColumns.isEmpty()) {
+      writeToParcel.nextControlFlow("else");
+      for (Map.Entry<FieldDescriptor, String> column : writeColumns.entrySet()) {
+        writeToParcel.addStatement("$N[$N] = $L",
+            column.getValue(), i, accessorBlocks.get(column.getKey()));
+      }
+    }
+    writeToParcel.endControlFlow()
+        .endControlFlow()
+        .addStatement("$N.writeInt($N)", dest, size)
+        .addStatement("$N.writeBooleanArray($N)", dest, nulls);
+    for (Map.Entry<FieldDescriptor, String> column : writeColumns.entrySet()) {
+      TypeName fieldTypeName = TypeName.get(column.getKey().type().get());
+      writeToParcel.addStatement("$N.write$LArray($N)",
+          dest, columnMethodSuffix(fieldTypeName), column.getValue());
+    }
+    for (FieldDescriptor field : fields) {
+      if (writeColumns.containsKey(field)) continue;
+      AdapterDescriptor adapter = descriptor.adapters().get(field);
+      CodeBlock adapterInstance = adapterInstance(adapter);
+      CodeBlock accessorBlock = accessorBlocks.get(field);
+      writeToParcel.beginControlFlow("for (int $N = 0; $N < $N; $N++)", i, i, size, i)
+          .addStatement("$T $N = $N[$N]", className, data, items, i)
+          .beginControlFlow("if ($N != null)", data);
+      if (field.isNullable() && !adapter.nullSafe()) {
+        writeToParcel.addStatement("$T.writeNullable($L, $N, $N, $L)",
+            UTILS, accessorBlock, dest, flags, adapterInstance);
+      } else {
+        writeToParcel.addStatement("$L.writeToParcel($L, $N, $N)",
+            adapterInstance, accessorBlock, dest, flags);
+      }
+      writeToParcel.endControlFlow()
+          .endControlFlow();
+    }
+    if (descriptor.options().internValues()) {
+      endInternTable(writeToParcel, dest);
+    }
+
+    ParameterizedTypeName adapterOfList = ParameterizedTypeName.get(TYPE_ADAPTER, listOfClass);
+    TypeSpec initializer = TypeSpec.anonymousClassBuilder("")
+        .addSuperinterface(adapterOfList)
+        .addMethod(readFromParcel.build())
+        .addMethod(writeToParcel.build())
+        .build();
 
-    // Read the fields in the exact same order that they were written to the Parcel. Currently
-    // directly readable fields first, then all fields that are read via getters, and finally
-    // all fields that require reflection.
-    ImmutableList<FieldDescriptor> combined = ImmutableList.<FieldDescriptor>builder()
-        .addAll(descriptor.readableFields())
-        .addAll(descriptor.getterMethodMap().keySet())
+    return FieldSpec.builder(adapterOfList, "LIST_ADAPTER", STATIC, FINAL)
+        .initializer("$L", initializer)
+        .addAnnotation(NonNull.class)
         .build();
+  }
 
-    for (FieldDescriptor field : combined) {
+  /**
+   * Returns the element type of the array that a column of {@code fieldTypeName} values is
+   * written as. {@code short}s are written as {@code int}s as Parcel has no {@code short[]}
+   * methods.
+   */
+  private static TypeName columnTypeOf(TypeName fieldTypeName) {
+    return TypeName.SHORT.equals(fieldTypeName) ? TypeName.INT : fieldTypeName;
+  }
+
+  /**
+   * Returns the suffix of the {@code Parcel.writeXArray} and {@code Parcel.createXArray} methods
+   * that a column of {@code fieldTypeName} values is written and read with.
+   */
+  private static String columnMethodSuffix(TypeName fieldTypeName) {
+    return Strings.capitalizeAsciiOnly(columnTypeOf(fieldTypeName).toString());
+  }
+
+  private ImmutableMap<String, FieldSpec> readFields(
+      ParameterSpec in,
+      UniqueNameSet readNames,
+      ImmutableList<String> headerNames,
+      @Nullable String decoder) {
+    ImmutableMap.Builder<String, FieldSpec> result = ImmutableMap.builder();
+
+    // Read the fields in the exact same order that they were written to the Parcel.
+    for (FieldDescriptor field : fieldsInParcelOrder()) {
       String fieldName = readNames.getUniqueName(field.name());
-      result.put(field.name(), readField(fieldName, field, in));
+      result.put(field.name(), readField(fieldName, field, in, headerNames, decoder));
     }
 
     return result.build();
   }
 
   @SuppressWarnings("ConstantConditions")
-  private FieldSpec readField(String fieldName, FieldDescriptor field, ParameterSpec in) {
+  private FieldSpec readField(
+      String fieldName,
+      FieldDescriptor field,
+      ParameterSpec in,
+      List<String> headerNames,
+      @Nullable String decoder) {
     TypeName fieldTypeName = TypeName.get(field.type().get());
 
     FieldSpec.Builder builder = FieldSpec.builder(fieldTypeName, fieldName);
 
-    if (fieldTypeName.isPrimitive()) {
+    Header.Slot packedSlot = packedFields.get(field);
+    if (compactFields.contains(field)) {
+      if (TypeName.BYTE.equals(fieldTypeName)
+          || TypeName.SHORT.equals(fieldTypeName)
+          || TypeName.CHAR.equals(fieldTypeName)) {
+        builder.initializer("($T) $N.readInt()", fieldTypeName, decoder);
+      } else {
+        builder.initializer("$N.read$L()", decoder, compactMethodSuffix(fieldTypeName));
+      }
+    } else if (packedSlot != null) {
+      String headerName = headerNames.get(packedSlot.word);
+      if (TypeName.BOOLEAN.equals(fieldTypeName)) {
+        builder.initializer("($N & $L) != 0", headerName, packedSlot.mask());
+      } else if (packedSlot.offset == 0) {
+        builder.initializer("($T) $N", fieldTypeName, headerName);
+      } else {
+        builder.initializer("($T) ($N >>> $L)", fieldTypeName, headerName, packedSlot.offset);
+      }
+    } else if (fieldTypeName.isPrimitive()) {
       if (TypeName.BOOLEAN.equals(fieldTypeName)) {
         builder.initializer("$N.readInt() == 1", in);
       } else if (TypeName.INT.equals(fieldTypeName)) {
@@ -179,14 +835,29 @@ final class PaperParcelWriter {
     } else {
       AdapterDescriptor adapter = descriptor.adapters().get(field);
       CodeBlock adapterInstance = adapterInstance(adapter);
-      if (field.isNullable() && !adapter.nullSafe()) {
+      Header.Slot nullBit = nullBits.get(field);
+      if (nullBit != null) {
+        builder.initializer("($N & $L) == 0 ? $L.readFromParcel($N) : null",
+            headerNames.get(nullBit.word), nullBit.mask(), adapterInstance, in);
+      } else if (field.isNullable() && !adapter.nullSafe()) {
         builder.initializer("$T.readNullable($N, $L)", UTILS, in, adapterInstance);
       } else {
         builder.initializer("$L.readFromParcel($N)", adapterInstance, in);
       }
     }
 
-    return builder.build();
+    FieldSpec result = builder.build();
+    Header.Slot presenceBit = presenceBits.get(field);
+    if (presenceBit != null) {
+      CodeBlock readBlock = nullBits.containsKey(field)
+          ? CodeBlock.of("($L)", result.initializer)
+          : result.initializer;
+      result = FieldSpec.builder(fieldTypeName, fieldName)
+          .initializer("($N & $L) != 0 ? $L : $L", headerNames.get(presenceBit.word),
+              presenceBit.mask(), readBlock, defaultValue(field))
+          .build();
+    }
+    return result;
   }
 
   private FieldSpec initModel(
@@ -225,30 +896,32 @@ final class PaperParcelWriter {
   private CodeBlock setFields(FieldSpec model, ImmutableMap<String, FieldSpec> fieldMap) {
     CodeBlock.Builder block = CodeBlock.builder();
 
-    // Write directly
-    for (FieldDescriptor field : descriptor.writableFields()) {
-      if (field.isVisible()) {
-        block.addStatement("$N.$N = $N", model.name, field.name(), fieldMap.get(field.name()));
-      } else {
-        // Field isn't visible, write via reflection
-        TypeName enclosingClass = rawTypeFrom(field.element().getEnclosingElement().asType());
-        block.addStatement("$T.writeField($N, $T.class, $N, $S)",
-            UTILS, fieldMap.get(field.name()), enclosingClass, model.name, field.name());
+    // Write directly, then via setters
+    for (FieldDescriptor field : Iterables.concat(
+        descriptor.writableFields(), descriptor.setterMethodMap().keySet())) {
+      if (!field.equals(selfLink)) {
+        setField(block, model.name, field, fieldMap.get(field.name()).name);
       }
     }
 
-    // Write via setters
-    ImmutableSet<Map.Entry<FieldDescriptor, ExecutableElement>> fieldSetterEntries =
-        descriptor.setterMethodMap().entrySet();
-    for (Map.Entry<FieldDescriptor, ExecutableElement> fieldSetterEntry : fieldSetterEntries) {
-      Name setterName = fieldSetterEntry.getValue().getSimpleName();
-      FieldDescriptor field = fieldSetterEntry.getKey();
-      block.addStatement("$N.$N($N)", model.name, setterName, fieldMap.get(field.name()));
-    }
-
     return block.build();
   }
 
+  private void setField(
+      CodeBlock.Builder block, String model, FieldDescriptor field, String value) {
+    ExecutableElement setter = descriptor.setterMethodMap().get(field);
+    if (setter != null) {
+      block.addStatement("$N.$N($N)", model, setter.getSimpleName(), value);
+    } else if (field.isVisible()) {
+      block.addStatement("$N.$N = $N", model, field.name(), value);
+    } else {
+      // Field isn't visible, write via reflection
+      TypeName enclosingClass = rawTypeFrom(field.element().getEnclosingElement().asType());
+      block.addStatement("$T.writeField($N, $T.class, $N, $S)",
+          UTILS, value, enclosingClass, model, field.name());
+    }
+  }
+
   private MethodSpec writeToParcel(TypeName className) {
     ParameterSpec data = ParameterSpec.builder(className, "data")
         .addAnnotation(NonNull.class)
@@ -268,34 +941,213 @@ final class PaperParcelWriter {
         .addParameter(flags);
 
     if (!descriptor.isSingleton()) {
-      ImmutableList<FieldDescriptor> readableFields = descriptor.readableFields();
-      for (FieldDescriptor field : readableFields) {
-        if (field.isVisible()) {
-          CodeBlock accessorBlock = CodeBlock.of("$N.$N", data, field.name());
-          writeField(builder, field, accessorBlock, dest, flags);
+      Map<FieldDescriptor, CodeBlock> accessorBlocks = accessorBlocks(data.name);
+      UniqueNameSet writeNames = new UniqueNameSet();
+      writeNames.getUniqueName(data.name);
+      writeNames.getUniqueName(dest.name);
+      writeNames.getUniqueName(flags.name);
+      if (selfLink != null) {
+        writeNames.getUniqueName(selfLink.name());
+      }
+
+      if (usesInternTable()) {
+        beginInternTable(builder, dest);
+      }
+      if (descriptor.options().trackReferences()) {
+        // Only write each instance once per pass
+        builder.beginControlFlow("if ($T.writeReference($N, $N))", INTERN_TABLE, dest, data)
+            .addStatement("return")
+            .endControlFlow();
+      }
+      CodeBlock selfLinkAccessor = null;
+      if (selfLink != null) {
+        // Write each instance in the chain in turn
+        selfLinkAccessor = accessorBlocks.remove(selfLink);
+        builder.beginControlFlow("while (true)");
+      }
+
+      ImmutableList<String> headerNames =
+          writeHeader(builder, writeNames, accessorBlocks, dest);
+
+      if (!compactFields.isEmpty()) {
+        String encoder = writeNames.getUniqueName("encoder");
+        builder.addStatement("$T $N = $T.obtain()", COMPACT_ENCODER, encoder, COMPACT_ENCODER)
+            .beginControlFlow("try");
+        for (FieldDescriptor field : compactFields) {
+          TypeName fieldTypeName = TypeName.get(field.type().get());
+          builder.addStatement("$N.write$L($L)",
+              encoder, compactMethodSuffix(fieldTypeName), accessorBlocks.get(field));
+        }
+        // Released even if an accessor throws, so that the buffer can be reused
+        builder.addStatement("$N.writeTo($N)", encoder, dest)
+            .nextControlFlow("finally")
+            .addStatement("$N.release()", encoder)
+            .endControlFlow();
+      }
+
+      for (Map.Entry<FieldDescriptor, CodeBlock> accessorBlock : accessorBlocks.entrySet()) {
+        FieldDescriptor field = accessorBlock.getKey();
+        if (compactFields.contains(field)) continue;
+        Header.Slot presenceBit = presenceBits.get(field);
+        if (presenceBit != null) {
+          builder.beginControlFlow("if (($N & $L) != 0)",
+              headerNames.get(presenceBit.word), presenceBit.mask());
+          writeField(builder, field, accessorBlock.getValue(), dest, flags);
+          builder.endControlFlow();
         } else {
-          // Field isn't visible, read via reflection.
-          TypeName type = rawTypeFrom(field.type().get());
-          TypeName enclosingClass = rawTypeFrom(field.element().getEnclosingElement().asType());
-          CodeBlock accessorBlock = CodeBlock.of("$T.readField($T.class, $T.class, $N, $S)",
-              UTILS, type, enclosingClass, data, field.name());
-          writeField(builder, field, accessorBlock, dest, flags);
+          writeField(builder, field, accessorBlock.getValue(), dest, flags);
         }
       }
 
-      ImmutableSet<Map.Entry<FieldDescriptor, ExecutableElement>> fieldGetterEntries =
-          descriptor.getterMethodMap().entrySet();
-      for (Map.Entry<FieldDescriptor, ExecutableElement> fieldGetterEntry : fieldGetterEntries) {
-        FieldDescriptor field = fieldGetterEntry.getKey();
-        Name accessorMethodName = fieldGetterEntry.getValue().getSimpleName();
-        CodeBlock accessorBlock = CodeBlock.of("$N.$N()", data, accessorMethodName);
-        writeField(builder, field, accessorBlock, dest, flags);
+      if (selfLink != null) {
+        TypeName selfLinkType = TypeName.get(selfLink.type().get());
+        builder.addStatement("$T $N = $L", selfLinkType, selfLink.name(), selfLinkAccessor)
+            .beginControlFlow("if ($N == null)", selfLink.name())
+            .addStatement("$N.writeInt(0)", dest)
+            .addStatement("break")
+            .endControlFlow()
+            .addStatement("$N.writeInt(1)", dest)
+            .addStatement("$N = $N", data, selfLink.name())
+            .endControlFlow();
+      }
+
+      if (usesInternTable()) {
+        endInternTable(builder, dest);
       }
     }
 
     return builder.build();
   }
 
+  /**
+   * Maps each field to a {@link CodeBlock} that reads its value from the instance named
+   * {@code data}.
+   */
+  private Map<FieldDescriptor, CodeBlock> accessorBlocks(String data) {
+    Map<FieldDescriptor, CodeBlock> accessorBlocks = new LinkedHashMap<>();
+    ImmutableList<FieldDescriptor> readableFields = descriptor.readableFields();
+    for (FieldDescriptor field : readableFields) {
+      if (field.isVisible()) {
+        accessorBlocks.put(field, CodeBlock.of("$N.$N", data, field.name()));
+      } else {
+        // Field isn't visible, read via reflection.
+        TypeName type = rawTypeFrom(field.type().get());
+        TypeName enclosingClass = rawTypeFrom(field.element().getEnclosingElement().asType());
+        accessorBlocks.put(field, CodeBlock.of("$T.readField($T.class, $T.class, $N, $S)",
+            UTILS, type, enclosingClass, data, field.name()));
+      }
+    }
+
+    ImmutableSet<Map.Entry<FieldDescriptor, ExecutableElement>> fieldGetterEntries =
+        descriptor.getterMethodMap().entrySet();
+    for (Map.Entry<FieldDescriptor, ExecutableElement> fieldGetterEntry : fieldGetterEntries) {
+      FieldDescriptor field = fieldGetterEntry.getKey();
+      Name accessorMethodName = fieldGetterEntry.getValue().getSimpleName();
+      accessorBlocks.put(field, CodeBlock.of("$N.$N()", data, accessorMethodName));
+    }
+    return accessorBlocks;
+  }
+
+  private boolean usesInternTable() {
+    OptionsDescriptor options = descriptor.options();
+    return options.internValues() || options.trackReferences();
+  }
+
+  /**
+   * Opens an {@code InternTable} pass over {@code parcel} that lasts until the matching
+   * {@link #endInternTable(MethodSpec.Builder, ParameterSpec)}.
+   */
+  private static void beginInternTable(MethodSpec.Builder builder, ParameterSpec parcel) {
+    builder.addStatement("$T.begin($N)", INTERN_TABLE, parcel)
+        .beginControlFlow("try");
+  }
+
+  private static void endInternTable(MethodSpec.Builder builder, ParameterSpec parcel) {
+    builder.nextControlFlow("finally")
+        .addStatement("$T.end($N)", INTERN_TABLE, parcel)
+        .endControlFlow();
+  }
+
+  /**
+   * Writes the header words and returns the names of their locals. Fields that are both checked
+   * by the header and written afterwards are first read into locals so that each accessor is only
+   * invoked once; {@code accessorBlocks} is updated to refer to the locals.
+   */
+  private ImmutableList<String> writeHeader(
+      MethodSpec.Builder builder,
+      UniqueNameSet writeNames,
+      Map<FieldDescriptor, CodeBlock> accessorBlocks,
+      ParameterSpec dest) {
+    if (header.size() == 0) return ImmutableList.of();
+
+    ImmutableList<String> headerNames = header.names(writeNames);
+
+    Set<FieldDescriptor> checkedFields = Sets.newLinkedHashSet();
+    for (FieldDescriptor field : accessorBlocks.keySet()) {
+      if (nullBits.containsKey(field) || presenceBits.containsKey(field)) {
+        checkedFields.add(field);
+      }
+    }
+    for (FieldDescriptor field : checkedFields) {
+      String localName = writeNames.getUniqueName(field.name());
+      builder.addStatement("$T $N = $L",
+          TypeName.get(field.type().get()), localName, accessorBlocks.get(field));
+      accessorBlocks.put(field, CodeBlock.of("$N", localName));
+    }
+
+    for (String headerName : headerNames) {
+      builder.addStatement("int $N = 0", headerName);
+    }
+    for (Map.Entry<FieldDescriptor, Header.Slot> nullBit : nullBits.entrySet()) {
+      Header.Slot bit = nullBit.getValue();
+      builder.beginControlFlow("if ($L == null)", accessorBlocks.get(nullBit.getKey()))
+          .addStatement("$N |= $L", headerNames.get(bit.word), bit.mask())
+          .endControlFlow();
+    }
+    for (Map.Entry<FieldDescriptor, Header.Slot> presenceBit : presenceBits.entrySet()) {
+      Header.Slot bit = presenceBit.getValue();
+      FieldDescriptor field = presenceBit.getKey();
+      builder.beginControlFlow("if ($L)", isPresent(field, accessorBlocks.get(field)))
+          .addStatement("$N |= $L", headerNames.get(bit.word), bit.mask())
+          .endControlFlow();
+    }
+    for (Map.Entry<FieldDescriptor, Header.Slot> packedField : packedFields.entrySet()) {
+      Header.Slot slot = packedField.getValue();
+      String headerName = headerNames.get(slot.word);
+      CodeBlock accessorBlock = accessorBlocks.get(packedField.getKey());
+      if (slot.width == 1) {
+        builder.beginControlFlow("if ($L)", accessorBlock)
+            .addStatement("$N |= $L", headerName, slot.mask())
+            .endControlFlow();
+      } else if (slot.offset == 0) {
+        builder.addStatement("$N |= $L & $L", headerName, accessorBlock, slot.valueMask());
+      } else {
+        builder.addStatement("$N |= ($L & $L) << $L",
+            headerName, accessorBlock, slot.valueMask(), slot.offset);
+      }
+    }
+    for (String headerName : headerNames) {
+      builder.addStatement("$N.writeInt($N)", dest, headerName);
+    }
+    return headerNames;
+  }
+
+  /**
+   * Returns the suffix of the {@code CompactEncoder.writeX} and {@code CompactDecoder.readX}
+   * methods that a {@link #compactFields compact field} of {@code fieldTypeName} is written and
+   * read with. {@code byte}, {@code short} and {@code char} values are written as {@code int}s.
+   */
+  private static String compactMethodSuffix(TypeName fieldTypeName) {
+    if (STRING.equals(fieldTypeName)) {
+      return "String";
+    } else if (TypeName.BYTE.equals(fieldTypeName)
+        || TypeName.SHORT.equals(fieldTypeName)
+        || TypeName.CHAR.equals(fieldTypeName)) {
+      return "Int";
+    }
+    return Strings.capitalizeAsciiOnly(fieldTypeName.toString());
+  }
+
   @SuppressWarnings("ConstantConditions")
   private void writeField(
       MethodSpec.Builder builder,
@@ -303,6 +1155,10 @@ final class PaperParcelWriter {
       CodeBlock accessorBlock,
       ParameterSpec dest,
       ParameterSpec flags) {
+    if (packedFields.containsKey(field)) {
+      // Already written as a part of the header
+      return;
+    }
     TypeName fieldTypeName = TypeName.get(field.type().get());
     if (fieldTypeName.isPrimitive()) {
       if (TypeName.BOOLEAN.equals(fieldTypeName)) {
@@ -327,7 +1183,12 @@ final class PaperParcelWriter {
     } else {
       AdapterDescriptor adapter = descriptor.adapters().get(field);
       CodeBlock adapterInstance = adapterInstance(adapter);
-      if (field.isNullable() && !adapter.nullSafe()) {
+      if (nullBits.containsKey(field)) {
+        builder.beginControlFlow("if ($L != null)", accessorBlock)
+            .addStatement("$L.writeToParcel($L, $N, $N)",
+                adapterInstance, accessorBlock, dest, flags)
+            .endControlFlow();
+      } else if (field.isNullable() && !adapter.nullSafe()) {
         builder.addStatement("$T.writeNullable($L, $N, $N, $L)",
             UTILS, accessorBlock, dest, flags, adapterInstance);
       } else {
@@ -407,7 +1268,7 @@ final class PaperParcelWriter {
 
       if (param instanceof ConstructorInfo.AdapterParam) {
         ConstructorInfo.AdapterParam adapterParam = (ConstructorInfo.AdapterParam) param;
-        if (adapterParam.adapter.nullSafe()) {
+        if (adapterParam.adapter.nullSafe() || adapterParam.nonNull) {
           blocks.add(adapterInstance(adapterParam.adapter));
         } else {
           blocks.add(CodeBlock.of("$T.nullSafeClone($L)",
@@ -434,6 +1295,17 @@ final class PaperParcelWriter {
         } else {
           blocks.add(CodeBlock.of("$T.$N", creatorParam.creatorOwner, "CREATOR"));
         }
+
+      } else if (param instanceof ConstructorInfo.FingerprintParam) {
+        ConstructorInfo.FingerprintParam fingerprintParam =
+            (ConstructorInfo.FingerprintParam) param;
+        blocks.add(CodeBlock.of("$L", "0x" + Integer.toHexString(fingerprintParam.fingerprint)));
+
+      } else if (param instanceof ConstructorInfo.PaperParcelParam) {
+        blocks.add(CodeBlock.of("$L", ((ConstructorInfo.PaperParcelParam) param).paperParcel));
+
+      } else if (param instanceof ConstructorInfo.IntParam) {
+        blocks.add(CodeBlock.of("$L", ((ConstructorInfo.IntParam) param).value));
       }
     }
 
@@ -447,4 +1319,65 @@ final class PaperParcelWriter {
     }
     return typeName;
   }
+
+  /**
+   * Allocates slots of one or more bits from the {@code int} words that are written to the Parcel
+   * ahead of the fields. Slots never span more than one word.
+   */
+  private static final class Header {
+    private final List<Integer> usedBits = new ArrayList<>();
+
+    static final class Slot {
+      final int word;
+      final int offset;
+      final int width;
+
+      Slot(int word, int offset, int width) {
+        this.word = word;
+        this.offset = offset;
+        this.width = width;
+      }
+
+      /** Returns a hex literal that selects this slot in its word. */
+      CodeBlock mask() {
+        return hex(((1 << width) - 1) << offset);
+      }
+
+      /** Returns a hex literal that truncates a value to the width of this slot. */
+      CodeBlock valueMask() {
+        return hex((1 << width) - 1);
+      }
+
+      private static CodeBlock hex(int value) {
+        return CodeBlock.of("$L", "0x" + Integer.toHexString(value));
+      }
+    }
+
+    /** Allocates a slot of {@code width} bits in the first word that has room for it. */
+    Slot next(int width) {
+      for (int word = 0; word < usedBits.size(); word++) {
+        int offset = usedBits.get(word);
+        if (offset + width <= Integer.SIZE) {
+          usedBits.set(word, offset + width);
+          return new Slot(word, offset, width);
+        }
+      }
+      usedBits.add(width);
+      return new Slot(usedBits.size() - 1, 0, width);
+    }
+
+    /** The number of {@code int} words required to hold all of the allocated slots. */
+    int size() {
+      return usedBits.size();
+    }
+
+    /** Reserves a unique local variable name in {@code names} for each word. */
+    ImmutableList<String> names(UniqueNameSet names) {
+      ImmutableList.Builder<String> result = ImmutableList.builder();
+      for (int i = 0; i < size(); i++) {
+        result.add(names.getUniqueName("header"));
+      }
+      return result.build();
+    }
+  }
 }
@@ -39,6 +39,7 @@ import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.AnnotationValue;
 import javax.lang.model.element.AnnotationValueVisitor;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.Name;
@@ -63,6 +64,7 @@ import androidx.annotation.Nullable;
 import static com.google.auto.common.MoreElements.asType;
 import static com.google.auto.common.MoreTypes.asDeclared;
 import static com.google.common.base.Preconditions.checkState;
+import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PUBLIC;
 import static javax.lang.model.element.Modifier.STATIC;
 import static javax.lang.model.util.ElementFilter.fieldsIn;
@@ -362,6 +364,33 @@ final class Utils {
     return false;
   }
 
+  /**
+   * Returns a hash of the names of the enum constants declared in {@code element}, in declaration
+   * order. This must be kept in sync with {@code paperparcel.internal.OrdinalEnumAdapter}.
+   */
+  static int enumConstantsFingerprint(TypeElement element) {
+    int fingerprint = 1;
+    for (VariableElement field : fieldsIn(element.getEnclosedElements())) {
+      if (field.getKind() == ElementKind.ENUM_CONSTANT) {
+        fingerprint = 31 * fingerprint + field.getSimpleName().toString().hashCode();
+      }
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Returns true if a {@code LIST_ADAPTER} that writes {@code List}s of {@code element} column by
+   * column is generated alongside {@code element}'s {@code CREATOR}.
+   */
+  static boolean hasColumnarListAdapter(
+      Types types, TypeElement element, OptionsDescriptor options) {
+    return options.columnarLists()
+        && !options.trackReferences()
+        && element.getModifiers().contains(FINAL)
+        && element.getTypeParameters().isEmpty()
+        && !isSingleton(types, element);
+  }
+
   /** Returns all non-excluded fields on a {@link PaperParcel} annotated {@link TypeElement}. */
   static ImmutableList<VariableElement> getFieldsToParcel(
       TypeElement element, OptionsDescriptor options) {
@@ -424,8 +453,24 @@ final class Utils {
     ImmutableList<String> reflectAnnotations = getReflectAnnotations(optionsMirror);
     boolean allowSerializable = getAllowSerializable(optionsMirror);
     boolean isLombokEnabled = isLombokEnabled(optionsMirror);
+    boolean useEnumOrdinals = getUseEnumOrdinals(optionsMirror);
+    boolean useNullBitmask = getUseNullBitmask(optionsMirror);
+    boolean packPrimitives = getPackPrimitives(optionsMirror);
+    boolean elideDefaults = getElideDefaults(optionsMirror);
+    boolean useUtf8Strings = getUseUtf8Strings(optionsMirror);
+    boolean internValues = getInternValues(optionsMirror);
+    boolean canonicalizeValues = getCanonicalizeValues(optionsMirror);
+    boolean trackReferences = getTrackReferences(optionsMirror);
+    boolean columnarLists = getColumnarLists(optionsMirror);
+    int compressionThreshold = getCompressionThreshold(optionsMirror);
+    boolean compactEncoding = getCompactEncoding(optionsMirror);
+    boolean compactCollections = getCompactCollections(optionsMirror);
+    int sharedMemoryThreshold = getSharedMemoryThreshold(optionsMirror);
     return OptionsDescriptor.create(optionsMirror, excludeModifiers, excludeAnnotationNames,
-        exposeAnnotationNames, excludeNonExposedFields, reflectAnnotations, allowSerializable, isLombokEnabled);
+        exposeAnnotationNames, excludeNonExposedFields, reflectAnnotations, allowSerializable,
+        isLombokEnabled, useEnumOrdinals, useNullBitmask, packPrimitives, elideDefaults,
+        useUtf8Strings, internValues, canonicalizeValues, trackReferences, columnarLists,
+        compressionThreshold, compactEncoding, compactCollections, sharedMemoryThreshold);
   }
 
   static boolean usesAnyAnnotationsFrom(Element element, List<String> annotationNames) {
@@ -446,6 +491,33 @@ final class Utils {
     return types.isAssignable(type, parcelableType);
   }
 
+  /**
+   * Returns true if {@code type} is known to be immutable, so equal values can safely be shared.
+   * This is the case for {@code String}s and {@code AutoValue} classes.
+   */
+  static boolean isImmutableValueType(TypeMirror type) {
+    return type.getKind() == TypeKind.DECLARED
+        && (MoreTypes.isTypeOf(String.class, type)
+        || getAnnotationWithSimpleName(MoreTypes.asElement(type), "AutoValue") != null);
+  }
+
+  /**
+   * Returns true if {@code type} is written and read by code that PaperParcel generates: a final
+   * {@link PaperParcel} class, or an {@code AutoValue} class that is implemented by the
+   * PaperParcel AutoValue extension. Values of any other type may be a subclass, or be written by
+   * code that reads them back lazily.
+   */
+  static boolean isPaperParcelType(TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) {
+      return false;
+    }
+    TypeElement element = MoreTypes.asTypeElement(type);
+    if (MoreElements.isAnnotationPresent(element, PaperParcel.class)) {
+      return element.getModifiers().contains(Modifier.FINAL);
+    }
+    return getAnnotationWithSimpleName(element, "AutoValue") != null;
+  }
+
   /** Returns true if {@code typeMirror} is a raw type. */
   static boolean isRawType(TypeMirror typeMirror) {
     Set<TypeParameterElement> visited = new HashSet<>();
@@ -791,5 +863,83 @@ final class Utils {
     return isLombokEnabled.accept(TO_BOOLEAN, null);
   }
 
+  private static boolean getUseEnumOrdinals(AnnotationMirror mirror) {
+    AnnotationValue useEnumOrdinals =
+        AnnotationMirrors.getAnnotationValue(mirror, "useEnumOrdinals");
+    return useEnumOrdinals.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getUseNullBitmask(AnnotationMirror mirror) {
+    AnnotationValue useNullBitmask =
+        AnnotationMirrors.getAnnotationValue(mirror, "useNullBitmask");
+    return useNullBitmask.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getPackPrimitives(AnnotationMirror mirror) {
+    AnnotationValue packPrimitives =
+        AnnotationMirrors.getAnnotationValue(mirror, "packPrimitives");
+    return packPrimitives.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getElideDefaults(AnnotationMirror mirror) {
+    AnnotationValue elideDefaults =
+        AnnotationMirrors.getAnnotationValue(mirror, "elideDefaults");
+    return elideDefaults.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getUseUtf8Strings(AnnotationMirror mirror) {
+    AnnotationValue useUtf8Strings =
+        AnnotationMirrors.getAnnotationValue(mirror, "useUtf8Strings");
+    return useUtf8Strings.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getInternValues(AnnotationMirror mirror) {
+    AnnotationValue internValues =
+        AnnotationMirrors.getAnnotationValue(mirror, "internValues");
+    return internValues.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getCanonicalizeValues(AnnotationMirror mirror) {
+    AnnotationValue canonicalizeValues =
+        AnnotationMirrors.getAnnotationValue(mirror, "canonicalizeValues");
+    return canonicalizeValues.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getTrackReferences(AnnotationMirror mirror) {
+    AnnotationValue trackReferences =
+        AnnotationMirrors.getAnnotationValue(mirror, "trackReferences");
+    return trackReferences.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getColumnarLists(AnnotationMirror mirror) {
+    AnnotationValue columnarLists =
+        AnnotationMirrors.getAnnotationValue(mirror, "columnarLists");
+    return columnarLists.accept(TO_BOOLEAN, null);
+  }
+
+  private static int getCompressionThreshold(AnnotationMirror mirror) {
+    AnnotationValue compressionThreshold =
+        AnnotationMirrors.getAnnotationValue(mirror, "compressionThreshold");
+    return compressionThreshold.accept(TO_INT, null);
+  }
+
+  private static boolean getCompactEncoding(AnnotationMirror mirror) {
+    AnnotationValue compactEncoding =
+        AnnotationMirrors.getAnnotationValue(mirror, "compactEncoding");
+    return compactEncoding.accept(TO_BOOLEAN, null);
+  }
+
+  private static boolean getCompactCollections(AnnotationMirror mirror) {
+    AnnotationValue compactCollections =
+        AnnotationMirrors.getAnnotationValue(mirror, "compactCollections");
+    return compactCollections.accept(TO_BOOLEAN, null);
+  }
+
+  private static int getSharedMemoryThreshold(AnnotationMirror mirror) {
+    AnnotationValue sharedMemoryThreshold =
+        AnnotationMirrors.getAnnotationValue(mirror, "sharedMemoryThreshold");
+    return sharedMemoryThreshold.accept(TO_INT, null);
+  }
+
   private Utils() {}
 }
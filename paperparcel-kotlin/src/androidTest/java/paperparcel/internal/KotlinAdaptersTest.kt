@@ -0,0 +1,61 @@
+package paperparcel.internal
+
+import android.os.Parcel
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import paperparcel.TypeAdapter
+
+class KotlinAdaptersTest {
+
+  @Test fun pairsAreCorrectlyParcelled() {
+    val adapter: TypeAdapter<Pair<String?, Int?>> = PairAdapter(
+        StaticAdapters.STRING_ADAPTER,
+        Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER))
+    val expected = Pair("hello", 42)
+    assertThat(writeThenRead(adapter, expected)).isEqualTo(expected)
+    assertThat(writeThenRead(adapter, Pair(null, null))).isEqualTo(Pair(null, null))
+  }
+
+  @Test fun triplesAreCorrectlyParcelled() {
+    val adapter: TypeAdapter<Triple<String?, Long?, Boolean?>> = TripleAdapter(
+        StaticAdapters.STRING_ADAPTER,
+        Utils.nullSafeClone(StaticAdapters.LONG_ADAPTER),
+        Utils.nullSafeClone(StaticAdapters.BOOLEAN_ADAPTER))
+    val expected = Triple("hello", 42L, true)
+    assertThat(writeThenRead(adapter, expected)).isEqualTo(expected)
+    assertThat(writeThenRead(adapter, Triple(null, null, null)))
+        .isEqualTo(Triple(null, null, null))
+  }
+
+  @Test fun rangesAreCorrectlyParcelled() {
+    val intRange = -5..Int.MAX_VALUE
+    assertThat(writeThenRead(IntRangeAdapter, intRange)).isEqualTo(intRange)
+    val emptyIntRange = writeThenRead(IntRangeAdapter, 5..1)
+    assertThat(emptyIntRange.first).isEqualTo(5)
+    assertThat(emptyIntRange.last).isEqualTo(1)
+
+    val longRange = Long.MIN_VALUE..42L
+    assertThat(writeThenRead(LongRangeAdapter, longRange)).isEqualTo(longRange)
+    val emptyLongRange = writeThenRead(LongRangeAdapter, 5L..1L)
+    assertThat(emptyLongRange.first).isEqualTo(5L)
+    assertThat(emptyLongRange.last).isEqualTo(1L)
+  }
+
+  @ExperimentalUnsignedTypes
+  @Test fun unsignedValuesAreCorrectlyParcelled() {
+    assertThat(writeThenRead(UByteAdapter, UByte.MAX_VALUE)).isEqualTo(UByte.MAX_VALUE)
+    assertThat(writeThenRead(UShortAdapter, UShort.MAX_VALUE)).isEqualTo(UShort.MAX_VALUE)
+    assertThat(writeThenRead(UIntAdapter, UInt.MAX_VALUE)).isEqualTo(UInt.MAX_VALUE)
+    assertThat(writeThenRead(ULongAdapter, ULong.MAX_VALUE)).isEqualTo(ULong.MAX_VALUE)
+    assertThat(writeThenRead(UIntAdapter, 42u)).isEqualTo(42u)
+  }
+
+  private fun <T> writeThenRead(adapter: TypeAdapter<T>, input: T): T {
+    val parcel = Parcel.obtain()
+    adapter.writeToParcel(input, parcel, 0)
+    parcel.setDataPosition(0)
+    val result = adapter.readFromParcel(parcel)
+    parcel.recycle()
+    return result
+  }
+}
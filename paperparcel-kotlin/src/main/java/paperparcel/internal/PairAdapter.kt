@@ -0,0 +1,23 @@
+package paperparcel.internal
+
+import android.os.Parcel
+import paperparcel.TypeAdapter
+
+/** Writes a [Pair] as its two components, one after the other. */
+@JvmSuppressWildcards
+class PairAdapter<A, B>(
+    private val firstAdapter: TypeAdapter<A>,
+    private val secondAdapter: TypeAdapter<B>
+) : TypeAdapter<Pair<A, B>> {
+
+  override fun readFromParcel(source: Parcel): Pair<A, B> {
+    val first = firstAdapter.readFromParcel(source)
+    val second = secondAdapter.readFromParcel(source)
+    return Pair(first, second)
+  }
+
+  override fun writeToParcel(value: Pair<A, B>, dest: Parcel, flags: Int) {
+    firstAdapter.writeToParcel(value.first, dest, flags)
+    secondAdapter.writeToParcel(value.second, dest, flags)
+  }
+}
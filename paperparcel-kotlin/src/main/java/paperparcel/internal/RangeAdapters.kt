@@ -0,0 +1,30 @@
+package paperparcel.internal
+
+import android.os.Parcel
+import paperparcel.TypeAdapter
+
+/** Writes an [IntRange] as its first and last values. */
+object IntRangeAdapter : TypeAdapter<IntRange> {
+  override fun readFromParcel(source: Parcel): IntRange {
+    val first = source.readInt()
+    return first..source.readInt()
+  }
+
+  override fun writeToParcel(value: IntRange, dest: Parcel, flags: Int) {
+    dest.writeInt(value.first)
+    dest.writeInt(value.last)
+  }
+}
+
+/** Writes a [LongRange] as its first and last values. */
+object LongRangeAdapter : TypeAdapter<LongRange> {
+  override fun readFromParcel(source: Parcel): LongRange {
+    val first = source.readLong()
+    return first..source.readLong()
+  }
+
+  override fun writeToParcel(value: LongRange, dest: Parcel, flags: Int) {
+    dest.writeLong(value.first)
+    dest.writeLong(value.last)
+  }
+}
@@ -0,0 +1,26 @@
+package paperparcel.internal
+
+import android.os.Parcel
+import paperparcel.TypeAdapter
+
+/** Writes a [Triple] as its three components, one after the other. */
+@JvmSuppressWildcards
+class TripleAdapter<A, B, C>(
+    private val firstAdapter: TypeAdapter<A>,
+    private val secondAdapter: TypeAdapter<B>,
+    private val thirdAdapter: TypeAdapter<C>
+) : TypeAdapter<Triple<A, B, C>> {
+
+  override fun readFromParcel(source: Parcel): Triple<A, B, C> {
+    val first = firstAdapter.readFromParcel(source)
+    val second = secondAdapter.readFromParcel(source)
+    val third = thirdAdapter.readFromParcel(source)
+    return Triple(first, second, third)
+  }
+
+  override fun writeToParcel(value: Triple<A, B, C>, dest: Parcel, flags: Int) {
+    firstAdapter.writeToParcel(value.first, dest, flags)
+    secondAdapter.writeToParcel(value.second, dest, flags)
+    thirdAdapter.writeToParcel(value.third, dest, flags)
+  }
+}
@@ -0,0 +1,43 @@
+package paperparcel.internal
+
+import android.os.Parcel
+import paperparcel.TypeAdapter
+
+// Unsigned values are written with the encoding of their signed counterparts. These are only
+// used for boxed (nullable or generic) values; non-null properties are already primitives.
+
+@ExperimentalUnsignedTypes
+object UByteAdapter : TypeAdapter<UByte> {
+  override fun readFromParcel(source: Parcel): UByte = source.readByte().toUByte()
+
+  override fun writeToParcel(value: UByte, dest: Parcel, flags: Int) {
+    dest.writeByte(value.toByte())
+  }
+}
+
+@ExperimentalUnsignedTypes
+object UShortAdapter : TypeAdapter<UShort> {
+  override fun readFromParcel(source: Parcel): UShort = source.readInt().toUShort()
+
+  override fun writeToParcel(value: UShort, dest: Parcel, flags: Int) {
+    dest.writeInt(value.toInt())
+  }
+}
+
+@ExperimentalUnsignedTypes
+object UIntAdapter : TypeAdapter<UInt> {
+  override fun readFromParcel(source: Parcel): UInt = source.readInt().toUInt()
+
+  override fun writeToParcel(value: UInt, dest: Parcel, flags: Int) {
+    dest.writeInt(value.toInt())
+  }
+}
+
+@ExperimentalUnsignedTypes
+object ULongAdapter : TypeAdapter<ULong> {
+  override fun readFromParcel(source: Parcel): ULong = source.readLong().toULong()
+
+  override fun writeToParcel(value: ULong, dest: Parcel, flags: Int) {
+    dest.writeLong(value.toLong())
+  }
+}
@@ -0,0 +1,128 @@
+package paperparcel;
+
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class PaperParcelListSliceTest {
+
+  @Test public void smallListIsWrittenInline() {
+    List<Item> expected = items(10);
+    Parcel parcel = Parcel.obtain();
+    new PaperParcelListSlice<>(expected).writeToParcel(parcel, 0);
+    assertThat(parcel.hasFileDescriptors()).isFalse();
+    PaperParcelListSlice<Item> result = read(parcel);
+    parcel.recycle();
+    assertThat(result.getList()).isEqualTo(expected);
+  }
+
+  @Test public void largeListIsFetchedInChunks() {
+    List<Item> expected = items(50000);
+    int chunkSize = 16 * 1024;
+    Parcel parcel = Parcel.obtain();
+    new PaperParcelListSlice<>(expected, chunkSize).writeToParcel(parcel, 0);
+    // Only the first chunk, the class name and the callback binder are written inline
+    assertThat(parcel.dataSize()).isLessThan(chunkSize + 1024);
+    PaperParcelListSlice<Item> result = read(parcel);
+    parcel.recycle();
+    assertThat(result.getList()).isEqualTo(expected);
+  }
+
+  @Test public void emptyListIsParcelled() {
+    Parcel parcel = Parcel.obtain();
+    new PaperParcelListSlice<>(Collections.<Item>emptyList()).writeToParcel(parcel, 0);
+    PaperParcelListSlice<Item> result = read(parcel);
+    parcel.recycle();
+    assertThat(result.getList()).isEmpty();
+  }
+
+  @Test public void mixedClassesAreRejected() {
+    List<Parcelable> items = new ArrayList<Parcelable>(items(1000));
+    items.add(new PaperParcelListSlice<>(items(1)));
+    Parcel parcel = Parcel.obtain();
+    try {
+      new PaperParcelListSlice<>(items, 16).writeToParcel(parcel, 0);
+      fail();
+    } catch (IllegalArgumentException ignore) {
+      assertThat(parcel.dataSize()).isEqualTo(0);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @Test public void chunksOutOfRangeAreRejected() throws RemoteException {
+    Parcel parcel = Parcel.obtain();
+    new PaperParcelListSlice<>(items(3), 1).writeToParcel(parcel, 0);
+    parcel.setDataPosition(0);
+    assertThat(parcel.readInt()).isEqualTo(3);
+    assertThat(parcel.readString()).isEqualTo(Item.class.getName());
+    assertThat(parcel.readInt()).isEqualTo(1);
+    assertThat(Item.CREATOR.createFromParcel(parcel)).isEqualTo(new Item(0));
+    assertThat(parcel.readInt()).isEqualTo(0);
+    IBinder retriever = parcel.readStrongBinder();
+    parcel.recycle();
+    for (int start : new int[] { -1, 3, Integer.MAX_VALUE }) {
+      Parcel data = Parcel.obtain();
+      Parcel reply = Parcel.obtain();
+      try {
+        data.writeInt(start);
+        retriever.transact(IBinder.FIRST_CALL_TRANSACTION, data, reply, 0);
+        fail();
+      } catch (IllegalArgumentException ignore) {
+      } finally {
+        data.recycle();
+        reply.recycle();
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static PaperParcelListSlice<Item> read(Parcel parcel) {
+    parcel.setDataPosition(0);
+    return PaperParcelListSlice.CREATOR.createFromParcel(parcel);
+  }
+
+  private static List<Item> items(int count) {
+    List<Item> items = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      items.add(new Item(i));
+    }
+    return items;
+  }
+
+  @PaperParcel
+  static final class Item implements Parcelable {
+    public static final Parcelable.Creator<Item> CREATOR
+        = PaperParcelPaperParcelListSliceTest_Item.CREATOR;
+
+    final int value;
+
+    Item(int value) {
+      this.value = value;
+    }
+
+    @Override public int describeContents() {
+      return 0;
+    }
+
+    @Override public void writeToParcel(Parcel dest, int flags) {
+      PaperParcelPaperParcelListSliceTest_Item.writeToParcel(this, dest, flags);
+    }
+
+    @Override public boolean equals(Object o) {
+      return o instanceof Item && ((Item) o).value == value;
+    }
+
+    @Override public int hashCode() {
+      return value;
+    }
+  }
+}
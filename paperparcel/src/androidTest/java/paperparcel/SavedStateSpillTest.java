@@ -0,0 +1,140 @@
+package paperparcel;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+import androidx.test.InstrumentationRegistry;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class SavedStateSpillTest {
+  private Context context;
+
+  @Before public void setUp() {
+    context = InstrumentationRegistry.getTargetContext();
+    SavedStateSpill.setMaxAgeMillis(0);
+    SavedStateSpill.deleteStale(context);
+  }
+
+  @After public void tearDown() {
+    SavedStateSpill.setMaxAgeMillis(SavedStateSpill.DEFAULT_MAX_AGE_MILLIS);
+    SavedStateSpill.setSpillThreshold(SavedStateSpill.DEFAULT_SPILL_THRESHOLD);
+  }
+
+  @Test public void smallValuesAreStoredInTheBundle() {
+    Bundle bundle = new Bundle();
+    SavedStateSpill.put(context, bundle, "model", new Model(new byte[16]));
+    assertThat(bundle.get("model")).isInstanceOf(byte[].class);
+    Model result = SavedStateSpill.get(context, restore(bundle), "model", Model.CREATOR);
+    assertThat(result.data).isEqualTo(new byte[16]);
+  }
+
+  @Test public void largeValuesAreSpilled() {
+    byte[] data = new byte[SavedStateSpill.DEFAULT_SPILL_THRESHOLD];
+    Arrays.fill(data, (byte) 42);
+    Bundle bundle = new Bundle();
+    SavedStateSpill.put(context, bundle, "model", new Model(data));
+    assertThat(bundle.get("model")).isInstanceOf(Bundle.class);
+    Model result = SavedStateSpill.get(context, restore(bundle), "model", Model.CREATOR);
+    assertThat(result.data).isEqualTo(data);
+  }
+
+  @Test public void removedValuesAreDeleted() {
+    SavedStateSpill.setSpillThreshold(0);
+    Bundle bundle = new Bundle();
+    SavedStateSpill.put(context, bundle, "model", new Model(new byte[16]));
+    Bundle restored = restore(bundle);
+    SavedStateSpill.remove(context, bundle, "model");
+    assertThat(bundle.containsKey("model")).isFalse();
+    assertThat(SavedStateSpill.get(context, restored, "model", Model.CREATOR)).isNull();
+  }
+
+  @Test public void staleValuesAreDeleted() {
+    SavedStateSpill.setSpillThreshold(0);
+    Bundle bundle = new Bundle();
+    SavedStateSpill.put(context, bundle, "model", new Model(new byte[16]));
+    SavedStateSpill.deleteStale(context);
+    assertThat(SavedStateSpill.get(context, bundle, "model", Model.CREATOR)).isNull();
+  }
+
+  @Test public void savingAKeyAgainReplacesItsFile() {
+    SavedStateSpill.setSpillThreshold(0);
+    File directory = context.getDir("paperparcel_state", Context.MODE_PRIVATE);
+    Bundle bundle = new Bundle();
+    for (int i = 0; i < 10; i++) {
+      bundle = new Bundle();
+      SavedStateSpill.put(context, bundle, "model", new Model(new byte[16]));
+      assertThat(directory.list()).hasLength(1);
+    }
+    Bundle restored = restore(bundle);
+    SavedStateSpill.get(context, restored, "model", Model.CREATOR);
+    SavedStateSpill.put(context, new Bundle(), "model", new Model(new byte[16]));
+    assertThat(directory.list()).hasLength(1);
+    SavedStateSpill.put(context, new Bundle(), "model", null);
+    assertThat(directory.list()).isEmpty();
+  }
+
+  @Test public void onlyMarkedUuidFileNamesAreOpenedOrDeleted() throws Exception {
+    File directory = context.getDir("paperparcel_state", Context.MODE_PRIVATE);
+    File victim = new File(directory, "victim");
+    assertThat(victim.createNewFile()).isTrue();
+    File outside = new File(context.getFilesDir(), "outside");
+    assertThat(outside.createNewFile()).isTrue();
+    try {
+      Bundle bundle = new Bundle();
+      bundle.putString("model", "victim");
+      SavedStateSpill.remove(context, bundle, "model");
+      Bundle marker = new Bundle();
+      marker.putString("paperparcel.SavedStateSpill.file", "../files/outside");
+      bundle.putBundle("model", marker);
+      assertThat(SavedStateSpill.get(context, bundle, "model", Model.CREATOR)).isNull();
+      SavedStateSpill.remove(context, bundle, "model");
+      SavedStateSpill.put(context, new Bundle(), "model", null);
+      assertThat(victim.exists()).isTrue();
+      assertThat(outside.exists()).isTrue();
+    } finally {
+      //noinspection ResultOfMethodCallIgnored
+      victim.delete();
+      //noinspection ResultOfMethodCallIgnored
+      outside.delete();
+    }
+  }
+
+  /** Round trips {@code bundle} through a {@code Parcel}, as when the activity is recreated. */
+  private static Bundle restore(Bundle bundle) {
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.writeBundle(bundle);
+      parcel.setDataPosition(0);
+      return parcel.readBundle(SavedStateSpillTest.class.getClassLoader());
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  @PaperParcel
+  static final class Model implements Parcelable {
+    public static final Parcelable.Creator<Model> CREATOR
+        = PaperParcelSavedStateSpillTest_Model.CREATOR;
+
+    final byte[] data;
+
+    Model(byte[] data) {
+      this.data = data;
+    }
+
+    @Override public int describeContents() {
+      return 0;
+    }
+
+    @Override public void writeToParcel(Parcel dest, int flags) {
+      PaperParcelSavedStateSpillTest_Model.writeToParcel(this, dest, flags);
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package paperparcel.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Parcel;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.LongSparseArray;
+import android.util.SparseIntArray;
+import android.util.SparseLongArray;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import paperparcel.TypeAdapter;
+
+import static com.google.common.truth.Truth.assertThat;
+
+/**
+ * Checks that the collection adapters don't allocate anything per item when writing. Writing
+ * {@link #SIZE} items may allocate a few objects (e.g. an iterator), but never one per item.
+ * Unmodifiable and concurrent maps are only written without an entry per mapping on API 24 and
+ * above.
+ */
+public class CollectionAdapterAllocationTest {
+  private static final int SIZE = 10000;
+  private static final int MAX_ALLOCATIONS = SIZE / 100;
+
+  private static final TypeAdapter<Integer> INTEGER_ADAPTER = new TypeAdapter<Integer>() {
+    @Override public Integer readFromParcel(Parcel source) {
+      return source.readInt();
+    }
+
+    @Override public void writeToParcel(Integer value, Parcel dest, int flags) {
+      dest.writeInt(value);
+    }
+  };
+
+  private Parcel parcel;
+  private List<Integer> items;
+  private Map<Integer, Integer> map;
+
+  @Before public void setUp() {
+    parcel = Parcel.obtain();
+    items = new ArrayList<>(SIZE);
+    map = new HashMap<>();
+    for (int i = 0; i < SIZE; i++) {
+      Integer item = i + 1000; // Outside of the Integer cache
+      items.add(item);
+      map.put(item, item);
+    }
+  }
+
+  @After public void tearDown() {
+    parcel.recycle();
+  }
+
+  @Test public void listAdapterDoesNotAllocatePerItem() {
+    TypeAdapter<List<Integer>> adapter = new ListAdapter<>(INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, new ArrayList<>(items));
+    assertNoAllocationPerItem(adapter, new LinkedList<>(items));
+    assertNoAllocationPerItem(adapter, Collections.unmodifiableList(items));
+    assertNoAllocationPerItem(adapter, CompactCollections.<Integer>asList(items.toArray()));
+  }
+
+  @Test public void compactListAdapterDoesNotAllocatePerItem() {
+    TypeAdapter<List<Integer>> adapter = new CompactListAdapter<>(INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, new ArrayList<>(items));
+    assertNoAllocationPerItem(adapter, new LinkedList<>(items));
+  }
+
+  @Test public void collectionAdapterDoesNotAllocatePerItem() {
+    TypeAdapter<Collection<Integer>> adapter = new CollectionAdapter<>(INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, new ArrayList<>(items));
+    assertNoAllocationPerItem(adapter, new ArrayDeque<>(items));
+    assertNoAllocationPerItem(adapter, Collections.unmodifiableCollection(items));
+  }
+
+  @Test public void setAdapterDoesNotAllocatePerItem() {
+    TypeAdapter<Set<Integer>> adapter = new SetAdapter<>(INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, new HashSet<>(items));
+    assertNoAllocationPerItem(adapter, new LinkedHashSet<>(items));
+    assertNoAllocationPerItem(adapter, new TreeSet<>(items));
+    assertNoAllocationPerItem(adapter, Collections.unmodifiableSet(new HashSet<>(items)));
+  }
+
+  @Test public void mapAdapterDoesNotAllocatePerItem() {
+    TypeAdapter<Map<Integer, Integer>> adapter = new MapAdapter<>(INTEGER_ADAPTER, INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, map);
+    assertNoAllocationPerItem(adapter, new LinkedHashMap<>(map));
+    assertNoAllocationPerItem(adapter, new TreeMap<>(map));
+    TypeAdapter<Map<Integer, Integer>> compactAdapter =
+        new CompactMapAdapter<>(INTEGER_ADAPTER, INTEGER_ADAPTER);
+    assertNoAllocationPerItem(compactAdapter, map);
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  @Test public void wrappedMapsDoNotAllocatePerItem() {
+    TypeAdapter<Map<Integer, Integer>> adapter = new MapAdapter<>(INTEGER_ADAPTER, INTEGER_ADAPTER);
+    assertNoAllocationPerItem(adapter, Collections.unmodifiableMap(map));
+    assertNoAllocationPerItem(adapter, new ConcurrentHashMap<>(map));
+    TypeAdapter<Map<Integer, Integer>> compactAdapter =
+        new CompactMapAdapter<>(INTEGER_ADAPTER, INTEGER_ADAPTER);
+    Parcel source = Parcel.obtain();
+    try {
+      compactAdapter.writeToParcel(map, source, 0);
+      source.setDataPosition(0);
+      Map<Integer, Integer> compactMap = compactAdapter.readFromParcel(source);
+      assertNoAllocationPerItem(adapter, compactMap);
+      assertNoAllocationPerItem(compactAdapter, compactMap);
+    } finally {
+      source.recycle();
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.M)
+  @Test public void arrayCollectionsDoNotAllocatePerItem() {
+    TypeAdapter<Set<Integer>> setAdapter = new SetAdapter<>(INTEGER_ADAPTER);
+    assertNoAllocationPerItem(setAdapter, new ArraySet<>(items));
+    TypeAdapter<Map<Integer, Integer>> mapAdapter =
+        new MapAdapter<>(INTEGER_ADAPTER, INTEGER_ADAPTER);
+    ArrayMap<Integer, Integer> arrayMap = new ArrayMap<>();
+    arrayMap.putAll(map);
+    assertNoAllocationPerItem(mapAdapter, arrayMap);
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+  @Test public void sparseArraysDoNotAllocatePerItem() {
+    SparseIntArray intArray = new SparseIntArray(SIZE);
+    SparseLongArray longArray = new SparseLongArray(SIZE);
+    LongSparseArray<Integer> longSparseArray = new LongSparseArray<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      intArray.append(i, i);
+      longArray.append(i, i);
+      longSparseArray.append(i, items.get(i));
+    }
+    assertNoAllocationPerItem(StaticAdapters.SPARSE_INT_ARRAY_ADAPTER, intArray);
+    assertNoAllocationPerItem(StaticAdapters.SPARSE_LONG_ARRAY_ADAPTER, longArray);
+    assertNoAllocationPerItem(new LongSparseArrayAdapter<>(INTEGER_ADAPTER), longSparseArray);
+  }
+
+  @SuppressWarnings("deprecation") // Allocation counting still works on ART
+  private <T> void assertNoAllocationPerItem(TypeAdapter<T> adapter, T value) {
+    // Load and initialize everything that the write touches before counting
+    adapter.writeToParcel(value, parcel, 0);
+    parcel.setDataPosition(0);
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    try {
+      adapter.writeToParcel(value, parcel, 0);
+    } finally {
+      Debug.stopAllocCounting();
+    }
+    assertThat(Debug.getThreadAllocCount())
+        .named(value.getClass().getName())
+        .isLessThan(MAX_ALLOCATIONS);
+  }
+}
@@ -2,30 +2,95 @@ package paperparcel.internal;
 
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.graphics.Point;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.net.Uri;
 import android.os.Build;
+import android.os.Bundle;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.LongSparseArray;
 import android.util.Size;
 import android.util.SizeF;
 import android.util.SparseArray;
 import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+import android.util.SparseLongArray;
+import androidx.collection.SimpleArrayMap;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Test;
+import paperparcel.ByteRange;
+import paperparcel.PaperParcel;
 import paperparcel.TypeAdapter;
+import paperparcel.ValuePool;
 import paperparcel.internal.ArrayAdapter;
+import paperparcel.internal.ArrayListAdapter;
+import paperparcel.internal.ArrayMapAdapter;
+import paperparcel.internal.ArraySetAdapter;
+import paperparcel.internal.CanonicalizingAdapter;
 import paperparcel.internal.CollectionAdapter;
+import paperparcel.internal.CompactIntegerKeyMapAdapter;
+import paperparcel.internal.CompactListAdapter;
+import paperparcel.internal.CompactLongKeyMapAdapter;
+import paperparcel.internal.CompactMapAdapter;
+import paperparcel.internal.CompactSetAdapter;
+import paperparcel.internal.CompressingAdapter;
 import paperparcel.internal.EnumAdapter;
+import paperparcel.internal.EnumMapAdapter;
+import paperparcel.internal.EnumSetAdapter;
+import paperparcel.internal.InternTable;
+import paperparcel.internal.IntegerKeyMapAdapter;
+import paperparcel.internal.InterningAdapter;
+import paperparcel.internal.ListAdapter;
+import paperparcel.internal.LongKeyMapAdapter;
+import paperparcel.internal.LongSparseArrayAdapter;
 import paperparcel.internal.MapAdapter;
+import paperparcel.internal.NonNullParcelableAdapter;
+import paperparcel.internal.OptionalAdapter;
+import paperparcel.internal.OrdinalEnumAdapter;
 import paperparcel.internal.ParcelableAdapter;
 import paperparcel.internal.SerializableAdapter;
+import paperparcel.internal.SharedMemoryAdapter;
+import paperparcel.internal.SimpleArrayMapAdapter;
 import paperparcel.internal.SparseArrayAdapter;
+import paperparcel.internal.TreeMapAdapter;
 import paperparcel.internal.StaticAdapters;
 
 import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
 
 public class TypeAdapterTest {
 
@@ -51,6 +116,61 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void boxedArraysAreCorrectlyParcelled() {
+    Integer[] expectedIntegers = new Integer[] { 42, null, Integer.MIN_VALUE };
+    assertThat(writeThenRead(StaticAdapters.BOXED_INTEGER_ARRAY_ADAPTER, expectedIntegers))
+        .isEqualTo(expectedIntegers);
+    Long[] expectedLongs = new Long[] { Long.MAX_VALUE, 0L };
+    assertThat(writeThenRead(StaticAdapters.BOXED_LONG_ARRAY_ADAPTER, expectedLongs))
+        .isEqualTo(expectedLongs);
+    assertThat(writeThenRead(StaticAdapters.BOXED_LONG_ARRAY_ADAPTER, new Long[0])).isEmpty();
+  }
+
+  @Test public void boxedCollectionsAreCorrectlyParcelled() {
+    List<Integer> expectedList = Arrays.asList(42, null, 0);
+    assertThat(writeThenRead(StaticAdapters.INTEGER_LIST_ADAPTER, expectedList))
+        .containsExactlyElementsIn(expectedList).inOrder();
+    List<Long> expectedLongList = Arrays.asList(Long.MIN_VALUE, 1L);
+    assertThat(writeThenRead(StaticAdapters.LONG_LIST_ADAPTER, expectedLongList))
+        .containsExactlyElementsIn(expectedLongList).inOrder();
+    Set<Integer> expectedSet = new LinkedHashSet<>(Arrays.asList(3, 1, null));
+    assertThat(writeThenRead(StaticAdapters.INTEGER_SET_ADAPTER, expectedSet))
+        .containsExactlyElementsIn(expectedSet).inOrder();
+    Set<Long> expectedLongSet = new LinkedHashSet<>(Arrays.asList(7L, -7L));
+    assertThat(writeThenRead(StaticAdapters.LONG_SET_ADAPTER, expectedLongSet))
+        .containsExactlyElementsIn(expectedLongSet).inOrder();
+  }
+
+  @Test public void boxedNullsAreWrittenAsABitmap() {
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      expected.add(i % 33 == 0 ? null : i);
+    }
+    Parcel parcel = Parcel.obtain();
+    StaticAdapters.INTEGER_LIST_ADAPTER.writeToParcel(expected, parcel, 0);
+    // Length-prefixed int[] of values, then a length-prefixed bitmap of 4 words
+    assertThat(parcel.dataSize()).isEqualTo(4 + 100 * 4 + 4 + 4 * 4);
+    parcel.setDataPosition(0);
+    assertThat(StaticAdapters.INTEGER_LIST_ADAPTER.readFromParcel(parcel))
+        .containsExactlyElementsIn(expected).inOrder();
+    parcel.recycle();
+  }
+
+  @Test public void boxedKeyMapsAreCorrectlyParcelled() {
+    TypeAdapter<Map<Integer, String>> integerKeyAdapter =
+        new IntegerKeyMapAdapter<>(StaticAdapters.STRING_ADAPTER);
+    Map<Integer, String> expectedIntegerKeys = new HashMap<>();
+    expectedIntegerKeys.put(42, "LIFE_MEANING");
+    expectedIntegerKeys.put(null, null);
+    assertThat(writeThenRead(integerKeyAdapter, expectedIntegerKeys))
+        .isEqualTo(expectedIntegerKeys);
+    TypeAdapter<Map<Long, Integer>> longKeyAdapter =
+        new LongKeyMapAdapter<>(StaticAdapters.INTEGER_ADAPTER);
+    Map<Long, Integer> expectedLongKeys = new HashMap<>();
+    expectedLongKeys.put(Long.MAX_VALUE, 42);
+    assertThat(writeThenRead(longKeyAdapter, expectedLongKeys)).isEqualTo(expectedLongKeys);
+  }
+
   @Test public void bytesAreCorrectlyParcelled() {
     TypeAdapter<Byte> adapter = StaticAdapters.BYTE_ADAPTER;
     Byte expected = (byte) 42;
@@ -65,6 +185,42 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void byteBuffersAreCorrectlyParcelled() {
+    TypeAdapter<ByteBuffer> adapter = StaticAdapters.BYTE_BUFFER_ADAPTER;
+    byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+    ByteBuffer heap = ByteBuffer.wrap(bytes, 1, 3);
+    assertThat(writeThenRead(adapter, heap)).isEqualTo(heap);
+    assertThat(heap.position()).isEqualTo(1);
+    ByteBuffer readOnly = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    assertThat(writeThenRead(adapter, readOnly)).isEqualTo(readOnly);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes).flip();
+    assertThat(writeThenRead(adapter, direct)).isEqualTo(direct);
+    assertThat(direct.position()).isEqualTo(0);
+  }
+
+  @Test public void byteRangesAreCorrectlyParcelled() {
+    TypeAdapter<ByteRange> adapter = StaticAdapters.BYTE_RANGE_ADAPTER;
+    ByteRange expected = ByteRange.wrap(new byte[] { 1, 2, 3, 4, 5 }, 1, 3);
+    ByteRange result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+    assertThat(result.toByteArray()).isEqualTo(new byte[] { 2, 3, 4 });
+  }
+
+  @Test public void canonicalizedValuesAreCorrectlyParcelled() {
+    TypeAdapter<String> adapter = new CanonicalizingAdapter<>(StaticAdapters.STRING_ADAPTER);
+    ValuePool.clear();
+    ValuePool.resetStats();
+    String first = writeThenRead(adapter, new String("hello world"));
+    String second = writeThenRead(adapter, new String("hello world"));
+    assertThat(first).isEqualTo("hello world");
+    assertThat(second).isSameAs(first);
+    assertThat(writeThenRead(adapter, null)).isNull();
+    assertThat(ValuePool.hitCount()).isEqualTo(1L);
+    assertThat(ValuePool.missCount()).isEqualTo(1L);
+    assertThat(ValuePool.hitRate()).isEqualTo(0.5);
+  }
+
   @Test public void charactersAreCorrectlyParcelled() {
     TypeAdapter<Character> adapter = StaticAdapters.CHARACTER_ADAPTER;
     Character expected = 42;
@@ -86,6 +242,115 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void compactCollectionsAreCorrectlyParcelled() {
+    TypeAdapter<List<String>> listAdapter =
+        new CompactListAdapter<>(StaticAdapters.STRING_ADAPTER);
+    List<String> expectedList = Arrays.asList("hello", null, "world");
+    assertThat(writeThenRead(listAdapter, expectedList)).isEqualTo(expectedList);
+    assertThat(writeThenRead(listAdapter, new ArrayList<String>()))
+        .isSameAs(Collections.emptyList());
+
+    TypeAdapter<Set<String>> setAdapter = new CompactSetAdapter<>(StaticAdapters.STRING_ADAPTER);
+    Set<String> expectedSet = new LinkedHashSet<>(Arrays.asList("hello", "world"));
+    assertThat(writeThenRead(setAdapter, expectedSet)).isEqualTo(expectedSet);
+    assertThat(writeThenRead(setAdapter, new LinkedHashSet<String>()))
+        .isSameAs(Collections.emptySet());
+
+    TypeAdapter<Map<String, Integer>> mapAdapter = new CompactMapAdapter<>(
+        StaticAdapters.STRING_ADAPTER, Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));
+    Map<String, Integer> expectedMap = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      expectedMap.put("key" + i, i);
+    }
+    assertThat(writeThenRead(mapAdapter, expectedMap)).isEqualTo(expectedMap);
+    assertThat(writeThenRead(mapAdapter, new HashMap<String, Integer>()))
+        .isSameAs(Collections.emptyMap());
+
+    // Small and large collections are equally unmodifiable
+    Map<String, Integer> smallMap = Collections.singletonMap("key", 1);
+    for (Map<String, Integer> map : Arrays.asList(smallMap, expectedMap)) {
+      try {
+        writeThenRead(mapAdapter, map).put("other", 2);
+        fail();
+      } catch (UnsupportedOperationException ignore) {
+      }
+    }
+    for (Set<String> set : Arrays.asList(expectedSet, expectedMap.keySet())) {
+      try {
+        writeThenRead(setAdapter, set).add("other");
+        fail();
+      } catch (UnsupportedOperationException ignore) {
+      }
+    }
+  }
+
+  @Test public void compactBoxedCollectionsAreCorrectlyParcelled() {
+    List<Integer> expectedList = Arrays.asList(42, null, 0);
+    assertThat(writeThenRead(StaticAdapters.COMPACT_INTEGER_LIST_ADAPTER, expectedList))
+        .isEqualTo(expectedList);
+    assertThat(writeThenRead(StaticAdapters.COMPACT_LONG_LIST_ADAPTER, new ArrayList<Long>()))
+        .isSameAs(Collections.emptyList());
+    Set<Long> expectedSet = new LinkedHashSet<>(Arrays.asList(7L, null, -7L));
+    assertThat(writeThenRead(StaticAdapters.COMPACT_LONG_SET_ADAPTER, expectedSet))
+        .isEqualTo(expectedSet);
+    assertThat(writeThenRead(StaticAdapters.COMPACT_INTEGER_SET_ADAPTER, new HashSet<Integer>()))
+        .isSameAs(Collections.emptySet());
+
+    TypeAdapter<Map<Integer, String>> integerKeyAdapter =
+        new CompactIntegerKeyMapAdapter<>(StaticAdapters.STRING_ADAPTER);
+    Map<Integer, String> expectedMap = new HashMap<>();
+    expectedMap.put(42, "LIFE_MEANING");
+    expectedMap.put(null, null);
+    Map<Integer, String> result = writeThenRead(integerKeyAdapter, expectedMap);
+    assertThat(result).isEqualTo(expectedMap);
+    try {
+      result.put(1, "other");
+      fail();
+    } catch (UnsupportedOperationException ignore) {
+    }
+    TypeAdapter<Map<Long, String>> longKeyAdapter =
+        new CompactLongKeyMapAdapter<>(StaticAdapters.STRING_ADAPTER);
+    assertThat(writeThenRead(longKeyAdapter, new HashMap<Long, String>()))
+        .isSameAs(Collections.emptyMap());
+  }
+
+  @Test public void compressedValuesAreCorrectlyParcelled() {
+    TypeAdapter<String> adapter = new CompressingAdapter<>(StaticAdapters.STRING_ADAPTER, 1024);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("hello world ");
+    }
+    String large = builder.toString();
+    Parcel parcel = Parcel.obtain();
+    adapter.writeToParcel(large, parcel, 0);
+    assertThat(parcel.dataSize()).isLessThan(large.length());
+    parcel.setDataPosition(0);
+    assertThat(adapter.readFromParcel(parcel)).isEqualTo(large);
+    parcel.recycle();
+    assertThat(writeThenRead(adapter, "hello world")).isEqualTo("hello world");
+    assertThat(writeThenRead(adapter, null)).isNull();
+    // Wraps an adapter that isn't null-safe
+    TypeAdapter<List<String>> listAdapter =
+        new CompressingAdapter<>(new ListAdapter<>(StaticAdapters.STRING_ADAPTER), 1024);
+    assertThat(writeThenRead(listAdapter, null)).isNull();
+  }
+
+  @Test public void concreteCollectionsAreCorrectlyParcelled() {
+    TypeAdapter<ArrayList<String>> listAdapter =
+        new ArrayListAdapter<>(StaticAdapters.STRING_ADAPTER);
+    ArrayList<String> expectedList = new ArrayList<>(Arrays.asList("a", null, "c"));
+    assertThat(writeThenRead(listAdapter, expectedList)).isEqualTo(expectedList);
+
+    TypeAdapter<TreeMap<String, Integer>> mapAdapter =
+        new TreeMapAdapter<>(StaticAdapters.STRING_ADAPTER, StaticAdapters.INTEGER_ADAPTER);
+    TreeMap<String, Integer> expectedMap = new TreeMap<>(Collections.<String>reverseOrder());
+    expectedMap.put("a", 1);
+    expectedMap.put("b", 2);
+    TreeMap<String, Integer> result = writeThenRead(mapAdapter, expectedMap);
+    assertThat(result).isEqualTo(expectedMap);
+    assertThat(result.firstKey()).isEqualTo("b");
+  }
+
   @Test public void listsAreCorrectlyParcelled() {
     CollectionAdapter<Integer> adapter = new CollectionAdapter<>(StaticAdapters.INTEGER_ADAPTER);
     Collection<Integer> expected = Arrays.asList(42, 0);
@@ -117,6 +382,35 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void enumOrdinalsAreCorrectlyParcelled() {
+    TypeAdapter<TestEnum> adapter = new OrdinalEnumAdapter<>(
+        TestEnum.class, OrdinalEnumAdapter.fingerprint(TestEnum.values()));
+    TestEnum expected = TestEnum.A;
+    TestEnum result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+    expected = TestEnum.B;
+    result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void enumOrdinalsFailWhenConstantsHaveChanged() {
+    new OrdinalEnumAdapter<>(TestEnum.class, 0);
+  }
+
+  @Test public void enumSetsAreCorrectlyParcelled() {
+    int fingerprint = OrdinalEnumAdapter.fingerprint(TestEnum.values());
+    TypeAdapter<EnumSet<TestEnum>> setAdapter = new EnumSetAdapter<>(TestEnum.class, fingerprint);
+    assertThat(writeThenRead(setAdapter, EnumSet.of(TestEnum.B))).containsExactly(TestEnum.B);
+    assertThat(writeThenRead(setAdapter, EnumSet.noneOf(TestEnum.class))).isEmpty();
+
+    TypeAdapter<EnumMap<TestEnum, String>> mapAdapter =
+        new EnumMapAdapter<>(TestEnum.class, fingerprint, StaticAdapters.STRING_ADAPTER);
+    EnumMap<TestEnum, String> expected = new EnumMap<>(TestEnum.class);
+    expected.put(TestEnum.B, "hello world");
+    assertThat(writeThenRead(mapAdapter, expected)).isEqualTo(expected);
+  }
+
   @Test public void floatsAreCorrectlyParcelled() {
     TypeAdapter<Float> adapter = StaticAdapters.FLOAT_ADAPTER;
     Float expected = 42.42f;
@@ -131,6 +425,71 @@ public class TypeAdapterTest {
     assertThat(result).hasValuesWithin(0).of(expected);
   }
 
+  @Test public void foreignParcelablesAreWrittenOutsideOfTheInternPass() {
+    Intent intent = new Intent("com.example.ACTION")
+        .putExtra("name", "hello")
+        .putExtra("message", new Message("hello", null));
+    Message result = writeThenRead(new ParcelableAdapter<>(Message.CREATOR, true),
+        new Message("hello", intent));
+    assertThat(result.name).isEqualTo("hello");
+    // Extras are unparcelled lazily, after the pass over the outer message has ended
+    result.intent.setExtrasClassLoader(Message.class.getClassLoader());
+    assertThat(result.intent.getStringExtra("name")).isEqualTo("hello");
+    Message nested = result.intent.getParcelableExtra("message");
+    assertThat(nested.name).isEqualTo("hello");
+  }
+
+  @Test public void frameworkTypesAreCorrectlyParcelled() {
+    Uri expectedUri = Uri.parse("https://example.com/path?query=value#fragment");
+    assertThat(writeThenRead(StaticAdapters.URI_ADAPTER, expectedUri)).isEqualTo(expectedUri);
+    assertThat(writeThenRead(StaticAdapters.URI_ADAPTER, null)).isNull();
+    Rect expectedRect = new Rect(1, 2, 3, 4);
+    assertThat(writeThenRead(StaticAdapters.RECT_ADAPTER, expectedRect)).isEqualTo(expectedRect);
+    RectF expectedRectF = new RectF(1.f, 2.f, 3.f, 4.f);
+    assertThat(writeThenRead(StaticAdapters.RECT_F_ADAPTER, expectedRectF))
+        .isEqualTo(expectedRectF);
+    Point expectedPoint = new Point(10, -10);
+    assertThat(writeThenRead(StaticAdapters.POINT_ADAPTER, expectedPoint)).isEqualTo(expectedPoint);
+    PointF expectedPointF = new PointF(10.f, -10.f);
+    assertThat(writeThenRead(StaticAdapters.POINT_F_ADAPTER, expectedPointF))
+        .isEqualTo(expectedPointF);
+    ComponentName expectedName = new ComponentName("com.example", "com.example.MainActivity");
+    assertThat(writeThenRead(StaticAdapters.COMPONENT_NAME_ADAPTER, expectedName))
+        .isEqualTo(expectedName);
+  }
+
+  @Test public void internedValuesAreCorrectlyParcelled() {
+    TypeAdapter<List<String>> adapter =
+        new ListAdapter<>(new InterningAdapter<>(StaticAdapters.STRING_ADAPTER));
+    List<String> expected = Arrays.asList("hello", "world", null, "hello", "hello", "world");
+    Parcel parcel = Parcel.obtain();
+    InternTable.begin(parcel);
+    try {
+      adapter.writeToParcel(expected, parcel, 0);
+    } finally {
+      InternTable.end(parcel);
+    }
+    parcel.setDataPosition(0);
+    List<String> result;
+    InternTable.begin(parcel);
+    try {
+      result = adapter.readFromParcel(parcel);
+    } finally {
+      InternTable.end(parcel);
+    }
+    parcel.recycle();
+    assertThat(result).isEqualTo(expected);
+    assertThat(result.get(3)).isSameAs(result.get(0));
+    assertThat(result.get(5)).isSameAs(result.get(1));
+  }
+
+  @Test public void internedValuesAreWrittenInFullOutsideOfAPass() {
+    TypeAdapter<String> adapter = new InterningAdapter<>(StaticAdapters.STRING_ADAPTER);
+    String expected = "hello world";
+    String result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
   @Test public void intArraysAreCorrectlyParcelled() {
     TypeAdapter<int[]> adapter = StaticAdapters.INT_ARRAY_ADAPTER;
     int[] expected = new int[] { 42 };
@@ -145,6 +504,36 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void jdkValueTypesAreCorrectlyParcelled() {
+    Date expectedDate = new Date(1234567890123L);
+    assertThat(writeThenRead(StaticAdapters.DATE_ADAPTER, expectedDate)).isEqualTo(expectedDate);
+    UUID expectedUuid = UUID.randomUUID();
+    assertThat(writeThenRead(StaticAdapters.UUID_ADAPTER, expectedUuid)).isEqualTo(expectedUuid);
+    BigDecimal expectedDecimal = new BigDecimal("-12345678901234567890.00120");
+    assertThat(writeThenRead(StaticAdapters.BIG_DECIMAL_ADAPTER, expectedDecimal))
+        .isEqualTo(expectedDecimal);
+    BigInteger expectedInteger = new BigInteger("98765432109876543210");
+    assertThat(writeThenRead(StaticAdapters.BIG_INTEGER_ADAPTER, expectedInteger))
+        .isEqualTo(expectedInteger);
+    assertThat(writeThenRead(StaticAdapters.ATOMIC_INTEGER_ADAPTER, new AtomicInteger(42)).get())
+        .isEqualTo(42);
+    assertThat(writeThenRead(StaticAdapters.ATOMIC_LONG_ADAPTER, new AtomicLong(42L)).get())
+        .isEqualTo(42L);
+  }
+
+  @TargetApi(Build.VERSION_CODES.O)
+  @Test public void javaTimeTypesAreCorrectlyParcelled() {
+    Instant expectedInstant = Instant.ofEpochSecond(1234567890L, 123456789);
+    assertThat(writeThenRead(StaticAdapters.INSTANT_ADAPTER, expectedInstant))
+        .isEqualTo(expectedInstant);
+    LocalDate expectedDate = LocalDate.of(2016, 2, 29);
+    assertThat(writeThenRead(StaticAdapters.LOCAL_DATE_ADAPTER, expectedDate))
+        .isEqualTo(expectedDate);
+    Duration expectedDuration = Duration.ofMillis(-1500L);
+    assertThat(writeThenRead(StaticAdapters.DURATION_ADAPTER, expectedDuration))
+        .isEqualTo(expectedDuration);
+  }
+
   @Test public void longsAreCorrectlyParcelled() {
     TypeAdapter<Long> adapter = StaticAdapters.LONG_ADAPTER;
     Long expected = Long.MAX_VALUE;
@@ -168,6 +557,44 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @TargetApi(Build.VERSION_CODES.N)
+  @Test public void optionalsAreCorrectlyParcelled() {
+    TypeAdapter<Optional<String>> adapter = new OptionalAdapter<>(StaticAdapters.STRING_ADAPTER);
+    assertThat(writeThenRead(adapter, Optional.of("hello world")))
+        .isEqualTo(Optional.of("hello world"));
+    assertThat(writeThenRead(adapter, Optional.<String>empty())).isEqualTo(Optional.empty());
+    assertThat(writeThenRead(StaticAdapters.OPTIONAL_INT_ADAPTER, OptionalInt.of(42)))
+        .isEqualTo(OptionalInt.of(42));
+    assertThat(writeThenRead(StaticAdapters.OPTIONAL_LONG_ADAPTER, OptionalLong.empty()))
+        .isEqualTo(OptionalLong.empty());
+    assertThat(writeThenRead(StaticAdapters.OPTIONAL_DOUBLE_ADAPTER, OptionalDouble.of(4.2)))
+        .isEqualTo(OptionalDouble.of(4.2));
+  }
+
+  @Test public void packedBooleanArraysAreCorrectlyParcelled() {
+    TypeAdapter<boolean[]> adapter = StaticAdapters.PACKED_BOOLEAN_ARRAY_ADAPTER;
+    boolean[] expected = new boolean[33];
+    expected[0] = true;
+    expected[31] = true;
+    expected[32] = true;
+    boolean[] result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @Test public void packedCharArraysAreCorrectlyParcelled() {
+    TypeAdapter<char[]> adapter = StaticAdapters.PACKED_CHAR_ARRAY_ADAPTER;
+    char[] expected = new char[] { 'a', '\uffff', 'c' };
+    char[] result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @Test public void packedShortArraysAreCorrectlyParcelled() {
+    TypeAdapter<short[]> adapter = StaticAdapters.PACKED_SHORT_ARRAY_ADAPTER;
+    short[] expected = new short[] { 42, -1, Short.MIN_VALUE };
+    short[] result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
   @Test public void parcelablesAreCorrectlyParcelled() {
     TypeAdapter<TestParcelable> adapter = new ParcelableAdapter<>(TestParcelable.CREATOR);
     TestParcelable expected = new TestParcelable(42);
@@ -175,6 +602,81 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void nonNullParcelablesAreCorrectlyParcelled() {
+    TypeAdapter<TestParcelable> adapter = new NonNullParcelableAdapter<>(TestParcelable.CREATOR);
+    TestParcelable expected = new TestParcelable(42);
+    TestParcelable result = writeThenRead(adapter, expected);
+    assertThat(result).isEqualTo(expected);
+  }
+
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  @Test public void sharedValuesAreCorrectlyParcelled() {
+    TypeAdapter<String> adapter = new SharedMemoryAdapter<>(StaticAdapters.STRING_ADAPTER, 1024);
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("hello world ");
+    }
+    String large = builder.toString();
+    Parcel parcel = Parcel.obtain();
+    adapter.writeToParcel(large, parcel, 0);
+    assertThat(parcel.dataSize()).isLessThan(1024);
+    assertThat(parcel.hasFileDescriptors()).isTrue();
+    parcel.setDataPosition(0);
+    assertThat(adapter.readFromParcel(parcel)).isEqualTo(large);
+    parcel.recycle();
+    assertThat(writeThenRead(adapter, "hello world")).isEqualTo("hello world");
+    assertThat(writeThenRead(adapter, null)).isNull();
+    // Wraps an adapter that isn't null-safe
+    TypeAdapter<List<String>> listAdapter =
+        new SharedMemoryAdapter<>(new ListAdapter<>(StaticAdapters.STRING_ADAPTER), 1024);
+    assertThat(writeThenRead(listAdapter, null)).isNull();
+  }
+
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  @Test public void sharedPrimitiveArraysAreCorrectlyParcelled() {
+    TypeAdapter<int[]> adapter = new SharedMemoryAdapter<>(StaticAdapters.INT_ARRAY_ADAPTER, 1024);
+    int[] large = new int[1000];
+    for (int i = 0; i < large.length; i++) {
+      large[i] = i * 31;
+    }
+    Parcel parcel = Parcel.obtain();
+    adapter.writeToParcel(large, parcel, 0);
+    assertThat(parcel.dataSize()).isLessThan(1024);
+    assertThat(parcel.hasFileDescriptors()).isTrue();
+    parcel.setDataPosition(0);
+    assertThat(adapter.readFromParcel(parcel)).isEqualTo(large);
+    parcel.recycle();
+    assertThat(writeThenRead(adapter, new int[] { 1, 2 })).isEqualTo(new int[] { 1, 2 });
+    TypeAdapter<boolean[]> booleanAdapter =
+        new SharedMemoryAdapter<>(StaticAdapters.PACKED_BOOLEAN_ARRAY_ADAPTER, 16);
+    boolean[] booleans = new boolean[100];
+    booleans[3] = true;
+    booleans[99] = true;
+    assertThat(writeThenRead(booleanAdapter, booleans)).isEqualTo(booleans);
+  }
+
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  @Test public void sharedValuesAreWrittenInlineWhenFileDescriptorsAreDisallowed()
+      throws Exception {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      builder.append("hello world ");
+    }
+    String large = builder.toString();
+    Bundle bundle = new Bundle();
+    bundle.putParcelable("value", new SharedParcelable(large));
+    // Intent extras and saved instance state are written with file descriptors disallowed
+    Bundle.class.getMethod("setAllowFds", boolean.class).invoke(bundle, false);
+    Parcel parcel = Parcel.obtain();
+    bundle.writeToParcel(parcel, 0);
+    assertThat(parcel.hasFileDescriptors()).isFalse();
+    parcel.setDataPosition(0);
+    Bundle result = parcel.readBundle(SharedParcelable.class.getClassLoader());
+    parcel.recycle();
+    SharedParcelable value = result.getParcelable("value");
+    assertThat(value.value).isEqualTo(large);
+  }
+
   @Test public void shortsAreCorrectlyParcelled() {
     TypeAdapter<Short> adapter = StaticAdapters.SHORT_ADAPTER;
     Short expected = 42;
@@ -231,6 +733,98 @@ public class TypeAdapterTest {
     }
   }
 
+  @Test public void sparseIntArraysAreCorrectlyParcelled() {
+    TypeAdapter<SparseIntArray> adapter = StaticAdapters.SPARSE_INT_ARRAY_ADAPTER;
+    SparseIntArray expected = new SparseIntArray();
+    expected.put(42, -42);
+    expected.put(420, 420);
+    SparseIntArray result = writeThenRead(adapter, expected);
+    assertThat(expected.size()).isEqualTo(result.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertThat(result.keyAt(i)).isEqualTo(expected.keyAt(i));
+      assertThat(result.valueAt(i)).isEqualTo(expected.valueAt(i));
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+  @Test public void sparseLongArraysAreCorrectlyParcelled() {
+    TypeAdapter<SparseLongArray> adapter = StaticAdapters.SPARSE_LONG_ARRAY_ADAPTER;
+    SparseLongArray expected = new SparseLongArray();
+    expected.put(42, Long.MAX_VALUE);
+    expected.put(420, Long.MIN_VALUE);
+    SparseLongArray result = writeThenRead(adapter, expected);
+    assertThat(expected.size()).isEqualTo(result.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertThat(result.keyAt(i)).isEqualTo(expected.keyAt(i));
+      assertThat(result.valueAt(i)).isEqualTo(expected.valueAt(i));
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  @Test public void longSparseArraysAreCorrectlyParcelled() {
+    TypeAdapter<LongSparseArray<String>> adapter =
+        new LongSparseArrayAdapter<>(StaticAdapters.STRING_ADAPTER);
+    LongSparseArray<String> expected = new LongSparseArray<>();
+    expected.put(Long.MAX_VALUE, "hello");
+    expected.put(42L, "world");
+    LongSparseArray<String> result = writeThenRead(adapter, expected);
+    assertThat(expected.size()).isEqualTo(result.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertThat(result.keyAt(i)).isEqualTo(expected.keyAt(i));
+      assertThat(result.valueAt(i)).isEqualTo(expected.valueAt(i));
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  @Test public void nestedAndLargeSparseArraysAreCorrectlyParcelled() {
+    SparseIntArray large = new SparseIntArray();
+    for (int i = 0; i < 20000; i++) {
+      large.append(i * 2, -i);
+    }
+    SparseIntArray small = new SparseIntArray();
+    small.put(7, 70);
+    TypeAdapter<LongSparseArray<SparseIntArray>> adapter =
+        new LongSparseArrayAdapter<>(StaticAdapters.SPARSE_INT_ARRAY_ADAPTER);
+    LongSparseArray<SparseIntArray> expected = new LongSparseArray<>();
+    expected.put(1L, small);
+    expected.put(Long.MIN_VALUE, large);
+    LongSparseArray<SparseIntArray> result = writeThenRead(adapter, expected);
+    assertThat(result.size()).isEqualTo(expected.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertThat(result.keyAt(i)).isEqualTo(expected.keyAt(i));
+      SparseIntArray expectedItem = expected.valueAt(i);
+      SparseIntArray resultItem = result.valueAt(i);
+      assertThat(resultItem.size()).isEqualTo(expectedItem.size());
+      for (int j = 0; j < resultItem.size(); j++) {
+        assertThat(resultItem.keyAt(j)).isEqualTo(expectedItem.keyAt(j));
+        assertThat(resultItem.valueAt(j)).isEqualTo(expectedItem.valueAt(j));
+      }
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.M)
+  @Test public void arrayMapsAndSetsAreCorrectlyParcelled() {
+    TypeAdapter<ArrayMap<String, Integer>> mapAdapter = new ArrayMapAdapter<>(
+        StaticAdapters.STRING_ADAPTER, Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));
+    ArrayMap<String, Integer> expectedMap = new ArrayMap<>();
+    expectedMap.put("hello", 42);
+    expectedMap.put("world", null);
+    assertThat(writeThenRead(mapAdapter, expectedMap)).isEqualTo(expectedMap);
+
+    TypeAdapter<ArraySet<String>> setAdapter =
+        new ArraySetAdapter<>(StaticAdapters.STRING_ADAPTER);
+    ArraySet<String> expectedSet = new ArraySet<>();
+    expectedSet.add("hello");
+    expectedSet.add("world");
+    assertThat(writeThenRead(setAdapter, expectedSet)).isEqualTo(expectedSet);
+
+    TypeAdapter<SimpleArrayMap<String, String>> simpleMapAdapter = new SimpleArrayMapAdapter<>(
+        StaticAdapters.STRING_ADAPTER, StaticAdapters.STRING_ADAPTER);
+    SimpleArrayMap<String, String> expectedSimpleMap = new SimpleArrayMap<>();
+    expectedSimpleMap.put("hello", "world");
+    assertThat(writeThenRead(simpleMapAdapter, expectedSimpleMap)).isEqualTo(expectedSimpleMap);
+  }
+
   @Test public void stringsAreCorrectlyParcelled() {
     TypeAdapter<String> adapter = StaticAdapters.STRING_ADAPTER;
     String expected = "hello world";
@@ -238,6 +832,15 @@ public class TypeAdapterTest {
     assertThat(result).isEqualTo(expected);
   }
 
+  @Test public void utf8StringsAreCorrectlyParcelled() {
+    TypeAdapter<String> adapter = StaticAdapters.UTF8_STRING_ADAPTER;
+    assertThat(writeThenRead(adapter, "hello world")).isEqualTo("hello world");
+    String nonAscii = "h\u00e9llo w\u00f6rld \ud83d\ude00";
+    assertThat(writeThenRead(adapter, nonAscii)).isEqualTo(nonAscii);
+    assertThat(writeThenRead(adapter, "")).isEqualTo("");
+    assertThat(writeThenRead(adapter, null)).isNull();
+  }
+
   @Test public void serializableTypesAreCorrectlyParcelled() {
     TypeAdapter<String> adapter = new SerializableAdapter<>();
     String expected = "hello world";
@@ -292,6 +895,59 @@ public class TypeAdapterTest {
     }
   }
 
+  private static class SharedParcelable implements Parcelable {
+    private static final TypeAdapter<String> ADAPTER =
+        new SharedMemoryAdapter<>(StaticAdapters.STRING_ADAPTER, 1024);
+
+    public static final Parcelable.Creator<SharedParcelable> CREATOR =
+        new Parcelable.Creator<SharedParcelable>() {
+          @Override public SharedParcelable createFromParcel(Parcel in) {
+            return new SharedParcelable(ADAPTER.readFromParcel(in));
+          }
+
+          @Override public SharedParcelable[] newArray(int size) {
+            return new SharedParcelable[size];
+          }
+        };
+
+    private final String value;
+
+    SharedParcelable(String value) {
+      this.value = value;
+    }
+
+    @Override public int describeContents() {
+      return 0;
+    }
+
+    @Override public void writeToParcel(Parcel dest, int flags) {
+      ADAPTER.writeToParcel(value, dest, flags);
+    }
+  }
+
+  @PaperParcel.Options(internValues = true)
+  @PaperParcel
+  static final class Message implements Parcelable {
+    public static final Parcelable.Creator<Message> CREATOR =
+        PaperParcelTypeAdapterTest_Message.CREATOR;
+
+    final String name;
+    final Intent intent;
+
+    Message(String name, Intent intent) {
+      this.name = name;
+      this.intent = intent;
+    }
+
+    @Override public int describeContents() {
+      return 0;
+    }
+
+    @Override public void writeToParcel(Parcel dest, int flags) {
+      PaperParcelTypeAdapterTest_Message.writeToParcel(this, dest, flags);
+    }
+  }
+
   private enum TestEnum {
     A,
     B
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * <p>A range of bytes within a {@code byte[]}. Fields of this type are written straight from the
+ * backing array, so a large buffer can be parcelled from an offset without first copying the range
+ * into an array of its own.</p>
+ *
+ * <p>The backing array is shared rather than copied, so it shouldn't be modified while the range
+ * is in use. Ranges that are read from a parcel start at offset 0 of a new array.</p>
+ */
+public final class ByteRange {
+  private final byte[] array;
+  private final int offset;
+  private final int length;
+
+  /** Returns a range that covers all of {@code array}. */
+  @NonNull public static ByteRange wrap(@NonNull byte[] array) {
+    return new ByteRange(array, 0, array.length);
+  }
+
+  /** Returns a range that covers {@code length} bytes of {@code array} from {@code offset}. */
+  @NonNull public static ByteRange wrap(@NonNull byte[] array, int offset, int length) {
+    if (offset < 0 || length < 0 || offset > array.length - length) {
+      throw new IndexOutOfBoundsException("offset " + offset + " and length " + length
+          + " are out of bounds for an array of length " + array.length);
+    }
+    return new ByteRange(array, offset, length);
+  }
+
+  private ByteRange(byte[] array, int offset, int length) {
+    this.array = array;
+    this.offset = offset;
+    this.length = length;
+  }
+
+  /** Returns the array that backs this range. */
+  @NonNull public byte[] array() {
+    return array;
+  }
+
+  /** Returns the index of the first byte of this range within {@link #array()}. */
+  public int offset() {
+    return offset;
+  }
+
+  /** Returns the number of bytes in this range. */
+  public int length() {
+    return length;
+  }
+
+  /** Returns a copy of the bytes in this range. */
+  @NonNull public byte[] toByteArray() {
+    return Arrays.copyOfRange(array, offset, offset + length);
+  }
+
+  /** Returns a read-only buffer over this range, without copying it. */
+  @NonNull public ByteBuffer asByteBuffer() {
+    return ByteBuffer.wrap(array, offset, length).slice().asReadOnlyBuffer();
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ByteRange)) {
+      return false;
+    }
+    ByteRange other = (ByteRange) o;
+    if (length != other.length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (array[offset + i] != other.array[other.offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override public int hashCode() {
+    int result = 1;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      result = 31 * result + array[i];
+    }
+    return result;
+  }
+
+  @Override public String toString() {
+    return "ByteRange{offset=" + offset + ", length=" + length + "}";
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel;
+
+import android.os.BadParcelableException;
+import android.os.Binder;
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.RemoteException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>Transfers a list of {@link Parcelable}s that may be too large to fit in a single Binder
+ * transaction. Items are written inline until the encoded size reaches the chunk size, and the
+ * rest are fetched from the writing process in chunks of the same size when the slice is read,
+ * through a callback {@link IBinder}.</p>
+ *
+ * <p>All of the items must be of the same class, which must have a public static
+ * {@code CREATOR} field such as one generated by {@link PaperParcel}. The items can't be null.
+ * </p>
+ *
+ * <p>The writing process holds on to the list until every reader has fetched its remaining
+ * items, so the list shouldn't be modified once it has been written.</p>
+ */
+public final class PaperParcelListSlice<T extends Parcelable> implements Parcelable {
+  /** The number of encoded bytes that are written per chunk unless configured otherwise. */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  private final List<T> list;
+  private final int chunkSize;
+
+  public PaperParcelListSlice(@NonNull List<T> list) {
+    this(list, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a slice that writes up to {@code chunkSize} encoded bytes of {@code list} per
+   * transaction. At least one item is always written per chunk.
+   */
+  public PaperParcelListSlice(@NonNull List<T> list, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize <= 0: " + chunkSize);
+    }
+    this.list = list;
+    this.chunkSize = chunkSize;
+  }
+
+  /** Returns the items in this slice. */
+  @NonNull public List<T> getList() {
+    return list;
+  }
+
+  @Override public int describeContents() {
+    int contents = 0;
+    for (int i = 0, size = list.size(); i < size; i++) {
+      contents |= list.get(i).describeContents();
+    }
+    return contents;
+  }
+
+  @Override public void writeToParcel(Parcel dest, int flags) {
+    int size = list.size();
+    if (size == 0) {
+      dest.writeInt(0);
+      return;
+    }
+    // Checked up front so that a mixed list fails before anything is written
+    Class<?> itemClass = list.get(0).getClass();
+    for (int i = 1; i < size; i++) {
+      Class<?> otherClass = list.get(i).getClass();
+      if (otherClass != itemClass) {
+        throw new IllegalArgumentException("Can't write a slice of mixed classes: "
+            + itemClass.getName() + " and " + otherClass.getName());
+      }
+    }
+    dest.writeInt(size);
+    dest.writeString(itemClass.getName());
+    int written = writeChunk(dest, 0, flags);
+    if (written < size) {
+      dest.writeStrongBinder(new ChunkRetriever(flags));
+    }
+  }
+
+  /**
+   * Writes items from {@code start} to {@code parcel}, each preceded by a non-zero flag, until
+   * {@link #chunkSize} bytes have been written or the list is exhausted. A zero flag follows the
+   * chunk if any items remain. Returns the index of the first item that wasn't written.
+   */
+  private int writeChunk(Parcel parcel, int start, int flags) {
+    int size = list.size();
+    int limit = parcel.dataPosition() + chunkSize;
+    int i = start;
+    while (i < size && (i == start || parcel.dataPosition() < limit)) {
+      parcel.writeInt(1);
+      list.get(i).writeToParcel(parcel, flags);
+      i++;
+    }
+    if (i < size) {
+      parcel.writeInt(0);
+    }
+    return i;
+  }
+
+  public static final Creator<PaperParcelListSlice> CREATOR =
+      new ClassLoaderCreator<PaperParcelListSlice>() {
+        @Override public PaperParcelListSlice createFromParcel(Parcel source) {
+          return createFromParcel(source, null);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public PaperParcelListSlice createFromParcel(Parcel source, ClassLoader loader) {
+          return new PaperParcelListSlice(read(source, loader));
+        }
+
+        @Override public PaperParcelListSlice[] newArray(int size) {
+          return new PaperParcelListSlice[size];
+        }
+      };
+
+  private static List<Parcelable> read(Parcel source, @Nullable ClassLoader loader) {
+    int size = source.readInt();
+    List<Parcelable> list = new ArrayList<>(size);
+    if (size == 0) {
+      return list;
+    }
+    Creator<?> creator = getCreator(source.readString(), loader);
+    readChunk(source, creator, list, size);
+    if (list.size() < size) {
+      IBinder retriever = source.readStrongBinder();
+      while (list.size() < size) {
+        Parcel data = Parcel.obtain();
+        Parcel reply = Parcel.obtain();
+        try {
+          data.writeInt(list.size());
+          retriever.transact(IBinder.FIRST_CALL_TRANSACTION, data, reply, 0);
+          reply.readException();
+          readChunk(reply, creator, list, size);
+        } catch (RemoteException e) {
+          throw new BadParcelableException(e);
+        } finally {
+          data.recycle();
+          reply.recycle();
+        }
+      }
+    }
+    return list;
+  }
+
+  private static void readChunk(
+      Parcel source, Creator<?> creator, List<Parcelable> list, int size) {
+    while (list.size() < size && source.readInt() != 0) {
+      list.add((Parcelable) creator.createFromParcel(source));
+    }
+  }
+
+  @SuppressWarnings("TryWithIdenticalCatches")
+  private static Creator<?> getCreator(String className, @Nullable ClassLoader loader) {
+    if (loader == null) {
+      loader = PaperParcelListSlice.class.getClassLoader();
+    }
+    // Looked up once per slice rather than cached, so that the creators don't keep their class
+    // loaders reachable
+    Creator<?> creator;
+    try {
+      Class<?> itemClass = Class.forName(className, true, loader);
+      Field field = itemClass.getField("CREATOR");
+      field.setAccessible(true);
+      creator = (Creator<?>) field.get(null);
+    } catch (ClassNotFoundException e) {
+      throw new BadParcelableException(e);
+    } catch (NoSuchFieldException e) {
+      throw new BadParcelableException(e);
+    } catch (IllegalAccessException e) {
+      throw new BadParcelableException(e);
+    }
+    if (creator == null) {
+      throw new BadParcelableException(className + ".CREATOR is null");
+    }
+    return creator;
+  }
+
+  /**
+   * Serves the items that weren't written inline to readers in other processes. Like an AIDL
+   * reply, each reply starts with an exception header, so that a request for a chunk that is out
+   * of range fails in the reader.
+   */
+  private final class ChunkRetriever extends Binder {
+    private final int writeFlags;
+
+    ChunkRetriever(int writeFlags) {
+      this.writeFlags = writeFlags;
+    }
+
+    @Override protected boolean onTransact(int code, @NonNull Parcel data, Parcel reply, int flags)
+        throws RemoteException {
+      if (code != FIRST_CALL_TRANSACTION) {
+        return super.onTransact(code, data, reply, flags);
+      }
+      int start = data.readInt();
+      if (start < 0 || start >= list.size()) {
+        throw new IllegalArgumentException(
+            "start " + start + " is out of range for a slice of " + list.size() + " items");
+      }
+      reply.writeNoException();
+      writeChunk(reply, start, writeFlags);
+      return true;
+    }
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * <p>Saves {@link Parcelable} values, such as {@link PaperParcel} models, into a saved instance
+ * state {@link Bundle} without risking a {@code TransactionTooLargeException}. Values are encoded
+ * with their {@code writeToParcel} method. Values that encode to fewer than
+ * {@link #spillThreshold()} bytes are stored in the {@code Bundle}. Larger values are written to
+ * a memory-mapped file in an app-private directory, and only the file's name is stored in the
+ * {@code Bundle}, inside a small marker {@code Bundle}. Only values stored that way are treated as
+ * spilled, and only names that are UUIDs are opened or deleted, so other values stored under the
+ * same key never touch the filesystem.</p>
+ *
+ * <pre><code>
+ * &#64;Override protected void onSaveInstanceState(Bundle outState) {
+ *   super.onSaveInstanceState(outState);
+ *   SavedStateSpill.put(this, outState, "model", model);
+ * }
+ *
+ * &#64;Override protected void onCreate(Bundle savedInstanceState) {
+ *   super.onCreate(savedInstanceState);
+ *   if (savedInstanceState != null) {
+ *     model = SavedStateSpill.get(this, savedInstanceState, "model", Model.CREATOR);
+ *   }
+ * }
+ * </code></pre>
+ *
+ * <p>Spilled files must outlive the process so that state can be restored after process death,
+ * so they aren't deleted when they are read. Instead, each {@code Context} keeps at most one file
+ * per key: saving a key again deletes the file that was last saved or restored under that key
+ * for the same {@code Context}. Keys must therefore be unique within a {@code Context}, e.g.
+ * fragments that share their activity should prefix keys with their tag.
+ * {@link #remove(Context, Bundle, String)} deletes the file behind a key once its state is no
+ * longer needed (e.g. when the activity is finishing). Files that are older than
+ * {@link #maxAgeMillis()} are deleted the first time a value is spilled in each process, and
+ * {@link #deleteStale(Context)} runs the same cleanup on demand.</p>
+ */
+public final class SavedStateSpill {
+  /** The encoded size at which values are spilled unless configured otherwise. */
+  public static final int DEFAULT_SPILL_THRESHOLD = 64 * 1024;
+
+  /** The age at which spilled files are deleted unless configured otherwise: 7 days. */
+  public static final long DEFAULT_MAX_AGE_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+  private static final String DIRECTORY_NAME = "paperparcel_state";
+  /** The key of the file name in the marker {@code Bundle} that stands in for a spilled value. */
+  private static final String SPILLED_FILE_KEY = "paperparcel.SavedStateSpill.file";
+
+  private static int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+  private static long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+  private static boolean deletedStale;
+
+  /** The name of the file last saved or restored under each key, for each {@code Context}. */
+  private static final Map<Context, Map<String, String>> FILE_NAMES = new WeakHashMap<>();
+
+  /**
+   * Stores {@code value} in {@code bundle} under {@code key}, spilling it to a file if it is
+   * large. Values that contain binders or file descriptors can't be written to a file, so are
+   * always stored in the {@code Bundle}, as are values whose file can't be written.
+   */
+  public static <T extends Parcelable> void put(
+      @NonNull Context context, @NonNull Bundle bundle, @NonNull String key, @Nullable T value) {
+    setFileName(context, key, store(context, bundle, key, value));
+  }
+
+  /** Stores {@code value} in {@code bundle}, returning the name of its file if it was spilled. */
+  @Nullable private static <T extends Parcelable> String store(
+      Context context, Bundle bundle, String key, @Nullable T value) {
+    if (value == null) {
+      bundle.putParcelable(key, null);
+      return null;
+    }
+    byte[] data;
+    Parcel parcel = Parcel.obtain();
+    try {
+      value.writeToParcel(parcel, 0);
+      try {
+        data = parcel.marshall();
+      } catch (RuntimeException e) {
+        // Thrown when the value contains active objects such as binders
+        bundle.putParcelable(key, value);
+        return null;
+      }
+    } finally {
+      parcel.recycle();
+    }
+    if (data.length >= spillThreshold()) {
+      String name = spill(context, data);
+      if (name != null) {
+        Bundle marker = new Bundle(1);
+        marker.putString(SPILLED_FILE_KEY, name);
+        bundle.putBundle(key, marker);
+        return name;
+      }
+    }
+    bundle.putByteArray(key, data);
+    return null;
+  }
+
+  /**
+   * Returns the value stored under {@code key} by {@link #put}, read with {@code creator}. Returns
+   * null if there is no value, or if its spilled file has since been deleted.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable public static <T extends Parcelable> T get(
+      @NonNull Context context, @NonNull Bundle bundle, @NonNull String key,
+      @NonNull Parcelable.Creator<T> creator) {
+    Object stored = bundle.get(key);
+    byte[] data;
+    if (stored instanceof byte[]) {
+      data = (byte[]) stored;
+    } else if (isSpilled(stored)) {
+      String name = spilledFileName((Bundle) stored);
+      if (name == null) {
+        return null;
+      }
+      // The next save of this key replaces the restored file
+      setFileName(context, key, name);
+      data = read(new File(directory(context), name));
+      if (data == null) {
+        return null;
+      }
+    } else {
+      return (T) stored;
+    }
+    Parcel parcel = Parcel.obtain();
+    try {
+      parcel.unmarshall(data, 0, data.length);
+      parcel.setDataPosition(0);
+      return creator.createFromParcel(parcel);
+    } finally {
+      parcel.recycle();
+    }
+  }
+
+  /** Removes the value stored under {@code key}, deleting its spilled file if it has one. */
+  public static void remove(@NonNull Context context, @NonNull Bundle bundle, @NonNull String key) {
+    Object stored = bundle.get(key);
+    String name = isSpilled(stored) ? spilledFileName((Bundle) stored) : null;
+    if (name != null) {
+      //noinspection ResultOfMethodCallIgnored
+      new File(directory(context), name).delete();
+    }
+    bundle.remove(key);
+    setFileName(context, key, null);
+  }
+
+  /** Deletes the spilled files that are older than {@link #maxAgeMillis()}. */
+  public static void deleteStale(@NonNull Context context) {
+    File[] files = directory(context).listFiles();
+    if (files == null) {
+      return;
+    }
+    long cutoff = System.currentTimeMillis() - maxAgeMillis();
+    for (File file : files) {
+      if (file.lastModified() <= cutoff) {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+      }
+    }
+  }
+
+  /** Sets the encoded size, in bytes, at which values are spilled to a file. */
+  public static synchronized void setSpillThreshold(int spillThreshold) {
+    if (spillThreshold < 0) {
+      throw new IllegalArgumentException("spillThreshold < 0: " + spillThreshold);
+    }
+    SavedStateSpill.spillThreshold = spillThreshold;
+  }
+
+  /** Returns the encoded size, in bytes, at which values are spilled to a file. */
+  public static synchronized int spillThreshold() {
+    return spillThreshold;
+  }
+
+  /** Sets the age at which spilled files are deleted as stale. */
+  public static synchronized void setMaxAgeMillis(long maxAgeMillis) {
+    if (maxAgeMillis < 0) {
+      throw new IllegalArgumentException("maxAgeMillis < 0: " + maxAgeMillis);
+    }
+    SavedStateSpill.maxAgeMillis = maxAgeMillis;
+  }
+
+  /** Returns the age at which spilled files are deleted as stale. */
+  public static synchronized long maxAgeMillis() {
+    return maxAgeMillis;
+  }
+
+  /**
+   * Records {@code name} as the file behind {@code key} for {@code context}, deleting the file
+   * that was recorded before it.
+   */
+  private static void setFileName(Context context, String key, @Nullable String name) {
+    String previous;
+    synchronized (FILE_NAMES) {
+      Map<String, String> names = FILE_NAMES.get(context);
+      if (names == null) {
+        names = new HashMap<>();
+        FILE_NAMES.put(context, names);
+      }
+      previous = name != null ? names.put(key, name) : names.remove(key);
+    }
+    if (previous != null && !previous.equals(name)) {
+      //noinspection ResultOfMethodCallIgnored
+      new File(directory(context), previous).delete();
+    }
+  }
+
+  /** Returns true if {@code stored} is the marker {@code Bundle} of a spilled value. */
+  private static boolean isSpilled(@Nullable Object stored) {
+    return stored instanceof Bundle && ((Bundle) stored).containsKey(SPILLED_FILE_KEY);
+  }
+
+  /**
+   * Returns the file name held by {@code marker}, or null if it isn't a name that {@link #spill}
+   * could have created.
+   */
+  @Nullable private static String spilledFileName(Bundle marker) {
+    String name = marker.getString(SPILLED_FILE_KEY);
+    if (name == null) {
+      return null;
+    }
+    try {
+      // fromString is lenient, so also require the canonical form
+      return UUID.fromString(name).toString().equals(name) ? name : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** Writes {@code data} to a new file and returns its name, or null if it can't be written. */
+  @Nullable private static String spill(Context context, byte[] data) {
+    synchronized (SavedStateSpill.class) {
+      if (!deletedStale) {
+        deletedStale = true;
+        deleteStale(context);
+      }
+    }
+    String name = UUID.randomUUID().toString();
+    File file = new File(directory(context), name);
+    try {
+      RandomAccessFile output = new RandomAccessFile(file, "rw");
+      try {
+        MappedByteBuffer buffer =
+            output.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, data.length);
+        buffer.put(data);
+      } finally {
+        output.close();
+      }
+      return name;
+    } catch (IOException e) {
+      //noinspection ResultOfMethodCallIgnored
+      file.delete();
+      return null;
+    }
+  }
+
+  /** Returns the contents of {@code file}, or null if it can't be read. */
+  @Nullable private static byte[] read(File file) {
+    try {
+      RandomAccessFile input = new RandomAccessFile(file, "r");
+      try {
+        FileChannel channel = input.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+      } finally {
+        input.close();
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static File directory(Context context) {
+    return context.getDir(DIRECTORY_NAME, Context.MODE_PRIVATE);
+  }
+
+  private SavedStateSpill() {
+    throw new AssertionError("No instances.");
+  }
+}
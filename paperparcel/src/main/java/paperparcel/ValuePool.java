@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * <p>The pool of canonical instances that values are read into when
+ * {@link PaperParcel.Options#canonicalizeValues()} is enabled. Values that are equal to a pooled
+ * value are replaced with the pooled instance, so restored objects share equal values instead of
+ * each holding their own copy.</p>
+ *
+ * <p>The pool holds at most {@link #maxSize()} values and evicts the least recently used value
+ * when it is full. The hit rate can be used to judge whether the pool is paying for itself, or
+ * whether its size should be tuned via {@link #setMaxSize(int)}.</p>
+ */
+public final class ValuePool {
+  /** The number of values that the pool holds unless configured otherwise. */
+  public static final int DEFAULT_MAX_SIZE = 1024;
+
+  private static int maxSize = DEFAULT_MAX_SIZE;
+  private static long hitCount;
+  private static long missCount;
+  private static long evictionCount;
+
+  // Access-ordered, so the eldest entry is the least recently used one.
+  private static final Map<Object, Object> POOL =
+      new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+          if (size() > maxSize) {
+            evictionCount++;
+            return true;
+          }
+          return false;
+        }
+      };
+
+  /**
+   * Returns the pooled instance that is equal to {@code value}, or pools and returns
+   * {@code value} if there isn't one.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull public static synchronized <T> T canonicalize(@NonNull T value) {
+    Object pooled = POOL.get(value);
+    if (pooled != null) {
+      hitCount++;
+      return (T) pooled;
+    }
+    missCount++;
+    POOL.put(value, value);
+    return value;
+  }
+
+  /** Sets the maximum number of values held by the pool, evicting values if necessary. */
+  public static synchronized void setMaxSize(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize < 0: " + maxSize);
+    }
+    ValuePool.maxSize = maxSize;
+    while (POOL.size() > maxSize) {
+      POOL.remove(POOL.keySet().iterator().next());
+      evictionCount++;
+    }
+  }
+
+  /** Returns the maximum number of values held by the pool. */
+  public static synchronized int maxSize() {
+    return maxSize;
+  }
+
+  /** Returns the number of values currently held by the pool. */
+  public static synchronized int size() {
+    return POOL.size();
+  }
+
+  /** Returns the number of values that were replaced with a pooled instance. */
+  public static synchronized long hitCount() {
+    return hitCount;
+  }
+
+  /** Returns the number of values that did not have a pooled instance. */
+  public static synchronized long missCount() {
+    return missCount;
+  }
+
+  /** Returns the number of values that have been evicted from the pool. */
+  public static synchronized long evictionCount() {
+    return evictionCount;
+  }
+
+  /** Returns the fraction of values that were replaced with a pooled instance. */
+  public static synchronized double hitRate() {
+    long total = hitCount + missCount;
+    return total != 0 ? (double) hitCount / total : 0;
+  }
+
+  /** Removes all values from the pool. */
+  public static synchronized void clear() {
+    POOL.clear();
+  }
+
+  /** Resets the hit, miss and eviction counts to zero. */
+  public static synchronized void resetStats() {
+    hitCount = 0;
+    missCount = 0;
+    evictionCount = 0;
+  }
+
+  private ValuePool() {
+    throw new AssertionError("No instances.");
+  }
+}
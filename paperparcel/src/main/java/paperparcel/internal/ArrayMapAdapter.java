@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Parcel;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+@TargetApi(Build.VERSION_CODES.KITKAT)
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class ArrayMapAdapter<K, V> implements TypeAdapter<ArrayMap<K, V>> {
+  private final TypeAdapter<K> keyAdapter;
+  private final TypeAdapter<V> valueAdapter;
+
+  public ArrayMapAdapter(TypeAdapter<K> keyAdapter, TypeAdapter<V> valueAdapter) {
+    this.keyAdapter = keyAdapter;
+    this.valueAdapter = valueAdapter;
+  }
+
+  @NonNull @Override public ArrayMap<K, V> readFromParcel(@NonNull Parcel source) {
+    int size = source.readInt();
+    ArrayMap<K, V> value = new ArrayMap<>(size);
+    for (int i = 0; i < size; i++) {
+      K key = keyAdapter.readFromParcel(source);
+      value.put(key, valueAdapter.readFromParcel(source));
+    }
+    return value;
+  }
+
+  @Override
+  public void writeToParcel(@NonNull ArrayMap<K, V> value, @NonNull Parcel dest, int flags) {
+    int size = value.size();
+    dest.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      keyAdapter.writeToParcel(value.keyAt(i), dest, flags);
+      valueAdapter.writeToParcel(value.valueAt(i), dest, flags);
+    }
+  }
+}
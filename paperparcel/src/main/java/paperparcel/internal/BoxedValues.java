@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Writes groups of boxed {@code Integer}s and {@code Long}s as a single primitive array,
+ * followed by an {@code int[]} bitmap with one bit set for each null value (or null if there are
+ * none). The arrays are sized from the number of items that are actually iterated, rather than
+ * from an earlier call to {@code size()}.
+ */
+final class BoxedValues {
+
+  static void writeIntegers(@NonNull Collection<Integer> value, @NonNull Parcel dest) {
+    int[] values = new int[value.size()];
+    int[] nulls = null;
+    int count = 0;
+    for (Integer item : value) {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, Math.max(count * 2, 4));
+      }
+      if (item != null) {
+        values[count] = item;
+      } else {
+        nulls = setNull(nulls, count, values.length);
+      }
+      count++;
+    }
+    if (count != values.length) {
+      values = Arrays.copyOf(values, count);
+    }
+    dest.writeIntArray(values);
+    dest.writeIntArray(trimNulls(nulls, count));
+  }
+
+  static void writeLongs(@NonNull Collection<Long> value, @NonNull Parcel dest) {
+    long[] values = new long[value.size()];
+    int[] nulls = null;
+    int count = 0;
+    for (Long item : value) {
+      if (count == values.length) {
+        values = Arrays.copyOf(values, Math.max(count * 2, 4));
+      }
+      if (item != null) {
+        values[count] = item;
+      } else {
+        nulls = setNull(nulls, count, values.length);
+      }
+      count++;
+    }
+    if (count != values.length) {
+      values = Arrays.copyOf(values, count);
+    }
+    dest.writeLongArray(values);
+    dest.writeIntArray(trimNulls(nulls, count));
+  }
+
+  /**
+   * Sets bit {@code i} of {@code nulls}, creating or growing it so that it can hold
+   * {@code capacity} bits.
+   */
+  private static int[] setNull(@Nullable int[] nulls, int i, int capacity) {
+    int words = (capacity + 31) >>> 5;
+    if (nulls == null) {
+      nulls = new int[words];
+    } else if (nulls.length < words) {
+      nulls = Arrays.copyOf(nulls, words);
+    }
+    nulls[i >>> 5] |= 1 << i;
+    return nulls;
+  }
+
+  @Nullable private static int[] trimNulls(@Nullable int[] nulls, int count) {
+    int words = (count + 31) >>> 5;
+    return nulls == null || nulls.length == words ? nulls : Arrays.copyOf(nulls, words);
+  }
+
+  @NonNull static int[] readInts(@NonNull Parcel source) {
+    int[] values = source.createIntArray();
+    if (values == null) {
+      throw new IllegalStateException("Expected an int[]");
+    }
+    return values;
+  }
+
+  @NonNull static long[] readLongs(@NonNull Parcel source) {
+    long[] values = source.createLongArray();
+    if (values == null) {
+      throw new IllegalStateException("Expected a long[]");
+    }
+    return values;
+  }
+
+  /** Reads the bitmap of null values written after the values, or null if there are none. */
+  @Nullable static int[] readNulls(@NonNull Parcel source) {
+    return source.createIntArray();
+  }
+
+  @Nullable static Integer integerAt(@NonNull int[] values, @Nullable int[] nulls, int i) {
+    return isNull(nulls, i) ? null : values[i];
+  }
+
+  @Nullable static Long longAt(@NonNull long[] values, @Nullable int[] nulls, int i) {
+    return isNull(nulls, i) ? null : values[i];
+  }
+
+  private static boolean isNull(@Nullable int[] nulls, int i) {
+    return nulls != null && (nulls[i >>> 5] & (1 << i)) != 0;
+  }
+
+  private BoxedValues() {
+    throw new AssertionError("No instances.");
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import paperparcel.TypeAdapter;
+import paperparcel.ValuePool;
+
+/**
+ * Replaces each value that is read with its canonical instance from the {@link ValuePool}. Only
+ * use this for immutable types, as equal values will be read back as the same instance.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CanonicalizingAdapter<T> implements TypeAdapter<T> {
+  private final TypeAdapter<T> adapter;
+
+  public CanonicalizingAdapter(TypeAdapter<T> adapter) {
+    this.adapter = adapter;
+  }
+
+  @Nullable @Override public T readFromParcel(@NonNull Parcel source) {
+    T value = adapter.readFromParcel(source);
+    return value != null ? ValuePool.canonicalize(value) : null;
+  }
+
+  @Override public void writeToParcel(@Nullable T value, @NonNull Parcel dest, int flags) {
+    adapter.writeToParcel(value, dest, flags);
+  }
+}
@@ -44,8 +44,6 @@ public final class CollectionAdapter<T> implements TypeAdapter<Collection<T>> {
   @Override
   public void writeToParcel(@NonNull Collection<T> value, @NonNull Parcel dest, int flags) {
     dest.writeInt(value.size());
-    for (T item : value) {
-      itemAdapter.writeToParcel(item, dest, flags);
-    }
+    Utils.writeItems(value, itemAdapter, dest, flags);
   }
 }
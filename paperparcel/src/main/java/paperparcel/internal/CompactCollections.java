@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Build;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/** Creates the collections that are read by the compact collection adapters. */
+final class CompactCollections {
+  /**
+   * Maps and sets of up to this many entries are read into an {@code ArrayMap} or
+   * {@code ArraySet}, which don't allocate an entry object per mapping. Lookups are a binary
+   * search, so larger collections are read into hash-based ones instead.
+   */
+  static final int ARRAY_COLLECTION_THRESHOLD = 32;
+
+  static <K, V> Map<K, V> newMap(int size) {
+    if (size <= ARRAY_COLLECTION_THRESHOLD
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+      return new ArrayMap<>(size);
+    }
+    return new LinkedHashMap<>(Utils.capacity(size));
+  }
+
+  static <T> Set<T> newSet(int size) {
+    if (size <= ARRAY_COLLECTION_THRESHOLD
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      return new ArraySet<>(size);
+    }
+    return new LinkedHashSet<>(Utils.capacity(size));
+  }
+
+  /** Returns an unmodifiable list that is backed by {@code items}, without copying it. */
+  static <T> List<T> asList(Object[] items) {
+    return new ArrayBackedList<>(items);
+  }
+
+  private static final class ArrayBackedList<T> extends AbstractList<T>
+      implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] items;
+
+    ArrayBackedList(Object[] items) {
+      this.items = items;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override public T get(int index) {
+      return (T) items[index];
+    }
+
+    @Override public int size() {
+      return items.length;
+    }
+  }
+
+  /**
+   * Returns an unmodifiable view of {@code map}. Unlike {@link Collections#unmodifiableMap(Map)},
+   * the view is written from {@code map} itself (see {@link Utils#writeEntries}), so that an
+   * {@code ArrayMap} is still written with an indexed loop.
+   */
+  static <K, V> Map<K, V> unmodifiableMap(Map<K, V> map) {
+    return new UnmodifiableMap<>(map);
+  }
+
+  static final class UnmodifiableMap<K, V> extends AbstractMap<K, V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    final Map<K, V> map;
+    private final Map<K, V> view;
+
+    UnmodifiableMap(Map<K, V> map) {
+      this.map = map;
+      this.view = Collections.unmodifiableMap(map);
+    }
+
+    @Override public int size() {
+      return map.size();
+    }
+
+    @Override public boolean containsKey(Object key) {
+      return map.containsKey(key);
+    }
+
+    @Override public boolean containsValue(Object value) {
+      return map.containsValue(value);
+    }
+
+    @Override public V get(Object key) {
+      return map.get(key);
+    }
+
+    @Override public Set<K> keySet() {
+      return view.keySet();
+    }
+
+    @Override public Collection<V> values() {
+      return view.values();
+    }
+
+    @Override public Set<Entry<K, V>> entrySet() {
+      return view.entrySet();
+    }
+  }
+
+  private CompactCollections() {
+    throw new AssertionError("No instances.");
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/** Reads back the values that were written to a {@link Parcel} by a {@link CompactEncoder}. */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompactDecoder {
+  private final byte[] buffer;
+  private int position;
+  private int bits;
+  private int bitCount = Byte.SIZE;
+
+  /** Reads the encoded values from {@code source}. */
+  public CompactDecoder(@NonNull Parcel source) {
+    byte[] buffer = source.createByteArray();
+    if (buffer == null) {
+      throw new IllegalStateException("Expected compact encoded values");
+    }
+    this.buffer = buffer;
+  }
+
+  public boolean readBoolean() {
+    if (bitCount == Byte.SIZE) {
+      bits = readByte();
+      bitCount = 0;
+    }
+    return ((bits >> bitCount++) & 1) != 0;
+  }
+
+  public int readInt() {
+    int value = readVarInt();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public long readLong() {
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public float readFloat() {
+    return Float.intBitsToFloat(readFixedInt());
+  }
+
+  public double readDouble() {
+    long low = readFixedInt() & 0xFFFFFFFFL;
+    long high = readFixedInt();
+    return Double.longBitsToDouble(low | (high << 32));
+  }
+
+  @Nullable public String readString() {
+    int length = readVarInt() - 1;
+    if (length < 0) {
+      return null;
+    }
+    if (length > buffer.length - position) {
+      throw new IllegalStateException("Truncated compact encoded values");
+    }
+    String value = new String(buffer, position, length, Utils.UTF_8);
+    position += length;
+    return value;
+  }
+
+  private int readVarInt() {
+    int value = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      int b = readByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint");
+  }
+
+  private long readVarLong() {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      int b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint");
+  }
+
+  private int readFixedInt() {
+    return readByte() | (readByte() << 8) | (readByte() << 16) | (readByte() << 24);
+  }
+
+  private int readByte() {
+    if (position >= buffer.length) {
+      throw new IllegalStateException("Truncated compact encoded values");
+    }
+    return buffer[position++] & 0xFF;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Encodes primitive and {@code String} values into a single byte array that is then written to a
+ * {@link Parcel} in one call. {@code int}s and {@code long}s are written as zigzag varints,
+ * {@code boolean}s are packed eight to a byte, and {@code String}s are length-prefixed UTF-8.
+ * Values are read back by {@link CompactDecoder}.
+ *
+ * <p>Each thread reuses the same buffer, so an encoder must be released with {@link #release()}
+ * once its values have been written, even if writing them fails.</p>
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompactEncoder {
+  private static final ThreadLocal<CompactEncoder> CACHE = new ThreadLocal<>();
+  /** Buffers that grow larger than this are not kept for reuse. */
+  private static final int MAX_CACHED_SIZE = 64 * 1024;
+
+  private byte[] buffer = new byte[256];
+  private int size;
+  private int bitsPosition;
+  private int bitCount = Byte.SIZE;
+  private boolean inUse;
+
+  /** Returns an empty encoder, reusing this thread's buffer if it isn't already in use. */
+  @NonNull public static CompactEncoder obtain() {
+    CompactEncoder encoder = CACHE.get();
+    if (encoder == null) {
+      encoder = new CompactEncoder();
+      CACHE.set(encoder);
+    } else if (encoder.inUse) {
+      return new CompactEncoder();
+    }
+    encoder.inUse = true;
+    return encoder;
+  }
+
+  public void writeBoolean(boolean value) {
+    if (bitCount == Byte.SIZE) {
+      ensureCapacity(1);
+      bitsPosition = size++;
+      buffer[bitsPosition] = 0;
+      bitCount = 0;
+    }
+    if (value) {
+      buffer[bitsPosition] |= 1 << bitCount;
+    }
+    bitCount++;
+  }
+
+  public void writeInt(int value) {
+    writeVarInt((value << 1) ^ (value >> 31));
+  }
+
+  public void writeLong(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  public void writeFloat(float value) {
+    writeFixedInt(Float.floatToRawIntBits(value));
+  }
+
+  public void writeDouble(double value) {
+    long bits = Double.doubleToRawLongBits(value);
+    writeFixedInt((int) bits);
+    writeFixedInt((int) (bits >>> 32));
+  }
+
+  /** Writes {@code value} as UTF-8, prefixed by its length plus one (or 0 if it is null). */
+  public void writeString(@Nullable String value) {
+    if (value == null) {
+      writeVarInt(0);
+      return;
+    }
+    int length = value.length();
+    if (isAscii(value)) {
+      writeVarInt(length + 1);
+      ensureCapacity(length);
+      for (int i = 0; i < length; i++) {
+        buffer[size++] = (byte) value.charAt(i);
+      }
+    } else {
+      byte[] bytes = value.getBytes(Utils.UTF_8);
+      writeVarInt(bytes.length + 1);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, size, bytes.length);
+      size += bytes.length;
+    }
+  }
+
+  /** Writes the encoded values to {@code dest}. */
+  public void writeTo(@NonNull Parcel dest) {
+    dest.writeByteArray(buffer, 0, size);
+  }
+
+  /** Discards the encoded values and releases this encoder for reuse. */
+  public void release() {
+    size = 0;
+    bitCount = Byte.SIZE;
+    inUse = false;
+    if (buffer.length > MAX_CACHED_SIZE) {
+      buffer = new byte[256];
+    }
+  }
+
+  private void writeVarInt(int value) {
+    ensureCapacity(5);
+    while ((value & ~0x7F) != 0) {
+      buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[size++] = (byte) value;
+  }
+
+  private void writeVarLong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[size++] = (byte) value;
+  }
+
+  private void writeFixedInt(int value) {
+    ensureCapacity(4);
+    buffer[size++] = (byte) value;
+    buffer[size++] = (byte) (value >> 8);
+    buffer[size++] = (byte) (value >> 16);
+    buffer[size++] = (byte) (value >> 24);
+  }
+
+  private void ensureCapacity(int count) {
+    if (size + count > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + count));
+    }
+  }
+
+  private static boolean isAscii(String value) {
+    for (int i = 0, length = value.length(); i < length; i++) {
+      if (value.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
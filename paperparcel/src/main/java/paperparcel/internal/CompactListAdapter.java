@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * A {@link ListAdapter} that reads lists into an unmodifiable array-backed list, and empty lists
+ * as {@link Collections#emptyList()}.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompactListAdapter<T> implements TypeAdapter<List<T>> {
+  private final TypeAdapter<T> itemAdapter;
+
+  public CompactListAdapter(TypeAdapter<T> itemAdapter) {
+    this.itemAdapter = itemAdapter;
+  }
+
+  @NonNull @Override public List<T> readFromParcel(@NonNull Parcel source) {
+    int size = source.readInt();
+    if (size == 0) {
+      return Collections.emptyList();
+    }
+    Object[] items = new Object[size];
+    for (int i = 0; i < size; i++) {
+      items[i] = itemAdapter.readFromParcel(source);
+    }
+    return CompactCollections.asList(items);
+  }
+
+  @Override
+  public void writeToParcel(@NonNull List<T> value, @NonNull Parcel dest, int flags) {
+    dest.writeInt(value.size());
+    Utils.writeItems(value, itemAdapter, dest, flags);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.Collections;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * A {@link LongKeyMapAdapter} that reads small maps into an unmodifiable {@code ArrayMap}, and
+ * empty maps as {@link Collections#emptyMap()}.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompactLongKeyMapAdapter<V> implements TypeAdapter<Map<Long, V>> {
+  private final TypeAdapter<V> valueAdapter;
+  private final LongKeyMapAdapter<V> writer;
+
+  public CompactLongKeyMapAdapter(TypeAdapter<V> valueAdapter) {
+    this.valueAdapter = valueAdapter;
+    this.writer = new LongKeyMapAdapter<>(valueAdapter);
+  }
+
+  @NonNull @Override public Map<Long, V> readFromParcel(@NonNull Parcel source) {
+    long[] keys = BoxedValues.readLongs(source);
+    int[] nulls = BoxedValues.readNulls(source);
+    if (keys.length == 0) {
+      return Collections.emptyMap();
+    }
+    Map<Long, V> map = CompactCollections.newMap(keys.length);
+    for (int i = 0; i < keys.length; i++) {
+      map.put(BoxedValues.longAt(keys, nulls, i), valueAdapter.readFromParcel(source));
+    }
+    return CompactCollections.unmodifiableMap(map);
+  }
+
+  @Override
+  public void writeToParcel(@NonNull Map<Long, V> value, @NonNull Parcel dest, int flags) {
+    writer.writeToParcel(value, dest, flags);
+  }
+}
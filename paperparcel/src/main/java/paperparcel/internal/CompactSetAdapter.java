@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.Collections;
+import java.util.Set;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * A {@link SetAdapter} that reads small sets into an unmodifiable {@code ArraySet}, and empty
+ * sets as {@link Collections#emptySet()}.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompactSetAdapter<T> implements TypeAdapter<Set<T>> {
+  private final TypeAdapter<T> itemAdapter;
+
+  public CompactSetAdapter(TypeAdapter<T> itemAdapter) {
+    this.itemAdapter = itemAdapter;
+  }
+
+  @NonNull @Override public Set<T> readFromParcel(@NonNull Parcel source) {
+    int size = source.readInt();
+    if (size == 0) {
+      return Collections.emptySet();
+    }
+    Set<T> value = CompactCollections.newSet(size);
+    for (int i = 0; i < size; i++) {
+      value.add(itemAdapter.readFromParcel(source));
+    }
+    return Collections.unmodifiableSet(value);
+  }
+
+  @Override
+  public void writeToParcel(@NonNull Set<T> value, @NonNull Parcel dest, int flags) {
+    dest.writeInt(value.size());
+    Utils.writeItems(value, itemAdapter, dest, flags);
+  }
+}
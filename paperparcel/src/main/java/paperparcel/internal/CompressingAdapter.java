@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import paperparcel.TypeAdapter;
+
+/**
+ * Compresses the encoded form of values that take up at least {@code threshold} bytes using
+ * {@link Deflater}. Smaller values are written as-is, after a single {@code int} flag.
+ * {@code null} is written as a flag of -1, so the wrapped adapter is only passed non-null values.
+ *
+ * <p>Values that cannot be copied out of the {@code Parcel} (e.g. because they contain binders or
+ * file descriptors), or that do not get any smaller, are also written as-is.</p>
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class CompressingAdapter<T> implements TypeAdapter<T> {
+  private final TypeAdapter<T> adapter;
+  private final int threshold;
+
+  public CompressingAdapter(TypeAdapter<T> adapter, int threshold) {
+    this.adapter = adapter;
+    this.threshold = threshold;
+  }
+
+  @Nullable @Override public T readFromParcel(@NonNull Parcel source) {
+    int length = source.readInt();
+    if (length < 0) {
+      return null;
+    }
+    // Compressed values are read from a copy, so can't refer back to values outside of them
+    InternTable.suspend();
+    try {
+      if (length == 0) {
+        return adapter.readFromParcel(source);
+      }
+      byte[] data = inflate(source.createByteArray(), length);
+      Parcel parcel = Parcel.obtain();
+      try {
+        parcel.unmarshall(data, 0, data.length);
+        parcel.setDataPosition(0);
+        return adapter.readFromParcel(parcel);
+      } finally {
+        parcel.recycle();
+      }
+    } finally {
+      InternTable.resume();
+    }
+  }
+
+  @Override public void writeToParcel(@Nullable T value, @NonNull Parcel dest, int flags) {
+    if (value == null) {
+      dest.writeInt(-1);
+      return;
+    }
+    int flagPosition = dest.dataPosition();
+    dest.writeInt(0);
+    int start = dest.dataPosition();
+    InternTable.suspend();
+    try {
+      adapter.writeToParcel(value, dest, flags);
+    } finally {
+      InternTable.resume();
+    }
+    int length = dest.dataPosition() - start;
+    if (length >= threshold) {
+      byte[] compressed = deflate(dest, start, length);
+      if (compressed != null) {
+        // Replace the raw value with its compressed form
+        dest.setDataPosition(flagPosition);
+        dest.writeInt(length);
+        dest.writeByteArray(compressed);
+        dest.setDataSize(dest.dataPosition());
+      }
+    }
+  }
+
+  /**
+   * Returns the compressed form of {@code length} bytes of {@code parcel} from {@code offset}, or
+   * null if they can't be copied or don't compress.
+   */
+  @Nullable private static byte[] deflate(Parcel parcel, int offset, int length) {
+    byte[] data;
+    Parcel copy = Parcel.obtain();
+    try {
+      copy.appendFrom(parcel, offset, length);
+      data = copy.marshall();
+    } catch (RuntimeException e) {
+      // Thrown when the value contains active objects such as binders
+      return null;
+    } finally {
+      copy.recycle();
+    }
+
+    Deflater deflater = new Deflater();
+    try {
+      deflater.setInput(data);
+      deflater.finish();
+      // Only worth it if the compressed bytes, plus their length, are smaller
+      int limit = data.length - 4;
+      byte[] buffer = new byte[Math.min(data.length, 8192)];
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+        if (out.size() >= limit) {
+          return null;
+        }
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] compressed, int length) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(compressed);
+      byte[] data = new byte[length];
+      int offset = 0;
+      while (offset < length && !inflater.finished()) {
+        int count = inflater.inflate(data, offset, length - offset);
+        if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        offset += count;
+      }
+      if (offset != length) {
+        throw new IllegalStateException("Expected " + length + " bytes but inflated " + offset);
+      }
+      return data;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt compressed value", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.EnumMap;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * Writes an {@code EnumMap} as a bitmask of the ordinals of its keys (see
+ * {@link EnumSetAdapter}), followed by its values in ordinal order.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class EnumMapAdapter<K extends Enum<K>, V> implements TypeAdapter<EnumMap<K, V>> {
+  private final Class<K> enumClass;
+  private final K[] constants;
+  private final TypeAdapter<V> valueAdapter;
+
+  public EnumMapAdapter(Class<K> enumClass, int fingerprint, TypeAdapter<V> valueAdapter) {
+    this.enumClass = enumClass;
+    this.constants = OrdinalEnumAdapter.checkedConstants(enumClass, fingerprint);
+    this.valueAdapter = valueAdapter;
+  }
+
+  @NonNull @Override public EnumMap<K, V> readFromParcel(@NonNull Parcel source) {
+    long[] keys = new long[(constants.length + Long.SIZE - 1) / Long.SIZE];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = source.readLong();
+    }
+    EnumMap<K, V> value = new EnumMap<>(enumClass);
+    for (int i = 0; i < keys.length; i++) {
+      long bits = keys[i];
+      while (bits != 0) {
+        K key = constants[i * Long.SIZE + Long.numberOfTrailingZeros(bits)];
+        value.put(key, valueAdapter.readFromParcel(source));
+        bits &= bits - 1;
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void writeToParcel(@NonNull EnumMap<K, V> value, @NonNull Parcel dest, int flags) {
+    EnumSetAdapter.writeOrdinals(value.keySet(), constants.length, dest);
+    for (V item : value.values()) {
+      valueAdapter.writeToParcel(item, dest, flags);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.EnumSet;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * Writes an {@code EnumSet} as a bitmask of the ordinals of its elements, using one
+ * {@code long} per 64 constants. {@code fingerprint} guards against the constants changing
+ * without the generated code being recompiled (see {@link OrdinalEnumAdapter}).
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class EnumSetAdapter<T extends Enum<T>> implements TypeAdapter<EnumSet<T>> {
+  private final Class<T> enumClass;
+  private final T[] constants;
+
+  public EnumSetAdapter(Class<T> enumClass, int fingerprint) {
+    this.enumClass = enumClass;
+    this.constants = OrdinalEnumAdapter.checkedConstants(enumClass, fingerprint);
+  }
+
+  @NonNull @Override public EnumSet<T> readFromParcel(@NonNull Parcel source) {
+    EnumSet<T> value = EnumSet.noneOf(enumClass);
+    for (int offset = 0; offset < constants.length; offset += Long.SIZE) {
+      long bits = source.readLong();
+      while (bits != 0) {
+        value.add(constants[offset + Long.numberOfTrailingZeros(bits)]);
+        bits &= bits - 1;
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void writeToParcel(@NonNull EnumSet<T> value, @NonNull Parcel dest, int flags) {
+    writeOrdinals(value, constants.length, dest);
+  }
+
+  /**
+   * Writes the ordinals of {@code values} as a bitmask of {@code count} bits. {@code values} must
+   * be iterated in ordinal order, as {@code EnumSet}s and the keys of {@code EnumMap}s are.
+   */
+  static void writeOrdinals(Iterable<? extends Enum<?>> values, int count, Parcel dest) {
+    int offset = 0;
+    long bits = 0;
+    for (Enum<?> item : values) {
+      int ordinal = item.ordinal();
+      while (ordinal >= offset + Long.SIZE) {
+        dest.writeLong(bits);
+        bits = 0;
+        offset += Long.SIZE;
+      }
+      bits |= 1L << (ordinal - offset);
+    }
+    for (; offset < count; offset += Long.SIZE) {
+      dest.writeLong(bits);
+      bits = 0;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * Writes a {@code Map} with {@code Integer} keys. The keys are written together as a single
+ * {@code int[]}, followed by each of the values.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class IntegerKeyMapAdapter<V> implements TypeAdapter<Map<Integer, V>> {
+  private final TypeAdapter<V> valueAdapter;
+
+  public IntegerKeyMapAdapter(TypeAdapter<V> valueAdapter) {
+    this.valueAdapter = valueAdapter;
+  }
+
+  @NonNull @Override public Map<Integer, V> readFromParcel(@NonNull Parcel source) {
+    int[] keys = BoxedValues.readInts(source);
+    int[] nulls = BoxedValues.readNulls(source);
+    Map<Integer, V> map = new LinkedHashMap<>(Utils.capacity(keys.length));
+    for (int i = 0; i < keys.length; i++) {
+      map.put(BoxedValues.integerAt(keys, nulls, i), valueAdapter.readFromParcel(source));
+    }
+    return map;
+  }
+
+  @Override
+  public void writeToParcel(@NonNull Map<Integer, V> value, @NonNull Parcel dest, int flags) {
+    // Collected in one pass, as keySet() and values() aren't guaranteed to iterate in the same
+    // order (e.g. for a map that is modified concurrently)
+    List<Integer> keys = new ArrayList<>(value.size());
+    List<V> values = new ArrayList<>(value.size());
+    for (Map.Entry<Integer, V> entry : value.entrySet()) {
+      keys.add(entry.getKey());
+      values.add(entry.getValue());
+    }
+    BoxedValues.writeIntegers(keys, dest);
+    for (int i = 0; i < values.size(); i++) {
+      valueAdapter.writeToParcel(values.get(i), dest, flags);
+    }
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The table of values that have already been written to (or read from) a {@link Parcel} during a
+ * single pass, used by {@link InterningAdapter} to replace repeated values with back-references.
+ * Instances of classes that track references are recorded in the same way, but by identity
+ * rather than equality.
+ *
+ * <p>A pass is delimited by {@link #begin(Parcel)} and {@link #end(Parcel)}. Nested passes over
+ * the same {@code Parcel} (e.g. a {@code PaperParcel} class that contains another) share the
+ * outermost table, so values are only written once per top-level object.</p>
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class InternTable {
+  private static final ThreadLocal<InternTable> CURRENT = new ThreadLocal<>();
+
+  @Nullable private final InternTable parent;
+  @Nullable private final Parcel parcel;
+  private int depth;
+
+  private Map<Object, Integer> indices;
+  private List<Object> values;
+
+  private Map<Object, Integer> references;
+  private List<Object> referents;
+
+  private InternTable(@Nullable InternTable parent, @Nullable Parcel parcel) {
+    this.parent = parent;
+    this.parcel = parcel;
+  }
+
+  /** Starts a pass over {@code parcel}, or joins the current pass if it is over the same one. */
+  public static void begin(@NonNull Parcel parcel) {
+    InternTable current = CURRENT.get();
+    if (current != null && current.parcel == parcel) {
+      current.depth++;
+    } else {
+      CURRENT.set(new InternTable(current, parcel));
+    }
+  }
+
+  /** Ends the pass over {@code parcel} that was started by {@link #begin(Parcel)}. */
+  public static void end(@NonNull Parcel parcel) {
+    InternTable current = CURRENT.get();
+    if (current == null || current.parcel != parcel) {
+      throw new IllegalStateException("No pass has been started for " + parcel);
+    }
+    pop(current);
+  }
+
+  /**
+   * Hides the current table until {@link #resume()} is called. This must wrap any write whose
+   * contents may be read back lazily from a different {@code Parcel}, such as a {@code Bundle},
+   * and any value that is written by code outside of this library, such as the
+   * {@code writeToParcel} method of an {@code Intent}.
+   */
+  public static void suspend() {
+    InternTable current = CURRENT.get();
+    if (current != null) {
+      CURRENT.set(new InternTable(current, null));
+    }
+  }
+
+  /** Restores the table that was hidden by {@link #suspend()}. */
+  public static void resume() {
+    InternTable current = CURRENT.get();
+    if (current != null) {
+      pop(current);
+    }
+  }
+
+  private static void pop(InternTable current) {
+    if (current.depth > 0) {
+      current.depth--;
+    } else if (current.parent != null) {
+      CURRENT.set(current.parent);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Writes a reference to {@code value} and returns true if the same instance has already been
+   * written during the current pass. Otherwise records {@code value}, writes a marker saying that
+   * it follows and returns false.
+   */
+  public static boolean writeReference(@NonNull Parcel dest, @NonNull Object value) {
+    InternTable table = get(dest);
+    if (table != null) {
+      if (table.references == null) {
+        table.references = new IdentityHashMap<>();
+      }
+      Integer reference = table.references.get(value);
+      if (reference != null) {
+        dest.writeInt(reference);
+        return true;
+      }
+      table.references.put(value, table.references.size());
+    }
+    dest.writeInt(-1);
+    return false;
+  }
+
+  /**
+   * Reserves the next reference for an instance that is being read. The instance must be set via
+   * {@link #setReference(Parcel, int, Object)} once it has been constructed.
+   */
+  public static int newReference(@NonNull Parcel source) {
+    InternTable table = require(source);
+    if (table.referents == null) {
+      table.referents = new ArrayList<>();
+    }
+    table.referents.add(null);
+    return table.referents.size() - 1;
+  }
+
+  public static void setReference(@NonNull Parcel source, int reference, @NonNull Object value) {
+    require(source).referents.set(reference, value);
+  }
+
+  /** Returns the instance that was read for {@code reference}. */
+  @NonNull public static Object getReference(@NonNull Parcel source, int reference) {
+    InternTable table = require(source);
+    if (table.referents == null || reference >= table.referents.size()) {
+      throw new IllegalStateException("Invalid reference: " + reference);
+    }
+    Object value = table.referents.get(reference);
+    if (value == null) {
+      throw new IllegalStateException("Reference " + reference + " refers to an instance that "
+          + "is still being read. Cycles can only be read through classes that have a no-arg "
+          + "constructor.");
+    }
+    return value;
+  }
+
+  private static InternTable require(@NonNull Parcel parcel) {
+    InternTable table = get(parcel);
+    if (table == null) {
+      throw new IllegalStateException("No pass has been started for " + parcel);
+    }
+    return table;
+  }
+
+  /** Returns the table for the current pass over {@code parcel}, or null if there isn't one. */
+  @Nullable static InternTable get(@NonNull Parcel parcel) {
+    InternTable current = CURRENT.get();
+    return current != null && current.parcel == parcel ? current : null;
+  }
+
+  /** Returns the index of a value previously passed to {@link #add(Object)}, or -1. */
+  int indexOf(@NonNull Object value) {
+    if (indices == null) {
+      return -1;
+    }
+    Integer index = indices.get(value);
+    return index != null ? index : -1;
+  }
+
+  @NonNull Object valueAt(int index) {
+    if (values == null || index >= values.size()) {
+      throw new IllegalStateException("Invalid back-reference: " + index);
+    }
+    return values.get(index);
+  }
+
+  /**
+   * Adds {@code value} to the table. Values must be added in the same order when writing and
+   * reading so that their indices match.
+   */
+  void add(@NonNull Object value) {
+    if (values == null) {
+      values = new ArrayList<>();
+      indices = new HashMap<>();
+    }
+    indices.put(value, values.size());
+    values.add(value);
+  }
+}
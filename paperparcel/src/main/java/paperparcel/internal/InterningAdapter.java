@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import paperparcel.TypeAdapter;
+
+/**
+ * Writes each distinct value once per {@link InternTable} pass. Later values that are equal to
+ * one that has already been written are replaced by its index in the table. Only use this for
+ * immutable types, as equal values will be read back as the same instance.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class InterningAdapter<T> implements TypeAdapter<T> {
+  private final TypeAdapter<T> adapter;
+
+  public InterningAdapter(TypeAdapter<T> adapter) {
+    this.adapter = adapter;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable @Override public T readFromParcel(@NonNull Parcel source) {
+    int index = source.readInt();
+    InternTable table = InternTable.get(source);
+    if (index >= 0) {
+      if (table == null) {
+        throw new IllegalStateException("Back-reference read outside of an InternTable pass");
+      }
+      return (T) table.valueAt(index);
+    }
+    T value = adapter.readFromParcel(source);
+    if (table != null && value != null) {
+      table.add(value);
+    }
+    return value;
+  }
+
+  @Override public void writeToParcel(@Nullable T value, @NonNull Parcel dest, int flags) {
+    InternTable table = value != null ? InternTable.get(dest) : null;
+    if (table != null) {
+      int index = table.indexOf(value);
+      if (index >= 0) {
+        dest.writeInt(index);
+        return;
+      }
+    }
+    dest.writeInt(-1);
+    adapter.writeToParcel(value, dest, flags);
+    // Added after the value has been written so that indices match the order that values
+    // finish being read in.
+    if (table != null) {
+      table.add(value);
+    }
+  }
+}
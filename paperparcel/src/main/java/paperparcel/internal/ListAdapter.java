@@ -43,11 +43,7 @@ public final class ListAdapter<T> implements TypeAdapter<List<T>> {
 
   @Override
   public void writeToParcel(@NonNull List<T> value, @NonNull Parcel dest, int flags) {
-    int size = value.size();
-    dest.writeInt(size);
-    for (int i = 0; i < size; i++) {
-      T item = value.get(i);
-      itemAdapter.writeToParcel(item, dest, flags);
-    }
+    dest.writeInt(value.size());
+    Utils.writeItems(value, itemAdapter, dest, flags);
   }
 }
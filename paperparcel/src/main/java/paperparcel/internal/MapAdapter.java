@@ -36,7 +36,7 @@ public final class MapAdapter<K, V> implements TypeAdapter<Map<K, V>> {
 
   @NonNull @Override public Map<K, V> readFromParcel(@NonNull Parcel source) {
     int size = source.readInt();
-    Map<K, V> map = new LinkedHashMap<>(size);
+    Map<K, V> map = new LinkedHashMap<>(Utils.capacity(size));
     for (int i = 0; i < size; i++) {
       map.put(keyAdapter.readFromParcel(source), valueAdapter.readFromParcel(source));
     }
@@ -46,9 +46,6 @@ public final class MapAdapter<K, V> implements TypeAdapter<Map<K, V>> {
   @Override
   public void writeToParcel(@NonNull Map<K, V> value, @NonNull Parcel dest, int flags) {
     dest.writeInt(value.size());
-    for (Map.Entry<K, V> entry : value.entrySet()) {
-      keyAdapter.writeToParcel(entry.getKey(), dest, flags);
-      valueAdapter.writeToParcel(entry.getValue(), dest, flags);
-    }
+    Utils.writeEntries(value, keyAdapter, valueAdapter, dest, flags);
   }
 }
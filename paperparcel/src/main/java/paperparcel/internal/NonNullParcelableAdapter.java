@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import paperparcel.TypeAdapter;
+
+/**
+ * A variant of {@link ParcelableAdapter} that does not write a presence flag ahead of each value.
+ * Used when the generated code tracks {@code null} values itself.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class NonNullParcelableAdapter<T extends Parcelable> implements TypeAdapter<T> {
+  private final Parcelable.Creator<T> creator;
+  private final boolean foreign;
+
+  public NonNullParcelableAdapter(@Nullable Parcelable.Creator<T> creator) {
+    this(creator, false);
+  }
+
+  /** See {@link ParcelableAdapter#ParcelableAdapter(Parcelable.Creator, boolean)}. */
+  public NonNullParcelableAdapter(@Nullable Parcelable.Creator<T> creator, boolean paperParcel) {
+    this.creator = creator;
+    this.foreign = !paperParcel;
+  }
+
+  @SuppressWarnings("ConstantConditions")
+  @NonNull @Override public T readFromParcel(@NonNull Parcel source) {
+    if (foreign) {
+      InternTable.suspend();
+    }
+    try {
+      if (creator != null) {
+        return creator.createFromParcel(source);
+      } else {
+        return source.readParcelable(NonNullParcelableAdapter.class.getClassLoader());
+      }
+    } finally {
+      if (foreign) {
+        InternTable.resume();
+      }
+    }
+  }
+
+  @Override public void writeToParcel(@NonNull T value, @NonNull Parcel dest, int flags) {
+    if (foreign) {
+      InternTable.suspend();
+    }
+    try {
+      if (creator != null) {
+        value.writeToParcel(dest, flags);
+      } else {
+        dest.writeParcelable(value, flags);
+      }
+    } finally {
+      if (foreign) {
+        InternTable.resume();
+      }
+    }
+  }
+}
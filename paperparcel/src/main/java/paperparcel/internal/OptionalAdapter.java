@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Parcel;
+
+import java.util.Optional;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+@TargetApi(Build.VERSION_CODES.N)
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class OptionalAdapter<T> implements TypeAdapter<Optional<T>> {
+  private final TypeAdapter<T> itemAdapter;
+
+  public OptionalAdapter(TypeAdapter<T> itemAdapter) {
+    this.itemAdapter = itemAdapter;
+  }
+
+  @NonNull @Override public Optional<T> readFromParcel(@NonNull Parcel source) {
+    if (source.readInt() == 1) {
+      return Optional.of(itemAdapter.readFromParcel(source));
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public void writeToParcel(@NonNull Optional<T> value, @NonNull Parcel dest, int flags) {
+    if (value.isPresent()) {
+      dest.writeInt(1);
+      itemAdapter.writeToParcel(value.get(), dest, flags);
+    } else {
+      dest.writeInt(0);
+    }
+  }
+}
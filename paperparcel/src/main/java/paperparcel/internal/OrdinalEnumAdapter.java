@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import paperparcel.TypeAdapter;
+
+/**
+ * Writes {@code enum} values as their ordinal. {@code fingerprint} is computed by the compiler
+ * from the names of the enum constants (in declaration order) and guards against the constants
+ * changing without the generated code being recompiled.
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class OrdinalEnumAdapter<T extends Enum<T>> implements TypeAdapter<T> {
+  private final T[] constants;
+
+  public OrdinalEnumAdapter(Class<T> enumClass, int fingerprint) {
+    this.constants = checkedConstants(enumClass, fingerprint);
+  }
+
+  @NonNull
+  @Override public T readFromParcel(@NonNull Parcel source) {
+    return constants[source.readInt()];
+  }
+
+  @Override public void writeToParcel(@NonNull T value, @NonNull Parcel dest, int flags) {
+    dest.writeInt(value.ordinal());
+  }
+
+  /**
+   * Returns the constants of {@code enumClass}, after checking that they match the
+   * {@code fingerprint} that the compiler computed.
+   */
+  static <T extends Enum<T>> T[] checkedConstants(Class<T> enumClass, int fingerprint) {
+    T[] constants = enumClass.getEnumConstants();
+    int actual = fingerprint(constants);
+    if (actual != fingerprint) {
+      throw new IllegalStateException("The constants of " + enumClass.getName()
+          + " have changed since PaperParcel generated its adapter (expected fingerprint "
+          + Integer.toHexString(fingerprint) + " but was " + Integer.toHexString(actual) + ")."
+          + " Rebuild the project to regenerate it.");
+    }
+    return constants;
+  }
+
+  /** Must be kept in sync with {@code paperparcel.Utils#enumConstantsFingerprint}. */
+  static int fingerprint(Enum<?>[] constants) {
+    int fingerprint = 1;
+    for (Enum<?> constant : constants) {
+      fingerprint = 31 * fingerprint + constant.name().hashCode();
+    }
+    return fingerprint;
+  }
+}
@@ -26,33 +26,66 @@ import paperparcel.TypeAdapter;
 @SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
 public final class ParcelableAdapter<T extends Parcelable> implements TypeAdapter<T> {
   private final Parcelable.Creator<T> creator;
+  private final boolean foreign;
 
   public ParcelableAdapter(@Nullable Parcelable.Creator<T> creator) {
+    this(creator, false);
+  }
+
+  /**
+   * @param paperParcel true if values are written and read by generated PaperParcel code. Values
+   *     of any other class are written by code that doesn't know about the current
+   *     {@link InternTable} pass, and may not read back in the same order (e.g. an {@code Intent}
+   *     writes its extras as a {@code Bundle}, which is unparcelled lazily from a copy of its
+   *     data). The pass is suspended around these values on both sides, so that PaperParcel
+   *     classes nested inside them start passes of their own.
+   */
+  public ParcelableAdapter(@Nullable Parcelable.Creator<T> creator, boolean paperParcel) {
     this.creator = creator;
+    this.foreign = !paperParcel;
   }
 
   @Nullable @Override public T readFromParcel(@NonNull Parcel source) {
-    if (creator != null) {
-      T result = null;
-      if (source.readInt() == 1) {
-        result = creator.createFromParcel(source);
+    if (foreign) {
+      InternTable.suspend();
+    }
+    try {
+      if (creator != null) {
+        T result = null;
+        if (source.readInt() == 1) {
+          result = creator.createFromParcel(source);
+        }
+        return result;
+      } else {
+        return source.readParcelable(ParcelableAdapter.class.getClassLoader());
+      }
+    } finally {
+      if (foreign) {
+        InternTable.resume();
       }
-      return result;
-    } else {
-      return source.readParcelable(ParcelableAdapter.class.getClassLoader());
     }
   }
 
   @Override public void writeToParcel(@Nullable T value, @NonNull Parcel dest, int flags) {
-    if (creator != null) {
-      if (value == null) {
-        dest.writeInt(0);
+    if (foreign) {
+      InternTable.suspend();
+    }
+    try {
+      if (creator != null) {
+        if (value == null) {
+          dest.writeInt(0);
+        } else {
+          dest.writeInt(1);
+          value.writeToParcel(dest, flags);
+        }
       } else {
-        dest.writeInt(1);
-        value.writeToParcel(dest, flags);
+        dest.writeParcelable(value, flags);
+      }
+    } finally {
+      if (foreign) {
+        InternTable.resume();
       }
-    } else {
-      dest.writeParcelable(value, flags);
     }
   }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Per-thread scratch buffers for writing blocks of primitive values to a {@link Parcel} in one
+ * call. {@link Parcel#writeIntArray} and {@link Parcel#writeLongArray} always write the whole
+ * array, so a reused array that is larger than the values can't be passed to them; a reused
+ * {@link ByteBuffer} can be written up to its position with {@link Parcel#writeByteArray}.
+ *
+ * <p>A buffer returned by {@link #obtain(int)} must be written before any other adapter runs,
+ * because that adapter may obtain the same buffer.</p>
+ */
+final class ScratchBuffers {
+  private static final ThreadLocal<ByteBuffer> CACHE = new ThreadLocal<>();
+  /** Buffers that would grow larger than this are not kept for reuse. */
+  private static final int MAX_CACHED_SIZE = 64 * 1024;
+
+  /** Returns an empty, native order buffer that can hold at least {@code capacity} bytes. */
+  @NonNull static ByteBuffer obtain(int capacity) {
+    if (capacity > MAX_CACHED_SIZE) {
+      return ByteBuffer.allocate(capacity).order(ByteOrder.nativeOrder());
+    }
+    ByteBuffer buffer = CACHE.get();
+    if (buffer == null || buffer.capacity() < capacity) {
+      buffer = ByteBuffer.allocate(Math.max(capacity, 256)).order(ByteOrder.nativeOrder());
+      CACHE.set(buffer);
+    }
+    buffer.clear();
+    return buffer;
+  }
+
+  /** Writes the bytes of {@code buffer} before its position to {@code dest}. */
+  static void write(@NonNull ByteBuffer buffer, @NonNull Parcel dest) {
+    dest.writeByteArray(buffer.array(), 0, buffer.position());
+  }
+
+  /** Reads a block written by {@link #write(ByteBuffer, Parcel)}. */
+  @NonNull static ByteBuffer read(@NonNull Parcel source) {
+    byte[] bytes = source.createByteArray();
+    if (bytes == null) {
+      throw new IllegalStateException("Expected a block of primitive values");
+    }
+    return ByteBuffer.wrap(bytes).order(ByteOrder.nativeOrder());
+  }
+
+  private ScratchBuffers() {
+    throw new AssertionError("No instances.");
+  }
+}
@@ -34,7 +34,7 @@ public final class SetAdapter<T> implements TypeAdapter<Set<T>> {
 
   @NonNull @Override public Set<T> readFromParcel(@NonNull Parcel source) {
     int size = source.readInt();
-    Set<T> value = new LinkedHashSet<>(size);
+    Set<T> value = new LinkedHashSet<>(Utils.capacity(size));
     for (int i = 0; i < size; i++) {
       value.add(itemAdapter.readFromParcel(source));
     }
@@ -44,8 +44,6 @@ public final class SetAdapter<T> implements TypeAdapter<Set<T>> {
   @Override
   public void writeToParcel(@NonNull Set<T> value, @NonNull Parcel dest, int flags) {
     dest.writeInt(value.size());
-    for (T item : value) {
-      itemAdapter.writeToParcel(item, dest, flags);
-    }
+    Utils.writeItems(value, itemAdapter, dest, flags);
   }
 }
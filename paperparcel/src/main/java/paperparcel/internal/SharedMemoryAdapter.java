@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Parcel;
+import android.os.SharedMemory;
+import android.system.ErrnoException;
+import android.system.OsConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import paperparcel.TypeAdapter;
+
+/**
+ * Moves the encoded form of values that take up at least {@code threshold} bytes into an
+ * anonymous {@link SharedMemory} region, and writes the region's file descriptor in their place.
+ * Smaller values are written as-is, after a single {@code int} flag. {@code null} is written as a
+ * flag of -1, so the wrapped adapter is only passed non-null values.
+ *
+ * <p>Primitive arrays written by the built-in array adapters are copied straight into the region
+ * and read straight back out of it. Other values are encoded into a scratch {@code Parcel} once,
+ * and its marshalled bytes are copied into the region.</p>
+ *
+ * <p>Values are always written as-is below API 27, when they cannot be copied out of the
+ * {@code Parcel} (e.g. because they contain binders or file descriptors), or when the
+ * {@code Parcel} doesn't allow file descriptors (e.g. Intent extras and saved instance
+ * state).</p>
+ */
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class SharedMemoryAdapter<T> implements TypeAdapter<T> {
+  private static final String REGION_NAME = "paperparcel";
+
+  private final TypeAdapter<T> adapter;
+  private final int threshold;
+  /** True when values are primitive arrays that are copied into the region without encoding. */
+  private final boolean primitiveArray;
+
+  public SharedMemoryAdapter(TypeAdapter<T> adapter, int threshold) {
+    this.adapter = adapter;
+    this.threshold = threshold;
+    this.primitiveArray = isPrimitiveArrayAdapter(adapter);
+  }
+
+  @Nullable @Override public T readFromParcel(@NonNull Parcel source) {
+    int length = source.readInt();
+    if (length < 0) {
+      return null;
+    }
+    // Shared values are read from a copy, so can't refer back to values outside of them
+    InternTable.suspend();
+    try {
+      if (length == 0) {
+        return adapter.readFromParcel(source);
+      }
+      return readShared(source, length);
+    } finally {
+      InternTable.resume();
+    }
+  }
+
+  @Override public void writeToParcel(@Nullable T value, @NonNull Parcel dest, int flags) {
+    if (value == null) {
+      dest.writeInt(-1);
+      return;
+    }
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O_MR1) {
+      dest.writeInt(0);
+      writeInline(value, dest, flags);
+    } else if (primitiveArray) {
+      int length = byteCount(value);
+      SharedMemory memory = length >= threshold ? share(value, length) : null;
+      if (memory == null || !writeShared(memory, length, dest, flags)) {
+        dest.writeInt(0);
+        writeInline(value, dest, flags);
+      }
+    } else {
+      Parcel scratch = Parcel.obtain();
+      try {
+        writeInline(value, scratch, flags);
+        int length = scratch.dataSize();
+        SharedMemory memory = null;
+        if (length >= threshold) {
+          byte[] data = marshall(scratch);
+          if (data != null) {
+            memory = share(data, length);
+          }
+        }
+        if (memory == null || !writeShared(memory, length, dest, flags)) {
+          dest.writeInt(0);
+          dest.appendFrom(scratch, 0, length);
+        }
+      } finally {
+        scratch.recycle();
+      }
+    }
+  }
+
+  private void writeInline(T value, Parcel dest, int flags) {
+    InternTable.suspend();
+    try {
+      adapter.writeToParcel(value, dest, flags);
+    } finally {
+      InternTable.resume();
+    }
+  }
+
+  /**
+   * Writes {@code length} and {@code memory} to {@code dest}, and closes {@code memory}. Returns
+   * false, leaving {@code dest} as it was, if {@code dest} doesn't allow file descriptors.
+   */
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  private static boolean writeShared(SharedMemory memory, int length, Parcel dest, int flags) {
+    int flagPosition = dest.dataPosition();
+    try {
+      // The Parcel keeps its own duplicate of the file descriptor, so the region can be closed
+      // once it is written
+      dest.writeInt(length);
+      memory.writeToParcel(dest, flags);
+      return true;
+    } catch (RuntimeException e) {
+      // Thrown when the Parcel doesn't allow file descriptors, e.g. when it holds Intent
+      // extras or saved instance state
+      dest.setDataPosition(flagPosition);
+      dest.setDataSize(flagPosition);
+      return false;
+    } finally {
+      memory.close();
+    }
+  }
+
+  /** Returns the marshalled contents of {@code parcel}, or null if they can't be marshalled. */
+  @Nullable private static byte[] marshall(Parcel parcel) {
+    try {
+      return parcel.marshall();
+    } catch (RuntimeException e) {
+      // Thrown when the value contains active objects such as binders
+      return null;
+    }
+  }
+
+  /**
+   * Returns a shared memory region that holds a copy of {@code array}, which takes up
+   * {@code length} bytes, or null if the region can't be created.
+   */
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  @Nullable private static SharedMemory share(Object array, int length) {
+    SharedMemory memory;
+    try {
+      memory = SharedMemory.create(REGION_NAME, length);
+    } catch (ErrnoException e) {
+      return null;
+    }
+    ByteBuffer buffer = null;
+    try {
+      buffer = memory.mapReadWrite();
+      put(buffer.order(ByteOrder.nativeOrder()), array);
+      // Readers only need to map the region, not modify it
+      memory.setProtect(OsConstants.PROT_READ);
+      return memory;
+    } catch (ErrnoException e) {
+      memory.close();
+      return null;
+    } finally {
+      if (buffer != null) {
+        SharedMemory.unmap(buffer);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @TargetApi(Build.VERSION_CODES.O_MR1)
+  private T readShared(Parcel source, int length) {
+    SharedMemory memory = SharedMemory.CREATOR.createFromParcel(source);
+    try {
+      ByteBuffer buffer = memory.mapReadOnly();
+      try {
+        if (buffer.remaining() < length) {
+          throw new IllegalStateException(
+              "Expected " + length + " bytes but the shared region holds " + buffer.remaining());
+        }
+        buffer.order(ByteOrder.nativeOrder());
+        if (primitiveArray) {
+          return (T) get(buffer, adapter, length);
+        }
+        byte[] data = new byte[length];
+        buffer.get(data);
+        Parcel parcel = Parcel.obtain();
+        try {
+          parcel.unmarshall(data, 0, data.length);
+          parcel.setDataPosition(0);
+          return adapter.readFromParcel(parcel);
+        } finally {
+          parcel.recycle();
+        }
+      } finally {
+        SharedMemory.unmap(buffer);
+      }
+    } catch (ErrnoException e) {
+      throw new IllegalStateException("Could not map shared value", e);
+    } finally {
+      memory.close();
+    }
+  }
+
+  private static boolean isPrimitiveArrayAdapter(TypeAdapter<?> adapter) {
+    return adapter == StaticAdapters.BOOLEAN_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_BOOLEAN_ARRAY_ADAPTER
+        || adapter == StaticAdapters.BYTE_ARRAY_ADAPTER
+        || adapter == StaticAdapters.CHAR_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_CHAR_ARRAY_ADAPTER
+        || adapter == StaticAdapters.SHORT_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_SHORT_ARRAY_ADAPTER
+        || adapter == StaticAdapters.INT_ARRAY_ADAPTER
+        || adapter == StaticAdapters.LONG_ARRAY_ADAPTER
+        || adapter == StaticAdapters.FLOAT_ARRAY_ADAPTER
+        || adapter == StaticAdapters.DOUBLE_ARRAY_ADAPTER;
+  }
+
+  /** Returns the number of bytes that the primitive array {@code array} takes up. */
+  private static int byteCount(Object array) {
+    if (array instanceof boolean[]) {
+      return ((boolean[]) array).length;
+    } else if (array instanceof byte[]) {
+      return ((byte[]) array).length;
+    } else if (array instanceof char[]) {
+      return ((char[]) array).length * 2;
+    } else if (array instanceof short[]) {
+      return ((short[]) array).length * 2;
+    } else if (array instanceof int[]) {
+      return ((int[]) array).length * 4;
+    } else if (array instanceof long[]) {
+      return ((long[]) array).length * 8;
+    } else if (array instanceof float[]) {
+      return ((float[]) array).length * 4;
+    } else {
+      return ((double[]) array).length * 8;
+    }
+  }
+
+  private static void put(ByteBuffer buffer, Object array) {
+    if (array instanceof boolean[]) {
+      for (boolean value : (boolean[]) array) {
+        buffer.put(value ? (byte) 1 : (byte) 0);
+      }
+    } else if (array instanceof byte[]) {
+      buffer.put((byte[]) array);
+    } else if (array instanceof char[]) {
+      buffer.asCharBuffer().put((char[]) array);
+    } else if (array instanceof short[]) {
+      buffer.asShortBuffer().put((short[]) array);
+    } else if (array instanceof int[]) {
+      buffer.asIntBuffer().put((int[]) array);
+    } else if (array instanceof long[]) {
+      buffer.asLongBuffer().put((long[]) array);
+    } else if (array instanceof float[]) {
+      buffer.asFloatBuffer().put((float[]) array);
+    } else {
+      buffer.asDoubleBuffer().put((double[]) array);
+    }
+  }
+
+  /** Reads the array written by {@link #put} from {@code length} bytes of {@code buffer}. */
+  private static Object get(ByteBuffer buffer, TypeAdapter<?> adapter, int length) {
+    if (adapter == StaticAdapters.BOOLEAN_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_BOOLEAN_ARRAY_ADAPTER) {
+      boolean[] array = new boolean[length];
+      for (int i = 0; i < length; i++) {
+        array[i] = buffer.get() != 0;
+      }
+      return array;
+    } else if (adapter == StaticAdapters.BYTE_ARRAY_ADAPTER) {
+      byte[] array = new byte[length];
+      buffer.get(array);
+      return array;
+    } else if (adapter == StaticAdapters.CHAR_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_CHAR_ARRAY_ADAPTER) {
+      char[] array = new char[length / 2];
+      buffer.asCharBuffer().get(array);
+      return array;
+    } else if (adapter == StaticAdapters.SHORT_ARRAY_ADAPTER
+        || adapter == StaticAdapters.PACKED_SHORT_ARRAY_ADAPTER) {
+      short[] array = new short[length / 2];
+      buffer.asShortBuffer().get(array);
+      return array;
+    } else if (adapter == StaticAdapters.INT_ARRAY_ADAPTER) {
+      int[] array = new int[length / 4];
+      buffer.asIntBuffer().get(array);
+      return array;
+    } else if (adapter == StaticAdapters.LONG_ARRAY_ADAPTER) {
+      long[] array = new long[length / 8];
+      buffer.asLongBuffer().get(array);
+      return array;
+    } else if (adapter == StaticAdapters.FLOAT_ARRAY_ADAPTER) {
+      float[] array = new float[length / 4];
+      buffer.asFloatBuffer().get(array);
+      return array;
+    } else {
+      double[] array = new double[length / 8];
+      buffer.asDoubleBuffer().get(array);
+      return array;
+    }
+  }
+}
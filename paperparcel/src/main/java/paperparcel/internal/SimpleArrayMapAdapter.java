@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016 Bradley Campbell.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package paperparcel.internal;
+
+import android.os.Parcel;
+
+import androidx.annotation.NonNull;
+import androidx.collection.SimpleArrayMap;
+import paperparcel.TypeAdapter;
+
+@SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
+public final class SimpleArrayMapAdapter<K, V> implements TypeAdapter<SimpleArrayMap<K, V>> {
+  private final TypeAdapter<K> keyAdapter;
+  private final TypeAdapter<V> valueAdapter;
+
+  public SimpleArrayMapAdapter(TypeAdapter<K> keyAdapter, TypeAdapter<V> valueAdapter) {
+    this.keyAdapter = keyAdapter;
+    this.valueAdapter = valueAdapter;
+  }
+
+  @NonNull @Override public SimpleArrayMap<K, V> readFromParcel(@NonNull Parcel source) {
+    int size = source.readInt();
+    SimpleArrayMap<K, V> value = new SimpleArrayMap<>(size);
+    for (int i = 0; i < size; i++) {
+      K key = keyAdapter.readFromParcel(source);
+      value.put(key, valueAdapter.readFromParcel(source));
+    }
+    return value;
+  }
+
+  @Override
+  public void writeToParcel(@NonNull SimpleArrayMap<K, V> value, @NonNull Parcel dest, int flags) {
+    int size = value.size();
+    dest.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      keyAdapter.writeToParcel(value.keyAt(i), dest, flags);
+      valueAdapter.writeToParcel(value.valueAt(i), dest, flags);
+    }
+  }
+}
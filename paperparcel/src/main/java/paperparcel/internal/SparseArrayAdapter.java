@@ -34,7 +34,8 @@ public final class SparseArrayAdapter<T> implements TypeAdapter<SparseArray<T>>
     int size = source.readInt();
     SparseArray<T> sparseArray = new SparseArray<>(size);
     for (int i = 0; i < size; i++) {
-      sparseArray.put(source.readInt(), itemAdapter.readFromParcel(source));
+      // Keys are written in ascending order, so append never needs to search.
+      sparseArray.append(source.readInt(), itemAdapter.readFromParcel(source));
     }
     return sparseArray;
   }
@@ -43,9 +44,8 @@ public final class SparseArrayAdapter<T> implements TypeAdapter<SparseArray<T>>
     int size = value.size();
     dest.writeInt(size);
     for (int i = 0; i < size; i++) {
-      int key = value.keyAt(i);
-      dest.writeInt(key);
-      itemAdapter.writeToParcel(value.get(key), dest, flags);
+      dest.writeInt(value.keyAt(i));
+      itemAdapter.writeToParcel(value.valueAt(i), dest, flags);
     }
   }
 }
@@ -1,6 +1,12 @@
 package paperparcel.internal;
 
 import android.annotation.TargetApi;
+import android.content.ComponentName;
+import android.graphics.Point;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.IBinder;
@@ -10,9 +16,32 @@ import android.text.TextUtils;
 import android.util.Size;
 import android.util.SizeF;
 import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+import android.util.SparseLongArray;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import paperparcel.ByteRange;
 import paperparcel.TypeAdapter;
 
 @SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
@@ -98,6 +127,252 @@ public final class StaticAdapters {
     }
   };
 
+  public static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER =
+      new TypeAdapter<List<Integer>>() {
+        @NonNull @Override public List<Integer> readFromParcel(@NonNull Parcel source) {
+          int[] values = BoxedValues.readInts(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          List<Integer> value = new ArrayList<>(values.length);
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.integerAt(values, nulls, i));
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull List<Integer> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeIntegers(value, dest);
+        }
+      };
+
+  /** Reads the same format as {@link #INTEGER_LIST_ADAPTER}, into a compact unmodifiable list. */
+  public static final TypeAdapter<List<Integer>> COMPACT_INTEGER_LIST_ADAPTER =
+      new TypeAdapter<List<Integer>>() {
+        @NonNull @Override public List<Integer> readFromParcel(@NonNull Parcel source) {
+          int[] values = BoxedValues.readInts(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          if (values.length == 0) {
+            return Collections.emptyList();
+          }
+          Object[] items = new Object[values.length];
+          for (int i = 0; i < values.length; i++) {
+            items[i] = BoxedValues.integerAt(values, nulls, i);
+          }
+          return CompactCollections.asList(items);
+        }
+
+        @Override
+        public void writeToParcel(@NonNull List<Integer> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeIntegers(value, dest);
+        }
+      };
+
+  public static final TypeAdapter<Set<Integer>> INTEGER_SET_ADAPTER =
+      new TypeAdapter<Set<Integer>>() {
+        @NonNull @Override public Set<Integer> readFromParcel(@NonNull Parcel source) {
+          int[] values = BoxedValues.readInts(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          Set<Integer> value = new LinkedHashSet<>(Utils.capacity(values.length));
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.integerAt(values, nulls, i));
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Set<Integer> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeIntegers(value, dest);
+        }
+      };
+
+  /** Reads the same format as {@link #INTEGER_SET_ADAPTER}, into a compact unmodifiable set. */
+  public static final TypeAdapter<Set<Integer>> COMPACT_INTEGER_SET_ADAPTER =
+      new TypeAdapter<Set<Integer>>() {
+        @NonNull @Override public Set<Integer> readFromParcel(@NonNull Parcel source) {
+          int[] values = BoxedValues.readInts(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          if (values.length == 0) {
+            return Collections.emptySet();
+          }
+          Set<Integer> value = CompactCollections.newSet(values.length);
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.integerAt(values, nulls, i));
+          }
+          return Collections.unmodifiableSet(value);
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Set<Integer> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeIntegers(value, dest);
+        }
+      };
+
+  public static final TypeAdapter<Integer[]> BOXED_INTEGER_ARRAY_ADAPTER =
+      new TypeAdapter<Integer[]>() {
+        @NonNull @Override public Integer[] readFromParcel(@NonNull Parcel source) {
+          int[] values = BoxedValues.readInts(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          Integer[] value = new Integer[values.length];
+          for (int i = 0; i < values.length; i++) {
+            value[i] = BoxedValues.integerAt(values, nulls, i);
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Integer[] value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeIntegers(Arrays.asList(value), dest);
+        }
+      };
+
+  public static final TypeAdapter<List<Long>> LONG_LIST_ADAPTER =
+      new TypeAdapter<List<Long>>() {
+        @NonNull @Override public List<Long> readFromParcel(@NonNull Parcel source) {
+          long[] values = BoxedValues.readLongs(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          List<Long> value = new ArrayList<>(values.length);
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.longAt(values, nulls, i));
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull List<Long> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeLongs(value, dest);
+        }
+      };
+
+  /** Reads the same format as {@link #LONG_LIST_ADAPTER}, into a compact unmodifiable list. */
+  public static final TypeAdapter<List<Long>> COMPACT_LONG_LIST_ADAPTER =
+      new TypeAdapter<List<Long>>() {
+        @NonNull @Override public List<Long> readFromParcel(@NonNull Parcel source) {
+          long[] values = BoxedValues.readLongs(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          if (values.length == 0) {
+            return Collections.emptyList();
+          }
+          Object[] items = new Object[values.length];
+          for (int i = 0; i < values.length; i++) {
+            items[i] = BoxedValues.longAt(values, nulls, i);
+          }
+          return CompactCollections.asList(items);
+        }
+
+        @Override
+        public void writeToParcel(@NonNull List<Long> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeLongs(value, dest);
+        }
+      };
+
+  public static final TypeAdapter<Set<Long>> LONG_SET_ADAPTER =
+      new TypeAdapter<Set<Long>>() {
+        @NonNull @Override public Set<Long> readFromParcel(@NonNull Parcel source) {
+          long[] values = BoxedValues.readLongs(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          Set<Long> value = new LinkedHashSet<>(Utils.capacity(values.length));
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.longAt(values, nulls, i));
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Set<Long> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeLongs(value, dest);
+        }
+      };
+
+  /** Reads the same format as {@link #LONG_SET_ADAPTER}, into a compact unmodifiable set. */
+  public static final TypeAdapter<Set<Long>> COMPACT_LONG_SET_ADAPTER =
+      new TypeAdapter<Set<Long>>() {
+        @NonNull @Override public Set<Long> readFromParcel(@NonNull Parcel source) {
+          long[] values = BoxedValues.readLongs(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          if (values.length == 0) {
+            return Collections.emptySet();
+          }
+          Set<Long> value = CompactCollections.newSet(values.length);
+          for (int i = 0; i < values.length; i++) {
+            value.add(BoxedValues.longAt(values, nulls, i));
+          }
+          return Collections.unmodifiableSet(value);
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Set<Long> value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeLongs(value, dest);
+        }
+      };
+
+  public static final TypeAdapter<Long[]> BOXED_LONG_ARRAY_ADAPTER =
+      new TypeAdapter<Long[]>() {
+        @NonNull @Override public Long[] readFromParcel(@NonNull Parcel source) {
+          long[] values = BoxedValues.readLongs(source);
+          int[] nulls = BoxedValues.readNulls(source);
+          Long[] value = new Long[values.length];
+          for (int i = 0; i < values.length; i++) {
+            value[i] = BoxedValues.longAt(values, nulls, i);
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull Long[] value, @NonNull Parcel dest, int flags) {
+          BoxedValues.writeLongs(Arrays.asList(value), dest);
+        }
+      };
+
+  public static final TypeAdapter<AtomicInteger> ATOMIC_INTEGER_ADAPTER =
+      new TypeAdapter<AtomicInteger>() {
+        @NonNull @Override public AtomicInteger readFromParcel(@NonNull Parcel source) {
+          return new AtomicInteger(source.readInt());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull AtomicInteger value, @NonNull Parcel dest, int flags) {
+          dest.writeInt(value.get());
+        }
+      };
+
+  public static final TypeAdapter<AtomicLong> ATOMIC_LONG_ADAPTER =
+      new TypeAdapter<AtomicLong>() {
+        @NonNull @Override public AtomicLong readFromParcel(@NonNull Parcel source) {
+          return new AtomicLong(source.readLong());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull AtomicLong value, @NonNull Parcel dest, int flags) {
+          dest.writeLong(value.get());
+        }
+      };
+
+  public static final TypeAdapter<BigDecimal> BIG_DECIMAL_ADAPTER =
+      new TypeAdapter<BigDecimal>() {
+        @NonNull @Override public BigDecimal readFromParcel(@NonNull Parcel source) {
+          BigInteger unscaledValue = new BigInteger(source.createByteArray());
+          return new BigDecimal(unscaledValue, source.readInt());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull BigDecimal value, @NonNull Parcel dest, int flags) {
+          dest.writeByteArray(value.unscaledValue().toByteArray());
+          dest.writeInt(value.scale());
+        }
+      };
+
+  public static final TypeAdapter<BigInteger> BIG_INTEGER_ADAPTER =
+      new TypeAdapter<BigInteger>() {
+        @NonNull @Override public BigInteger readFromParcel(@NonNull Parcel source) {
+          return new BigInteger(source.createByteArray());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull BigInteger value, @NonNull Parcel dest, int flags) {
+          dest.writeByteArray(value.toByteArray());
+        }
+      };
+
   public static final TypeAdapter<boolean[]> BOOLEAN_ARRAY_ADAPTER =
       new TypeAdapter<boolean[]>() {
         @Nullable @Override public boolean[] readFromParcel(@NonNull Parcel source) {
@@ -115,7 +390,14 @@ public final class StaticAdapters {
     }
 
     @Override public void writeToParcel(@Nullable Bundle value, @NonNull Parcel dest, int flags) {
-      dest.writeBundle(value);
+      // Bundles are unparcelled lazily from a copy of their data, so their contents can't refer
+      // back to values written outside of them.
+      InternTable.suspend();
+      try {
+        dest.writeBundle(value);
+      } finally {
+        InternTable.resume();
+      }
     }
   };
 
@@ -129,6 +411,48 @@ public final class StaticAdapters {
     }
   };
 
+  /**
+   * Writes the remaining bytes of a buffer. Heap buffers are written straight from their backing
+   * array; read-only and direct buffers are copied first, as their contents can't be reached
+   * any other way. Buffers are read back as heap buffers that wrap the read array.
+   */
+  public static final TypeAdapter<ByteBuffer> BYTE_BUFFER_ADAPTER = new TypeAdapter<ByteBuffer>() {
+    @NonNull @Override public ByteBuffer readFromParcel(@NonNull Parcel source) {
+      byte[] bytes = source.createByteArray();
+      if (bytes == null) {
+        throw new IllegalStateException("Expected a byte[]");
+      }
+      return ByteBuffer.wrap(bytes);
+    }
+
+    @Override
+    public void writeToParcel(@NonNull ByteBuffer value, @NonNull Parcel dest, int flags) {
+      if (value.hasArray()) {
+        dest.writeByteArray(
+            value.array(), value.arrayOffset() + value.position(), value.remaining());
+      } else {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+        dest.writeByteArray(bytes);
+      }
+    }
+  };
+
+  public static final TypeAdapter<ByteRange> BYTE_RANGE_ADAPTER = new TypeAdapter<ByteRange>() {
+    @NonNull @Override public ByteRange readFromParcel(@NonNull Parcel source) {
+      byte[] bytes = source.createByteArray();
+      if (bytes == null) {
+        throw new IllegalStateException("Expected a byte[]");
+      }
+      return ByteRange.wrap(bytes);
+    }
+
+    @Override
+    public void writeToParcel(@NonNull ByteRange value, @NonNull Parcel dest, int flags) {
+      dest.writeByteArray(value.array(), value.offset(), value.length());
+    }
+  };
+
   public static final TypeAdapter<char[]> CHAR_ARRAY_ADAPTER = new TypeAdapter<char[]>() {
     @Nullable @Override public char[] readFromParcel(@NonNull Parcel source) {
       return source.createCharArray();
@@ -150,6 +474,30 @@ public final class StaticAdapters {
         }
       };
 
+  public static final TypeAdapter<ComponentName> COMPONENT_NAME_ADAPTER =
+      new TypeAdapter<ComponentName>() {
+        @NonNull @Override public ComponentName readFromParcel(@NonNull Parcel source) {
+          String packageName = source.readString();
+          return new ComponentName(packageName, source.readString());
+        }
+
+        @Override
+        public void writeToParcel(@NonNull ComponentName value, @NonNull Parcel dest, int flags) {
+          dest.writeString(value.getPackageName());
+          dest.writeString(value.getClassName());
+        }
+      };
+
+  public static final TypeAdapter<Date> DATE_ADAPTER = new TypeAdapter<Date>() {
+    @NonNull @Override public Date readFromParcel(@NonNull Parcel source) {
+      return new Date(source.readLong());
+    }
+
+    @Override public void writeToParcel(@NonNull Date value, @NonNull Parcel dest, int flags) {
+      dest.writeLong(value.getTime());
+    }
+  };
+
   public static final TypeAdapter<double[]> DOUBLE_ARRAY_ADAPTER =
       new TypeAdapter<double[]>() {
         @Nullable @Override public double[] readFromParcel(@NonNull Parcel source) {
@@ -161,6 +509,20 @@ public final class StaticAdapters {
         }
       };
 
+  public static final TypeAdapter<Duration> DURATION_ADAPTER = new TypeAdapter<Duration>() {
+    @TargetApi(Build.VERSION_CODES.O)
+    @NonNull @Override public Duration readFromParcel(@NonNull Parcel source) {
+      long seconds = source.readLong();
+      return Duration.ofSeconds(seconds, source.readInt());
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    @Override public void writeToParcel(@NonNull Duration value, @NonNull Parcel dest, int flags) {
+      dest.writeLong(value.getSeconds());
+      dest.writeInt(value.getNano());
+    }
+  };
+
   public static final TypeAdapter<float[]> FLOAT_ARRAY_ADAPTER = new TypeAdapter<float[]>() {
     @Nullable @Override public float[] readFromParcel(@NonNull Parcel source) {
       return source.createFloatArray();
@@ -181,6 +543,20 @@ public final class StaticAdapters {
     }
   };
 
+  public static final TypeAdapter<Instant> INSTANT_ADAPTER = new TypeAdapter<Instant>() {
+    @TargetApi(Build.VERSION_CODES.O)
+    @NonNull @Override public Instant readFromParcel(@NonNull Parcel source) {
+      long epochSecond = source.readLong();
+      return Instant.ofEpochSecond(epochSecond, source.readInt());
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    @Override public void writeToParcel(@NonNull Instant value, @NonNull Parcel dest, int flags) {
+      dest.writeLong(value.getEpochSecond());
+      dest.writeInt(value.getNano());
+    }
+  };
+
   public static final TypeAdapter<int[]> INT_ARRAY_ADAPTER = new TypeAdapter<int[]>() {
     @Nullable @Override public int[] readFromParcel(@NonNull Parcel source) {
       return source.createIntArray();
@@ -191,6 +567,18 @@ public final class StaticAdapters {
     }
   };
 
+  public static final TypeAdapter<LocalDate> LOCAL_DATE_ADAPTER = new TypeAdapter<LocalDate>() {
+    @TargetApi(Build.VERSION_CODES.O)
+    @NonNull @Override public LocalDate readFromParcel(@NonNull Parcel source) {
+      return LocalDate.ofEpochDay(source.readLong());
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    @Override public void writeToParcel(@NonNull LocalDate value, @NonNull Parcel dest, int flags) {
+      dest.writeLong(value.toEpochDay());
+    }
+  };
+
   public static final TypeAdapter<long[]> LONG_ARRAY_ADAPTER = new TypeAdapter<long[]>() {
     @Nullable @Override public long[] readFromParcel(@NonNull Parcel source) {
       return source.createLongArray();
@@ -201,6 +589,179 @@ public final class StaticAdapters {
     }
   };
 
+  public static final TypeAdapter<OptionalDouble> OPTIONAL_DOUBLE_ADAPTER =
+      new TypeAdapter<OptionalDouble>() {
+        @TargetApi(Build.VERSION_CODES.N)
+        @NonNull @Override public OptionalDouble readFromParcel(@NonNull Parcel source) {
+          return source.readInt() == 1
+              ? OptionalDouble.of(source.readDouble())
+              : OptionalDouble.empty();
+        }
+
+        @TargetApi(Build.VERSION_CODES.N)
+        @Override
+        public void writeToParcel(@NonNull OptionalDouble value, @NonNull Parcel dest, int flags) {
+          if (value.isPresent()) {
+            dest.writeInt(1);
+            dest.writeDouble(value.getAsDouble());
+          } else {
+            dest.writeInt(0);
+          }
+        }
+      };
+
+  public static final TypeAdapter<OptionalInt> OPTIONAL_INT_ADAPTER =
+      new TypeAdapter<OptionalInt>() {
+        @TargetApi(Build.VERSION_CODES.N)
+        @NonNull @Override public OptionalInt readFromParcel(@NonNull Parcel source) {
+          return source.readInt() == 1
+              ? OptionalInt.of(source.readInt())
+              : OptionalInt.empty();
+        }
+
+        @TargetApi(Build.VERSION_CODES.N)
+        @Override
+        public void writeToParcel(@NonNull OptionalInt value, @NonNull Parcel dest, int flags) {
+          if (value.isPresent()) {
+            dest.writeInt(1);
+            dest.writeInt(value.getAsInt());
+          } else {
+            dest.writeInt(0);
+          }
+        }
+      };
+
+  public static final TypeAdapter<OptionalLong> OPTIONAL_LONG_ADAPTER =
+      new TypeAdapter<OptionalLong>() {
+        @TargetApi(Build.VERSION_CODES.N)
+        @NonNull @Override public OptionalLong readFromParcel(@NonNull Parcel source) {
+          return source.readInt() == 1
+              ? OptionalLong.of(source.readLong())
+              : OptionalLong.empty();
+        }
+
+        @TargetApi(Build.VERSION_CODES.N)
+        @Override
+        public void writeToParcel(@NonNull OptionalLong value, @NonNull Parcel dest, int flags) {
+          if (value.isPresent()) {
+            dest.writeInt(1);
+            dest.writeLong(value.getAsLong());
+          } else {
+            dest.writeInt(0);
+          }
+        }
+      };
+
+  public static final TypeAdapter<boolean[]> PACKED_BOOLEAN_ARRAY_ADAPTER =
+      new TypeAdapter<boolean[]>() {
+        @Nullable @Override public boolean[] readFromParcel(@NonNull Parcel source) {
+          int size = source.readInt();
+          if (size < 0) {
+            return null;
+          }
+          boolean[] value = new boolean[size];
+          for (int i = 0; i < size; i += Integer.SIZE) {
+            int word = source.readInt();
+            int end = Math.min(size, i + Integer.SIZE);
+            for (int j = i; j < end; j++) {
+              value[j] = (word & (1 << (j - i))) != 0;
+            }
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@Nullable boolean[] value, @NonNull Parcel dest, int flags) {
+          if (value == null) {
+            dest.writeInt(-1);
+            return;
+          }
+          dest.writeInt(value.length);
+          for (int i = 0; i < value.length; i += Integer.SIZE) {
+            int word = 0;
+            int end = Math.min(value.length, i + Integer.SIZE);
+            for (int j = i; j < end; j++) {
+              if (value[j]) {
+                word |= 1 << (j - i);
+              }
+            }
+            dest.writeInt(word);
+          }
+        }
+      };
+
+  public static final TypeAdapter<char[]> PACKED_CHAR_ARRAY_ADAPTER = new TypeAdapter<char[]>() {
+    @Nullable @Override public char[] readFromParcel(@NonNull Parcel source) {
+      int size = source.readInt();
+      if (size < 0) {
+        return null;
+      }
+      char[] value = new char[size];
+      int i = 0;
+      for (; i + 1 < size; i += 2) {
+        int word = source.readInt();
+        value[i] = (char) word;
+        value[i + 1] = (char) (word >>> 16);
+      }
+      if (i < size) {
+        value[i] = (char) source.readInt();
+      }
+      return value;
+    }
+
+    @Override public void writeToParcel(@Nullable char[] value, @NonNull Parcel dest, int flags) {
+      if (value == null) {
+        dest.writeInt(-1);
+        return;
+      }
+      dest.writeInt(value.length);
+      int i = 0;
+      for (; i + 1 < value.length; i += 2) {
+        dest.writeInt(value[i] | value[i + 1] << 16);
+      }
+      if (i < value.length) {
+        dest.writeInt(value[i]);
+      }
+    }
+  };
+
+  public static final TypeAdapter<short[]> PACKED_SHORT_ARRAY_ADAPTER =
+      new TypeAdapter<short[]>() {
+        @Nullable @Override public short[] readFromParcel(@NonNull Parcel source) {
+          int size = source.readInt();
+          if (size < 0) {
+            return null;
+          }
+          short[] value = new short[size];
+          int i = 0;
+          for (; i + 1 < size; i += 2) {
+            int word = source.readInt();
+            value[i] = (short) word;
+            value[i + 1] = (short) (word >>> 16);
+          }
+          if (i < size) {
+            value[i] = (short) source.readInt();
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@Nullable short[] value, @NonNull Parcel dest, int flags) {
+          if (value == null) {
+            dest.writeInt(-1);
+            return;
+          }
+          dest.writeInt(value.length);
+          int i = 0;
+          for (; i + 1 < value.length; i += 2) {
+            dest.writeInt((value[i] & 0xffff) | value[i + 1] << 16);
+          }
+          if (i < value.length) {
+            dest.writeInt(value[i]);
+          }
+        }
+      };
+
   public static final TypeAdapter<PersistableBundle> PERSISTABLE_BUNDLE_ADAPTER =
       new TypeAdapter<PersistableBundle>() {
         @TargetApi(Build.VERSION_CODES.LOLLIPOP)
@@ -210,10 +771,76 @@ public final class StaticAdapters {
 
         @TargetApi(Build.VERSION_CODES.LOLLIPOP)
         @Override public void writeToParcel(@Nullable PersistableBundle value, @NonNull Parcel dest, int flags) {
-          dest.writePersistableBundle(value);
+          // Unparcelled lazily, like a Bundle
+          InternTable.suspend();
+          try {
+            dest.writePersistableBundle(value);
+          } finally {
+            InternTable.resume();
+          }
         }
       };
 
+  public static final TypeAdapter<Point> POINT_ADAPTER = new TypeAdapter<Point>() {
+    @NonNull @Override public Point readFromParcel(@NonNull Parcel source) {
+      int x = source.readInt();
+      return new Point(x, source.readInt());
+    }
+
+    @Override public void writeToParcel(@NonNull Point value, @NonNull Parcel dest, int flags) {
+      dest.writeInt(value.x);
+      dest.writeInt(value.y);
+    }
+  };
+
+  public static final TypeAdapter<PointF> POINT_F_ADAPTER = new TypeAdapter<PointF>() {
+    @NonNull @Override public PointF readFromParcel(@NonNull Parcel source) {
+      float x = source.readFloat();
+      return new PointF(x, source.readFloat());
+    }
+
+    @Override public void writeToParcel(@NonNull PointF value, @NonNull Parcel dest, int flags) {
+      dest.writeFloat(value.x);
+      dest.writeFloat(value.y);
+    }
+  };
+
+  public static final TypeAdapter<Rect> RECT_ADAPTER = new TypeAdapter<Rect>() {
+    @NonNull @Override public Rect readFromParcel(@NonNull Parcel source) {
+      Rect value = new Rect();
+      value.left = source.readInt();
+      value.top = source.readInt();
+      value.right = source.readInt();
+      value.bottom = source.readInt();
+      return value;
+    }
+
+    @Override public void writeToParcel(@NonNull Rect value, @NonNull Parcel dest, int flags) {
+      dest.writeInt(value.left);
+      dest.writeInt(value.top);
+      dest.writeInt(value.right);
+      dest.writeInt(value.bottom);
+    }
+  };
+
+  public static final TypeAdapter<RectF> RECT_F_ADAPTER = new TypeAdapter<RectF>() {
+    @NonNull @Override public RectF readFromParcel(@NonNull Parcel source) {
+      RectF value = new RectF();
+      value.left = source.readFloat();
+      value.top = source.readFloat();
+      value.right = source.readFloat();
+      value.bottom = source.readFloat();
+      return value;
+    }
+
+    @Override public void writeToParcel(@NonNull RectF value, @NonNull Parcel dest, int flags) {
+      dest.writeFloat(value.left);
+      dest.writeFloat(value.top);
+      dest.writeFloat(value.right);
+      dest.writeFloat(value.bottom);
+    }
+  };
+
   public static final TypeAdapter<short[]> SHORT_ARRAY_ADAPTER = new TypeAdapter<short[]>() {
     @NonNull @Override public short[] readFromParcel(@NonNull Parcel source) {
       int size = source.readInt();
@@ -268,6 +895,64 @@ public final class StaticAdapters {
         }
       };
 
+  public static final TypeAdapter<SparseIntArray> SPARSE_INT_ARRAY_ADAPTER =
+      new TypeAdapter<SparseIntArray>() {
+        @NonNull @Override public SparseIntArray readFromParcel(@NonNull Parcel source) {
+          int size = source.readInt();
+          ByteBuffer block = ScratchBuffers.read(source);
+          SparseIntArray value = new SparseIntArray(size);
+          int valuesOffset = size * 4;
+          for (int i = 0; i < size; i++) {
+            value.append(block.getInt(i * 4), block.getInt(valuesOffset + i * 4));
+          }
+          return value;
+        }
+
+        @Override
+        public void writeToParcel(@NonNull SparseIntArray value, @NonNull Parcel dest, int flags) {
+          int size = value.size();
+          dest.writeInt(size);
+          ByteBuffer block = ScratchBuffers.obtain(size * 8);
+          for (int i = 0; i < size; i++) {
+            block.putInt(value.keyAt(i));
+          }
+          for (int i = 0; i < size; i++) {
+            block.putInt(value.valueAt(i));
+          }
+          ScratchBuffers.write(block, dest);
+        }
+      };
+
+  public static final TypeAdapter<SparseLongArray> SPARSE_LONG_ARRAY_ADAPTER =
+      new TypeAdapter<SparseLongArray>() {
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+        @NonNull @Override public SparseLongArray readFromParcel(@NonNull Parcel source) {
+          int size = source.readInt();
+          ByteBuffer block = ScratchBuffers.read(source);
+          SparseLongArray value = new SparseLongArray(size);
+          int valuesOffset = size * 4;
+          for (int i = 0; i < size; i++) {
+            value.append(block.getInt(i * 4), block.getLong(valuesOffset + i * 8));
+          }
+          return value;
+        }
+
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+        @Override
+        public void writeToParcel(@NonNull SparseLongArray value, @NonNull Parcel dest, int flags) {
+          int size = value.size();
+          dest.writeInt(size);
+          ByteBuffer block = ScratchBuffers.obtain(size * 12);
+          for (int i = 0; i < size; i++) {
+            block.putInt(value.keyAt(i));
+          }
+          for (int i = 0; i < size; i++) {
+            block.putLong(value.valueAt(i));
+          }
+          ScratchBuffers.write(block, dest);
+        }
+      };
+
   public static final TypeAdapter<String> STRING_ADAPTER = new TypeAdapter<String>() {
     @Nullable @Override public String readFromParcel(@NonNull Parcel source) {
       return source.readString();
@@ -278,6 +963,40 @@ public final class StaticAdapters {
     }
   };
 
+  public static final TypeAdapter<String> UTF8_STRING_ADAPTER = new TypeAdapter<String>() {
+    @Nullable @Override public String readFromParcel(@NonNull Parcel source) {
+      byte[] bytes = source.createByteArray();
+      return bytes != null ? new String(bytes, Utils.UTF_8) : null;
+    }
+
+    @Override public void writeToParcel(@Nullable String value, @NonNull Parcel dest, int flags) {
+      dest.writeByteArray(value != null ? Utils.encodeUtf8(value) : null);
+    }
+  };
+
+  public static final TypeAdapter<Uri> URI_ADAPTER = new TypeAdapter<Uri>() {
+    @Nullable @Override public Uri readFromParcel(@NonNull Parcel source) {
+      String uriString = source.readString();
+      return uriString != null ? Uri.parse(uriString) : null;
+    }
+
+    @Override public void writeToParcel(@Nullable Uri value, @NonNull Parcel dest, int flags) {
+      dest.writeString(value != null ? value.toString() : null);
+    }
+  };
+
+  public static final TypeAdapter<UUID> UUID_ADAPTER = new TypeAdapter<UUID>() {
+    @NonNull @Override public UUID readFromParcel(@NonNull Parcel source) {
+      long mostSigBits = source.readLong();
+      return new UUID(mostSigBits, source.readLong());
+    }
+
+    @Override public void writeToParcel(@NonNull UUID value, @NonNull Parcel dest, int flags) {
+      dest.writeLong(value.getMostSignificantBits());
+      dest.writeLong(value.getLeastSignificantBits());
+    }
+  };
+
   private StaticAdapters() {
     throw new AssertionError("No instances.");
   }
@@ -16,11 +16,24 @@
 
 package paperparcel.internal;
 
+import android.annotation.TargetApi;
+import android.os.Build;
 import android.os.Parcel;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 
+import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.BiConsumer;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -28,6 +41,7 @@ import paperparcel.TypeAdapter;
 
 @SuppressWarnings({ "WeakerAccess", "unused" }) // Used by generated code
 public final class Utils {
+  static final Charset UTF_8 = Charset.forName("UTF-8");
 
   /** Reads a fields value via reflection. */
   @SuppressWarnings({ "unchecked", "UnusedParameters", "TryWithIdenticalCatches" })
@@ -125,6 +139,138 @@ public final class Utils {
     }
   }
 
+  /**
+   * Encodes {@code value} as UTF-8. Strings that only contain ASCII characters (the common case)
+   * are copied directly without going through a {@code CharsetEncoder}.
+   */
+  @NonNull static byte[] encodeUtf8(@NonNull String value) {
+    int length = value.length();
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x80) {
+        return value.getBytes(UTF_8);
+      }
+      result[i] = (byte) c;
+    }
+    return result;
+  }
+
+  /**
+   * Writes the comparator of a sorted collection. Natural ordering ({@code null}) is written as a
+   * single {@code int}; any other comparator must be {@link Serializable}, as is also required to
+   * serialize the collection itself.
+   */
+  static void writeComparator(@Nullable Comparator<?> comparator, @NonNull Parcel dest) {
+    if (comparator == null) {
+      dest.writeInt(0);
+    } else if (comparator instanceof Serializable) {
+      dest.writeInt(1);
+      dest.writeSerializable((Serializable) comparator);
+    } else {
+      throw new IllegalArgumentException(
+          "Comparator " + comparator.getClass().getName() + " must implement Serializable");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable static <T> Comparator<T> readComparator(@NonNull Parcel source) {
+    return source.readInt() == 0 ? null : (Comparator<T>) source.readSerializable();
+  }
+
+  /**
+   * Returns the initial capacity of a {@code HashMap} or {@code HashSet} that can hold
+   * {@code size} entries without rehashing, given the default load factor.
+   */
+  static int capacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+
+  /**
+   * Writes each item in {@code value} with {@code itemAdapter}. Lists that support fast random
+   * access and {@code ArraySet}s are written with an indexed loop, so no iterator is allocated
+   * and linked lists aren't walked from the head for every item.
+   */
+  static <T> void writeItems(
+      @NonNull Collection<T> value, @NonNull TypeAdapter<T> itemAdapter,
+      @NonNull Parcel dest, int flags) {
+    if (value instanceof List && value instanceof RandomAccess) {
+      List<T> list = (List<T>) value;
+      for (int i = 0, size = list.size(); i < size; i++) {
+        itemAdapter.writeToParcel(list.get(i), dest, flags);
+      }
+    } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && value instanceof ArraySet) {
+      writeArraySetItems((ArraySet<T>) value, itemAdapter, dest, flags);
+    } else {
+      for (T item : value) {
+        itemAdapter.writeToParcel(item, dest, flags);
+      }
+    }
+  }
+
+  /**
+   * Writes each mapping in {@code value} as a key followed by its value. {@code ArrayMap}s are
+   * written with an indexed loop, so no iterator is allocated. Maps read by
+   * {@code CompactMapAdapter} are written from the map that they wrap.
+   *
+   * <p>Other maps are written with {@code Map.forEach} on API 24 and above. Unlike
+   * {@code entrySet()}, it doesn't allocate an entry per mapping for unmodifiable and concurrent
+   * maps. {@code EnumMap}s allocate an entry per mapping either way, so are written from their
+   * keys instead.</p>
+   */
+  static <K, V> void writeEntries(
+      @NonNull Map<K, V> value, @NonNull TypeAdapter<K> keyAdapter,
+      @NonNull TypeAdapter<V> valueAdapter, @NonNull Parcel dest, int flags) {
+    if (value instanceof CompactCollections.UnmodifiableMap) {
+      value = ((CompactCollections.UnmodifiableMap<K, V>) value).map;
+    }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && value instanceof ArrayMap) {
+      writeArrayMapEntries((ArrayMap<K, V>) value, keyAdapter, valueAdapter, dest, flags);
+    } else if (value instanceof EnumMap) {
+      for (K key : value.keySet()) {
+        keyAdapter.writeToParcel(key, dest, flags);
+        valueAdapter.writeToParcel(value.get(key), dest, flags);
+      }
+    } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      writeEachEntry(value, keyAdapter, valueAdapter, dest, flags);
+    } else {
+      for (Map.Entry<K, V> entry : value.entrySet()) {
+        keyAdapter.writeToParcel(entry.getKey(), dest, flags);
+        valueAdapter.writeToParcel(entry.getValue(), dest, flags);
+      }
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.M)
+  private static <T> void writeArraySetItems(
+      ArraySet<T> value, TypeAdapter<T> itemAdapter, Parcel dest, int flags) {
+    for (int i = 0, size = value.size(); i < size; i++) {
+      itemAdapter.writeToParcel(value.valueAt(i), dest, flags);
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.N)
+  private static <K, V> void writeEachEntry(
+      Map<K, V> value, final TypeAdapter<K> keyAdapter, final TypeAdapter<V> valueAdapter,
+      final Parcel dest, final int flags) {
+    value.forEach(new BiConsumer<K, V>() {
+      @Override public void accept(K key, V entryValue) {
+        keyAdapter.writeToParcel(key, dest, flags);
+        valueAdapter.writeToParcel(entryValue, dest, flags);
+      }
+    });
+  }
+
+  @TargetApi(Build.VERSION_CODES.KITKAT)
+  private static <K, V> void writeArrayMapEntries(
+      ArrayMap<K, V> value, TypeAdapter<K> keyAdapter, TypeAdapter<V> valueAdapter,
+      Parcel dest, int flags) {
+    for (int i = 0, size = value.size(); i < size; i++) {
+      keyAdapter.writeToParcel(value.keyAt(i), dest, flags);
+      valueAdapter.writeToParcel(value.valueAt(i), dest, flags);
+    }
+  }
+
   private Utils() {
     throw new AssertionError("No instances.");
   }
@@ -129,24 +129,16 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.ArrayAdapter;",
             "import paperparcel.internal.CollectionAdapter;",
             "import paperparcel.internal.EnumAdapter;",
-            "import paperparcel.internal.ListAdapter;",
-            "import paperparcel.internal.MapAdapter;",
+            "import paperparcel.internal.IntegerKeyMapAdapter;",
             "import paperparcel.internal.ParcelableAdapter;",
-            "import paperparcel.internal.SetAdapter;",
             "import paperparcel.internal.SparseArrayAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
-            "  static final TypeAdapter<Map<Integer, Integer>> INTEGER_INTEGER_MAP_ADAPTER = ",
-            "      new MapAdapter<Integer, Integer>(",
-            "          Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER), ",
-            "          Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "  static final TypeAdapter<Map<Integer, Integer>> INTEGER_INTEGER_KEY_MAP_ADAPTER = ",
+            "      new IntegerKeyMapAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  static final TypeAdapter<TestParcelable> TEST_PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<TestParcelable>(null);",
-            "  static final TypeAdapter<Set<Integer>> INTEGER_SET_ADAPTER = ",
-            "      new SetAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "      new ParcelableAdapter<TestParcelable>(null, false);",
             "  static final TypeAdapter<SparseArray<Integer>> INTEGER_SPARSE_ARRAY_ADAPTER = ",
             "      new SparseArrayAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  static final TypeAdapter<String[]> STRING_ARRAY_ADAPTER = ",
@@ -164,7 +156,7 @@ public class PaperParcelProcessorTest {
             "      Byte ad = Utils.readNullable(in, StaticAdapters.BYTE_ADAPTER);",
             "      Bundle ae = StaticAdapters.BUNDLE_ADAPTER.readFromParcel(in);",
             "      CharSequence af = StaticAdapters.CHAR_SEQUENCE_ADAPTER.readFromParcel(in);",
-            "      List<Integer> ag = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> ag = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      char ah = (char) in.readInt();",
             "      Character ai = Utils.readNullable(in, StaticAdapters.CHARACTER_ADAPTER);",
             "      double aj = in.readDouble();",
@@ -175,10 +167,10 @@ public class PaperParcelProcessorTest {
             "      Integer ao = Utils.readNullable(in, StaticAdapters.INTEGER_ADAPTER);",
             "      long ap = in.readLong();",
             "      Long aq = Utils.readNullable(in, StaticAdapters.LONG_ADAPTER);",
-            "      Map<Integer, Integer> ar = Utils.readNullable(in, PaperParcelTest.INTEGER_INTEGER_MAP_ADAPTER);",
+            "      Map<Integer, Integer> ar = Utils.readNullable(in, PaperParcelTest.INTEGER_INTEGER_KEY_MAP_ADAPTER);",
             "      TestParcelable as = PaperParcelTest.TEST_PARCELABLE_PARCELABLE_ADAPTER.readFromParcel(in);",
             "      PersistableBundle at = StaticAdapters.PERSISTABLE_BUNDLE_ADAPTER.readFromParcel(in);",
-            "      Set<Integer> au = Utils.readNullable(in, PaperParcelTest.INTEGER_SET_ADAPTER);",
+            "      Set<Integer> au = Utils.readNullable(in, StaticAdapters.INTEGER_SET_ADAPTER);",
             "      short av = (short) in.readInt();",
             "      Short aw = Utils.readNullable(in, StaticAdapters.SHORT_ADAPTER);",
             "      SizeF ax = Utils.readNullable(in, StaticAdapters.SIZE_F_ADAPTER);",
@@ -254,7 +246,7 @@ public class PaperParcelProcessorTest {
             "    Utils.writeNullable(data.ad, dest, flags, StaticAdapters.BYTE_ADAPTER);",
             "    StaticAdapters.BUNDLE_ADAPTER.writeToParcel(data.ae, dest, flags);",
             "    StaticAdapters.CHAR_SEQUENCE_ADAPTER.writeToParcel(data.af, dest, flags);",
-            "    Utils.writeNullable(data.ag, dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "    Utils.writeNullable(data.ag, dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "    dest.writeInt(data.ah);",
             "    Utils.writeNullable(data.ai, dest, flags, StaticAdapters.CHARACTER_ADAPTER);",
             "    dest.writeDouble(data.aj);",
@@ -265,10 +257,10 @@ public class PaperParcelProcessorTest {
             "    Utils.writeNullable(data.ao, dest, flags, StaticAdapters.INTEGER_ADAPTER);",
             "    dest.writeLong(data.ap);",
             "    Utils.writeNullable(data.aq, dest, flags, StaticAdapters.LONG_ADAPTER);",
-            "    Utils.writeNullable(data.ar, dest, flags, PaperParcelTest.INTEGER_INTEGER_MAP_ADAPTER);",
+            "    Utils.writeNullable(data.ar, dest, flags, PaperParcelTest.INTEGER_INTEGER_KEY_MAP_ADAPTER);",
             "    PaperParcelTest.TEST_PARCELABLE_PARCELABLE_ADAPTER.writeToParcel(data.as, dest, flags);",
             "    StaticAdapters.PERSISTABLE_BUNDLE_ADAPTER.writeToParcel(data.at, dest, flags);",
-            "    Utils.writeNullable(data.au, dest, flags, PaperParcelTest.INTEGER_SET_ADAPTER);",
+            "    Utils.writeNullable(data.au, dest, flags, StaticAdapters.INTEGER_SET_ADAPTER);",
             "    dest.writeInt(data.av);",
             "    Utils.writeNullable(data.aw, dest, flags, StaticAdapters.SHORT_ADAPTER);",
             "    Utils.writeNullable(data.ax, dest, flags, StaticAdapters.SIZE_F_ADAPTER);",
@@ -1142,17 +1134,15 @@ public class PaperParcelProcessorTest {
             "import java.util.List;",
             "import java.util.Map;",
             "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.MapAdapter;",
+            "import paperparcel.internal.IntegerKeyMapAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<HashMap<List<Integer>[], Map<Integer, Boolean>>> ",
             "      INTEGER_BOOLEAN_REALLY_SPECIFIC_TYPE_ADAPTER = ",
             "          new ReallySpecificTypeAdapter<Integer, Boolean>();",
-            "  static final TypeAdapter<Map<Integer, Integer>> INTEGER_INTEGER_MAP_ADAPTER = ",
-            "      new MapAdapter<Integer, Integer>(",
-            "          Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER), ",
-            "          Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "  static final TypeAdapter<Map<Integer, Integer>> INTEGER_INTEGER_KEY_MAP_ADAPTER = ",
+            "      new IntegerKeyMapAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
@@ -1160,7 +1150,7 @@ public class PaperParcelProcessorTest {
             "      HashMap<List<Integer>[], Map<Integer, Boolean>> field1 = ",
             "          Utils.readNullable(in, PaperParcelTest.INTEGER_BOOLEAN_REALLY_SPECIFIC_TYPE_ADAPTER);",
             "      Map<Integer, Integer> field2 = ",
-            "          Utils.readNullable(in, PaperParcelTest.INTEGER_INTEGER_MAP_ADAPTER);",
+            "          Utils.readNullable(in, PaperParcelTest.INTEGER_INTEGER_KEY_MAP_ADAPTER);",
             "      Test data = new Test();",
             "      data.field1 = field1;",
             "      data.field2 = field2;",
@@ -1175,7 +1165,7 @@ public class PaperParcelProcessorTest {
             "  }",
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
             "    Utils.writeNullable(data.field1, dest, flags, PaperParcelTest.INTEGER_BOOLEAN_REALLY_SPECIFIC_TYPE_ADAPTER);",
-            "    Utils.writeNullable(data.field2, dest, flags, PaperParcelTest.INTEGER_INTEGER_MAP_ADAPTER);",
+            "    Utils.writeNullable(data.field2, dest, flags, PaperParcelTest.INTEGER_INTEGER_KEY_MAP_ADAPTER);",
             "  }",
             "}"
         ));
@@ -1305,7 +1295,7 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.ParcelableAdapter;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<Parcelable> PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<Parcelable>(null);",
+            "      new ParcelableAdapter<Parcelable>(null, false);",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
@@ -1368,7 +1358,7 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<Parcelable> PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<Parcelable>(null);",
+            "      new ParcelableAdapter<Parcelable>(null, false);",
             "  static final TypeAdapter<Map<Parcelable, String>> PARCELABLE_STRING_MAP_ADAPTER = ",
             "      new MapAdapter<Parcelable, String>(",
             "          PaperParcelTest.PARCELABLE_PARCELABLE_ADAPTER, StaticAdapters.STRING_ADAPTER);",
@@ -2414,18 +2404,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> reflectIt = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> reflectIt = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = new Test();",
             "      Utils.writeField(reflectIt, Test.class, data, \"reflectIt\");",
             "      return data;",
@@ -2440,7 +2426,7 @@ public class PaperParcelProcessorTest {
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
             "    Utils.writeNullable(",
             "        Utils.readField(List.class, Test.class, data, \"reflectIt\"),",
-            "        dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "        dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -2489,18 +2475,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> reflectIt = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> reflectIt = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = new Test();",
             "      Utils.writeField(reflectIt, Test.class, data, \"reflectIt\");",
             "      return data;",
@@ -2513,7 +2495,7 @@ public class PaperParcelProcessorTest {
             "  private PaperParcelTest() {",
             "  }",
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
-            "    Utils.writeNullable(data.reflectIt(), dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "    Utils.writeNullable(data.reflectIt(), dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -2562,18 +2544,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> reflectIt = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> reflectIt = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = new Test(reflectIt);",
             "      return data;",
             "    }",
@@ -2587,7 +2565,7 @@ public class PaperParcelProcessorTest {
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
             "    Utils.writeNullable(",
             "        Utils.readField(List.class, Test.class, data, \"reflectIt\"),",
-            "        dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "        dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -2636,18 +2614,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> reflectIt = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> reflectIt = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = new Test();",
             "      data.reflectIt(reflectIt);",
             "      return data;",
@@ -2662,7 +2636,7 @@ public class PaperParcelProcessorTest {
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
             "    Utils.writeNullable(",
             "        Utils.readField(List.class, Test.class, data, \"reflectIt\"),",
-            "        dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "        dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -2708,18 +2682,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> value = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> value = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = new Test();",
             "      data.value = value;",
             "      return data;",
@@ -2732,7 +2702,7 @@ public class PaperParcelProcessorTest {
             "  private PaperParcelTest() {",
             "  }",
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
-            "    Utils.writeNullable(data.value, dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "    Utils.writeNullable(data.value, dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -2783,18 +2753,14 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
             "import java.util.List;",
-            "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ListAdapter;",
             "import paperparcel.internal.StaticAdapters;",
             "import paperparcel.internal.Utils;",
             "final class PaperParcelTest {",
-            "  static final TypeAdapter<List<Integer>> INTEGER_LIST_ADAPTER = ",
-            "      new ListAdapter<Integer>(Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
             "    public Test createFromParcel(Parcel in) {",
-            "      List<Integer> value = Utils.readNullable(in, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "      List<Integer> value = Utils.readNullable(in, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "      Test data = Utils.init(Test.class, new Class[] { List.class }, new Object[] { value });",
             "      return data;",
             "    }",
@@ -2806,7 +2772,7 @@ public class PaperParcelProcessorTest {
             "  private PaperParcelTest() {",
             "  }",
             "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
-            "    Utils.writeNullable(data.value(), dest, flags, PaperParcelTest.INTEGER_LIST_ADAPTER);",
+            "    Utils.writeNullable(data.value(), dest, flags, StaticAdapters.INTEGER_LIST_ADAPTER);",
             "  }",
             "}"
         ));
@@ -3268,7 +3234,7 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.ParcelableAdapter;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<NonFinal> NON_FINAL_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<NonFinal>(null);",
+            "      new ParcelableAdapter<NonFinal>(null, false);",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
@@ -3622,7 +3588,7 @@ public class PaperParcelProcessorTest {
             "final class PaperParcelTest {",
             "  static final TypeAdapter<MyClass> MY_CLASS_MIXED_ADAPTER = new MixedAdapter<MyClass>();",
             "  static final TypeAdapter<Parcelable> PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<Parcelable>(null);",
+            "      new ParcelableAdapter<Parcelable>(null, false);",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
@@ -4084,7 +4050,7 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.ParcelableAdapter;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<TestParcelable> TEST_PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<TestParcelable>(TestParcelable.CREATOR);",
+            "      new ParcelableAdapter<TestParcelable>(TestParcelable.CREATOR, false);",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override public Test createFromParcel(Parcel in) {",
@@ -4167,7 +4133,7 @@ public class PaperParcelProcessorTest {
             "import paperparcel.internal.ParcelableAdapter;",
             "final class PaperParcelTest {",
             "  static final TypeAdapter<TestParcelable> TEST_PARCELABLE_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<TestParcelable>(TestParcelable.CREATOR);",
+            "      new ParcelableAdapter<TestParcelable>(TestParcelable.CREATOR, false);",
             "  @NonNull",
             "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override public Test createFromParcel(Parcel in) {",
@@ -4230,13 +4196,13 @@ public class PaperParcelProcessorTest {
             "import android.os.Parcel;",
             "import android.os.Parcelable;",
             "import paperparcel.PaperParcel;",
-            "import java.util.Date;",
+            "import java.io.File;",
             "@PaperParcel.Options(",
             "  allowSerializable = false",
             ")",
             "@PaperParcel",
             "public final class Test implements Parcelable {",
-            "  Date field;",
+            "  File field;",
             "  public int describeContents() {",
             "    return 0;",
             "  }",
@@ -4248,21 +4214,31 @@ public class PaperParcelProcessorTest {
     assertAbout(javaSource()).that(source)
         .processedWith(new PaperParcelProcessor())
         .failsToCompile()
-        .withErrorContaining(String.format(ErrorMessages.FIELD_MISSING_TYPE_ADAPTER, "java.util.Date"))
+        .withErrorContaining(String.format(ErrorMessages.FIELD_MISSING_TYPE_ADAPTER, "java.io.File"))
         .in(source)
         .onLine(11);
   }
 
-  @Test public void genericNestedParcelableTest() {
-    JavaFileObject root =
-        JavaFileObjects.forSourceString("test.Root", Joiner.on('\n').join(
+  @Test public void useEnumOrdinalsTest() {
+    JavaFileObject testEnum =
+        JavaFileObjects.forSourceString("test.TestEnum", Joiner.on('\n').join(
+            "package test;",
+            "public enum TestEnum {",
+            "  A,",
+            "  B,",
+            "}"
+        ));
+
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
             "package test;",
             "import android.os.Parcel;",
             "import android.os.Parcelable;",
             "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(useEnumOrdinals = true)",
             "@PaperParcel",
-            "public final class Root implements Parcelable {",
-            "  Child<Boolean> child;",
+            "public final class Test implements Parcelable {",
+            "  public TestEnum value;",
             "  public int describeContents() {",
             "    return 0;",
             "  }",
@@ -4271,69 +4247,1934 @@ public class PaperParcelProcessorTest {
             "}"
         ));
 
-    JavaFileObject child =
-        JavaFileObjects.forSourceString("test.Child", Joiner.on('\n').join(
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
             "package test;",
             "import android.os.Parcel;",
             "import android.os.Parcelable;",
-            "import java.io.Serializable;",
-            "public final class Child<T extends Serializable> implements Parcelable {",
-            "  T something;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.OrdinalEnumAdapter;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<TestEnum> TEST_ENUM_ORDINAL_ENUM_ADAPTER = ",
+            "      new OrdinalEnumAdapter<TestEnum>(TestEnum.class, 0xbe2);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      TestEnum value = Utils.readNullable(in, PaperParcelTest.TEST_ENUM_ORDINAL_ENUM_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.value = value;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.value, dest, flags, PaperParcelTest.TEST_ENUM_ORDINAL_ENUM_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSources()).that(Arrays.asList(source, testEnum))
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void useNullBitmaskTest() {
+    JavaFileObject testParcelable =
+        JavaFileObjects.forSourceString("test.TestParcelable", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "public final class TestParcelable implements Parcelable {",
+            "  public static final Parcelable.Creator<TestParcelable> CREATOR = null;",
+            "  @Override",
             "  public int describeContents() {",
             "    return 0;",
             "  }",
+            "  @Override",
             "  public void writeToParcel(Parcel dest, int flags) {",
             "  }",
-            "  public static final Parcelable.Creator<Child> CREATOR = new Parcelable.Creator<Child>() {",
+            "}"
+        ));
+
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(useNullBitmask = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public Integer a;",
+            "  public String b;",
+            "  public TestParcelable c;",
+            "  public long d;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.NonNullParcelableAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<TestParcelable> TEST_PARCELABLE_NON_NULL_PARCELABLE_ADAPTER = ",
+            "      new NonNullParcelableAdapter<TestParcelable>(TestParcelable.CREATOR, false);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
-            "    public Child createFromParcel(Parcel in) {",
-            "      return null;",
+            "    public Test createFromParcel(Parcel in) {",
+            "      int header = in.readInt();",
+            "      Integer a = (header & 0x1) == 0 ? StaticAdapters.INTEGER_ADAPTER.readFromParcel(in) : null;",
+            "      String b = StaticAdapters.STRING_ADAPTER.readFromParcel(in);",
+            "      TestParcelable c = (header & 0x2) == 0 ? PaperParcelTest.TEST_PARCELABLE_NON_NULL_PARCELABLE_ADAPTER.readFromParcel(in) : null;",
+            "      long d = in.readLong();",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      return data;",
             "    }",
             "    @Override",
-            "    public Child[] newArray(int size) {",
-            "      return new Child[size];",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
             "    }",
             "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Integer a = data.a;",
+            "    TestParcelable c = data.c;",
+            "    int header = 0;",
+            "    if (a == null) {",
+            "      header |= 0x1;",
+            "    }",
+            "    if (c == null) {",
+            "      header |= 0x2;",
+            "    }",
+            "    dest.writeInt(header);",
+            "    if (a != null) {",
+            "      StaticAdapters.INTEGER_ADAPTER.writeToParcel(a, dest, flags);",
+            "    }",
+            "    StaticAdapters.STRING_ADAPTER.writeToParcel(data.b, dest, flags);",
+            "    if (c != null) {",
+            "      PaperParcelTest.TEST_PARCELABLE_NON_NULL_PARCELABLE_ADAPTER.writeToParcel(c, dest, flags);",
+            "    }",
+            "    dest.writeLong(data.d);",
+            "  }",
             "}"
         ));
 
-    JavaFileObject expectedSource =
-        JavaFileObjects.forSourceString("test/PaperParcelRoot", Joiner.on('\n').join(
+    assertAbout(javaSources()).that(Arrays.asList(source, testParcelable))
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void packPrimitivesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(packPrimitives = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public boolean a;",
+            "  public byte b;",
+            "  public short c;",
+            "  public char d;",
+            "  public boolean e;",
+            "  public int f;",
+            "  public short[] g;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      int header = in.readInt();",
+            "      int header1 = in.readInt();",
+            "      boolean a = (header1 & 0x100) != 0;",
+            "      byte b = (byte) header1;",
+            "      short c = (short) header;",
+            "      char d = (char) (header >>> 16);",
+            "      boolean e = (header1 & 0x200) != 0;",
+            "      int f = in.readInt();",
+            "      short[] g = StaticAdapters.PACKED_SHORT_ARRAY_ADAPTER.readFromParcel(in);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      data.e = e;",
+            "      data.f = f;",
+            "      data.g = g;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    int header = 0;",
+            "    int header1 = 0;",
+            "    header |= data.c & 0xffff;",
+            "    header |= (data.d & 0xffff) << 16;",
+            "    header1 |= data.b & 0xff;",
+            "    if (data.a) {",
+            "      header1 |= 0x100;",
+            "    }",
+            "    if (data.e) {",
+            "      header1 |= 0x200;",
+            "    }",
+            "    dest.writeInt(header);",
+            "    dest.writeInt(header1);",
+            "    dest.writeInt(data.f);",
+            "    StaticAdapters.PACKED_SHORT_ARRAY_ADAPTER.writeToParcel(data.g, dest, flags);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void elideDefaultsTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(elideDefaults = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public int a;",
+            "  public String b;",
+            "  public List<String> c;",
+            "  public Integer d;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
             "package test;",
             "import android.os.Parcel;",
             "import android.os.Parcelable;",
             "import androidx.annotation.NonNull;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
             "import paperparcel.TypeAdapter;",
-            "import paperparcel.internal.ParcelableAdapter;",
-            "final class PaperParcelRoot {",
-            "  static final TypeAdapter<Child<Boolean>> BOOLEAN_CHILD_PARCELABLE_ADAPTER = ",
-            "      new ParcelableAdapter<Child<Boolean>>((Parcelable.Creator) Child.CREATOR);",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
             "  @NonNull",
-            "  static final Parcelable.Creator<Root> CREATOR = new Parcelable.Creator<Root>() {",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
             "    @Override",
-            "    public Root createFromParcel(Parcel in) {",
-            "      Child<Boolean> child = PaperParcelRoot.BOOLEAN_CHILD_PARCELABLE_ADAPTER.readFromParcel(in);",
-            "      Root data = new Root();",
-            "      data.child = child;",
+            "    public Test createFromParcel(Parcel in) {",
+            "      int header = in.readInt();",
+            "      int a = (header & 0x1) != 0 ? in.readInt() : 0;",
+            "      String b = (header & 0x2) != 0 ? StaticAdapters.STRING_ADAPTER.readFromParcel(in) : \"\";",
+            "      List<String> c = (header & 0x4) != 0 ",
+            "          ? Utils.readNullable(in, PaperParcelTest.STRING_LIST_ADAPTER) ",
+            "          : new ArrayList<String>();",
+            "      Integer d = Utils.readNullable(in, StaticAdapters.INTEGER_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
             "      return data;",
             "    }",
             "    @Override",
-            "    public Root[] newArray(int size) {",
-            "      return new Root[size];",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
             "    }",
             "  };",
-            "  private PaperParcelRoot() {",
+            "  private PaperParcelTest() {",
             "  }",
-            "  static void writeToParcel(@NonNull Root data, @NonNull Parcel dest, int flags) {",
-            "    PaperParcelRoot.BOOLEAN_CHILD_PARCELABLE_ADAPTER.writeToParcel(data.child, dest, flags);",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    int a = data.a;",
+            "    String b = data.b;",
+            "    List<String> c = data.c;",
+            "    int header = 0;",
+            "    if (a != 0) {",
+            "      header |= 0x1;",
+            "    }",
+            "    if (b == null || !b.isEmpty()) {",
+            "      header |= 0x2;",
+            "    }",
+            "    if (c == null || !c.isEmpty()) {",
+            "      header |= 0x4;",
+            "    }",
+            "    dest.writeInt(header);",
+            "    if ((header & 0x1) != 0) {",
+            "      dest.writeInt(a);",
+            "    }",
+            "    if ((header & 0x2) != 0) {",
+            "      StaticAdapters.STRING_ADAPTER.writeToParcel(b, dest, flags);",
+            "    }",
+            "    if ((header & 0x4) != 0) {",
+            "      Utils.writeNullable(c, dest, flags, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "    }",
+            "    Utils.writeNullable(data.d, dest, flags, StaticAdapters.INTEGER_ADAPTER);",
             "  }",
             "}"
         ));
 
-    assertAbout(javaSources()).that(Arrays.asList(root, child))
+    assertAbout(javaSource()).that(source)
         .processedWith(new PaperParcelProcessor())
         .compilesWithoutError()
         .and()
-        .generatesSources(expectedSource);
+        .generatesSources(expected);
+  }
+
+  @Test public void elideDefaultsFailsWhenFieldIsWildcardTypeTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.Date;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(elideDefaults = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public List<? extends Date> dates;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .failsToCompile()
+        .withErrorContaining(ErrorMessages.WILDCARD_IN_FIELD_TYPE)
+        .in(source)
+        .onLine(10);
+  }
+
+  @Test public void compactCollectionsTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(compactCollections = true, elideDefaults = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public List<String> a;",
+            "  public Map<String, String> b;",
+            "  public Set<Long> c;",
+            "  public Map<Integer, String> d;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.Collections;",
+            "import java.util.List;",
+            "import java.util.Map;",
+            "import java.util.Set;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.CompactIntegerKeyMapAdapter;",
+            "import paperparcel.internal.CompactListAdapter;",
+            "import paperparcel.internal.CompactMapAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<List<String>> STRING_COMPACT_LIST_ADAPTER = ",
+            "      new CompactListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<Map<String, String>> STRING_STRING_COMPACT_MAP_ADAPTER = ",
+            "      new CompactMapAdapter<String, String>(StaticAdapters.STRING_ADAPTER, StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<Map<Integer, String>> STRING_COMPACT_INTEGER_KEY_MAP_ADAPTER = ",
+            "      new CompactIntegerKeyMapAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      int header = in.readInt();",
+            "      List<String> a = (header & 0x1) != 0 ",
+            "          ? Utils.readNullable(in, PaperParcelTest.STRING_COMPACT_LIST_ADAPTER) ",
+            "          : Collections.<String>emptyList();",
+            "      Map<String, String> b = (header & 0x2) != 0 ",
+            "          ? Utils.readNullable(in, PaperParcelTest.STRING_STRING_COMPACT_MAP_ADAPTER) ",
+            "          : Collections.<String, String>emptyMap();",
+            "      Set<Long> c = (header & 0x4) != 0 ",
+            "          ? Utils.readNullable(in, StaticAdapters.COMPACT_LONG_SET_ADAPTER) ",
+            "          : Collections.<Long>emptySet();",
+            "      Map<Integer, String> d = (header & 0x8) != 0 ",
+            "          ? Utils.readNullable(in, PaperParcelTest.STRING_COMPACT_INTEGER_KEY_MAP_ADAPTER) ",
+            "          : Collections.<Integer, String>emptyMap();",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    List<String> a = data.a;",
+            "    Map<String, String> b = data.b;",
+            "    Set<Long> c = data.c;",
+            "    Map<Integer, String> d = data.d;",
+            "    int header = 0;",
+            "    if (a == null || !a.isEmpty()) {",
+            "      header |= 0x1;",
+            "    }",
+            "    if (b == null || !b.isEmpty()) {",
+            "      header |= 0x2;",
+            "    }",
+            "    if (c == null || !c.isEmpty()) {",
+            "      header |= 0x4;",
+            "    }",
+            "    if (d == null || !d.isEmpty()) {",
+            "      header |= 0x8;",
+            "    }",
+            "    dest.writeInt(header);",
+            "    if ((header & 0x1) != 0) {",
+            "      Utils.writeNullable(a, dest, flags, PaperParcelTest.STRING_COMPACT_LIST_ADAPTER);",
+            "    }",
+            "    if ((header & 0x2) != 0) {",
+            "      Utils.writeNullable(b, dest, flags, PaperParcelTest.STRING_STRING_COMPACT_MAP_ADAPTER);",
+            "    }",
+            "    if ((header & 0x4) != 0) {",
+            "      Utils.writeNullable(c, dest, flags, StaticAdapters.COMPACT_LONG_SET_ADAPTER);",
+            "    }",
+            "    if ((header & 0x8) != 0) {",
+            "      Utils.writeNullable(d, dest, flags, PaperParcelTest.STRING_COMPACT_INTEGER_KEY_MAP_ADAPTER);",
+            "    }",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void useUtf8StringsTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(useUtf8Strings = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String a;",
+            "  public List<String> b;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(StaticAdapters.UTF8_STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      String a = StaticAdapters.UTF8_STRING_ADAPTER.readFromParcel(in);",
+            "      List<String> b = Utils.readNullable(in, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    StaticAdapters.UTF8_STRING_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "    Utils.writeNullable(data.b, dest, flags, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void internValuesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(internValues = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String a;",
+            "  public List<String> b;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.InternTable;",
+            "import paperparcel.internal.InterningAdapter;",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<String> STRING_INTERNING_ADAPTER = ",
+            "      new InterningAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(PaperParcelTest.STRING_INTERNING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      InternTable.begin(in);",
+            "      try {",
+            "        String a = PaperParcelTest.STRING_INTERNING_ADAPTER.readFromParcel(in);",
+            "        List<String> b = Utils.readNullable(in, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "        Test data = new Test();",
+            "        data.a = a;",
+            "        data.b = b;",
+            "        return data;",
+            "      } finally {",
+            "        InternTable.end(in);",
+            "      }",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    InternTable.begin(dest);",
+            "    try {",
+            "      PaperParcelTest.STRING_INTERNING_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "      Utils.writeNullable(data.b, dest, flags, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "    } finally {",
+            "      InternTable.end(dest);",
+            "    }",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void canonicalizeValuesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(canonicalizeValues = true, internValues = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String a;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.CanonicalizingAdapter;",
+            "import paperparcel.internal.InternTable;",
+            "import paperparcel.internal.InterningAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<String> STRING_CANONICALIZING_ADAPTER = ",
+            "      new CanonicalizingAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<String> STRING_INTERNING_ADAPTER = ",
+            "      new InterningAdapter<String>(PaperParcelTest.STRING_CANONICALIZING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      InternTable.begin(in);",
+            "      try {",
+            "        String a = PaperParcelTest.STRING_INTERNING_ADAPTER.readFromParcel(in);",
+            "        Test data = new Test();",
+            "        data.a = a;",
+            "        return data;",
+            "      } finally {",
+            "        InternTable.end(in);",
+            "      }",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    InternTable.begin(dest);",
+            "    try {",
+            "      PaperParcelTest.STRING_INTERNING_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "    } finally {",
+            "      InternTable.end(dest);",
+            "    }",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void trackReferencesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(trackReferences = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String name;",
+            "  public Test next;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.InternTable;",
+            "import paperparcel.internal.ParcelableAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<Test> TEST_PARCELABLE_ADAPTER = ",
+            "      new ParcelableAdapter<Test>(null, true);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      InternTable.begin(in);",
+            "      try {",
+            "        int reference = in.readInt();",
+            "        if (reference >= 0) {",
+            "          return (Test) InternTable.getReference(in, reference);",
+            "        }",
+            "        reference = InternTable.newReference(in);",
+            "        Test data = new Test();",
+            "        InternTable.setReference(in, reference, data);",
+            "        String name = StaticAdapters.STRING_ADAPTER.readFromParcel(in);",
+            "        Test next = PaperParcelTest.TEST_PARCELABLE_ADAPTER.readFromParcel(in);",
+            "        data.name = name;",
+            "        data.next = next;",
+            "        return data;",
+            "      } finally {",
+            "        InternTable.end(in);",
+            "      }",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    InternTable.begin(dest);",
+            "    try {",
+            "      if (InternTable.writeReference(dest, data)) {",
+            "        return;",
+            "      }",
+            "      StaticAdapters.STRING_ADAPTER.writeToParcel(data.name, dest, flags);",
+            "      PaperParcelTest.TEST_PARCELABLE_ADAPTER.writeToParcel(data.next, dest, flags);",
+            "    } finally {",
+            "      InternTable.end(dest);",
+            "    }",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void selfReferentialTypeTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public int value;",
+            "  public Test next;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "final class PaperParcelTest {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      Test first = null;",
+            "      Test last = null;",
+            "      do {",
+            "        int value = in.readInt();",
+            "        Test data = new Test();",
+            "        data.value = value;",
+            "        if (first == null) {",
+            "          first = data;",
+            "        } else {",
+            "          last.next = data;",
+            "        }",
+            "        last = data;",
+            "      } while (in.readInt() == 1);",
+            "      return first;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    while (true) {",
+            "      dest.writeInt(data.value);",
+            "      Test next = data.next;",
+            "      if (next == null) {",
+            "        dest.writeInt(0);",
+            "        break;",
+            "      }",
+            "      dest.writeInt(1);",
+            "      data = next;",
+            "    }",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void columnarListsTest() {
+    JavaFileObject item =
+        JavaFileObjects.forSourceString("test.Item", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(columnarLists = true)",
+            "@PaperParcel",
+            "public final class Item implements Parcelable {",
+            "  public int id;",
+            "  public short count;",
+            "  public String name;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public List<Item> items;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expectedItem =
+        JavaFileObjects.forSourceString("test/PaperParcelItem", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelItem {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Item> CREATOR = new Parcelable.Creator<Item>() {",
+            "    @Override",
+            "    public Item createFromParcel(Parcel in) {",
+            "      int id = in.readInt();",
+            "      short count = (short) in.readInt();",
+            "      String name = StaticAdapters.STRING_ADAPTER.readFromParcel(in);",
+            "      Item data = new Item();",
+            "      data.id = id;",
+            "      data.count = count;",
+            "      data.name = name;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Item[] newArray(int size) {",
+            "      return new Item[size];",
+            "    }",
+            "  };",
+            "  @NonNull",
+            "  static final TypeAdapter<List<Item>> LIST_ADAPTER = new TypeAdapter<List<Item>>() {",
+            "    @Override",
+            "    public List<Item> readFromParcel(@NonNull Parcel in) {",
+            "      int size = in.readInt();",
+            "      boolean[] nulls = in.createBooleanArray();",
+            "      int[] idColumn = in.createIntArray();",
+            "      int[] countColumn = in.createIntArray();",
+            "      String[] nameColumn = new String[size];",
+            "      for (int i = 0; i < size; i++) {",
+            "        if (nulls == null || !nulls[i]) {",
+            "          nameColumn[i] = StaticAdapters.STRING_ADAPTER.readFromParcel(in);",
+            "        }",
+            "      }",
+            "      List<Item> list = new ArrayList<Item>(size);",
+            "      for (int i = 0; i < size; i++) {",
+            "        if (nulls != null && nulls[i]) {",
+            "          list.add(null);",
+            "          continue;",
+            "        }",
+            "        int id = idColumn[i];",
+            "        short count = (short) countColumn[i];",
+            "        String name = nameColumn[i];",
+            "        Item data = new Item();",
+            "        data.id = id;",
+            "        data.count = count;",
+            "        data.name = name;",
+            "        list.add(data);",
+            "      }",
+            "      return list;",
+            "    }",
+            "    @Override",
+            "    public void writeToParcel(@NonNull List<Item> value, @NonNull Parcel dest, int flags) {",
+            "      int size = value.size();",
+            "      Item[] items = value.toArray(new Item[size]);",
+            "      boolean[] nulls = null;",
+            "      int[] idColumn = new int[size];",
+            "      int[] countColumn = new int[size];",
+            "      for (int i = 0; i < size; i++) {",
+            "        Item data = items[i];",
+            "        if (data == null) {",
+            "          if (nulls == null) {",
+            "            nulls = new boolean[size];",
+            "          }",
+            "          nulls[i] = true;",
+            "        } else {",
+            "          idColumn[i] = data.id;",
+            "          countColumn[i] = data.count;",
+            "        }",
+            "      }",
+            "      dest.writeInt(size);",
+            "      dest.writeBooleanArray(nulls);",
+            "      dest.writeIntArray(idColumn);",
+            "      dest.writeIntArray(countColumn);",
+            "      for (int i = 0; i < size; i++) {",
+            "        Item data = items[i];",
+            "        if (data != null) {",
+            "          StaticAdapters.STRING_ADAPTER.writeToParcel(data.name, dest, flags);",
+            "        }",
+            "      }",
+            "    }",
+            "  };",
+            "  private PaperParcelItem() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Item data, @NonNull Parcel dest, int flags) {",
+            "    dest.writeInt(data.id);",
+            "    dest.writeInt(data.count);",
+            "    StaticAdapters.STRING_ADAPTER.writeToParcel(data.name, dest, flags);",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      List<Item> items = Utils.readNullable(in, PaperParcelItem.LIST_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.items = items;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.items, dest, flags, PaperParcelItem.LIST_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSources()).that(Arrays.asList(source, item))
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedItem, expected);
+  }
+
+  @Test public void compressionThresholdTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(compressionThreshold = 1024)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String a;",
+            "  public List<String> b;",
+            "  public int c;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.CompressingAdapter;",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<String> STRING_COMPRESSING_ADAPTER = ",
+            "      new CompressingAdapter<String>(StaticAdapters.STRING_ADAPTER, 1024);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_COMPRESSING_ADAPTER = ",
+            "      new CompressingAdapter<List<String>>(PaperParcelTest.STRING_LIST_ADAPTER, 1024);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      String a = PaperParcelTest.STRING_COMPRESSING_ADAPTER.readFromParcel(in);",
+            "      List<String> b = PaperParcelTest.STRING_LIST_COMPRESSING_ADAPTER.readFromParcel(in);",
+            "      int c = in.readInt();",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    PaperParcelTest.STRING_COMPRESSING_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "    PaperParcelTest.STRING_LIST_COMPRESSING_ADAPTER.writeToParcel(data.b, dest, flags);",
+            "    dest.writeInt(data.c);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void sharedMemoryThresholdTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(compressionThreshold = 1024, sharedMemoryThreshold = 65536)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public String a;",
+            "  public List<String> b;",
+            "  public int c;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.CompressingAdapter;",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.SharedMemoryAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<String> STRING_COMPRESSING_ADAPTER = ",
+            "      new CompressingAdapter<String>(StaticAdapters.STRING_ADAPTER, 1024);",
+            "  static final TypeAdapter<String> STRING_SHARED_MEMORY_ADAPTER = ",
+            "      new SharedMemoryAdapter<String>(PaperParcelTest.STRING_COMPRESSING_ADAPTER, 65536);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_COMPRESSING_ADAPTER = ",
+            "      new CompressingAdapter<List<String>>(PaperParcelTest.STRING_LIST_ADAPTER, 1024);",
+            "  static final TypeAdapter<List<String>> STRING_LIST_SHARED_MEMORY_ADAPTER = ",
+            "      new SharedMemoryAdapter<List<String>>(",
+            "          PaperParcelTest.STRING_LIST_COMPRESSING_ADAPTER, 65536);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      String a = PaperParcelTest.STRING_SHARED_MEMORY_ADAPTER.readFromParcel(in);",
+            "      List<String> b = PaperParcelTest.STRING_LIST_SHARED_MEMORY_ADAPTER.readFromParcel(in);",
+            "      int c = in.readInt();",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    PaperParcelTest.STRING_SHARED_MEMORY_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "    PaperParcelTest.STRING_LIST_SHARED_MEMORY_ADAPTER.writeToParcel(data.b, dest, flags);",
+            "    dest.writeInt(data.c);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void compactEncodingTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.List;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel.Options(compactEncoding = true)",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public long a;",
+            "  public String b;",
+            "  public boolean c;",
+            "  public List<String> d;",
+            "  public char e;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.List;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.CompactDecoder;",
+            "import paperparcel.internal.CompactEncoder;",
+            "import paperparcel.internal.ListAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<List<String>> STRING_LIST_ADAPTER = ",
+            "      new ListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      CompactDecoder decoder = new CompactDecoder(in);",
+            "      long a = decoder.readLong();",
+            "      String b = decoder.readString();",
+            "      boolean c = decoder.readBoolean();",
+            "      char e = (char) decoder.readInt();",
+            "      List<String> d = Utils.readNullable(in, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      data.e = e;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    CompactEncoder encoder = CompactEncoder.obtain();",
+            "    try {",
+            "      encoder.writeLong(data.a);",
+            "      encoder.writeString(data.b);",
+            "      encoder.writeBoolean(data.c);",
+            "      encoder.writeInt(data.e);",
+            "      encoder.writeTo(dest);",
+            "    } finally {",
+            "      encoder.release();",
+            "    }",
+            "    Utils.writeNullable(data.d, dest, flags, PaperParcelTest.STRING_LIST_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void concreteCollectionTypesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.ArrayList;",
+            "import java.util.HashMap;",
+            "import java.util.TreeSet;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public ArrayList<String> a;",
+            "  public HashMap<String, Integer> b;",
+            "  public TreeSet<String> c;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.ArrayList;",
+            "import java.util.HashMap;",
+            "import java.util.TreeSet;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.ArrayListAdapter;",
+            "import paperparcel.internal.HashMapAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.TreeSetAdapter;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<ArrayList<String>> STRING_ARRAY_LIST_ADAPTER = ",
+            "      new ArrayListAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  static final TypeAdapter<HashMap<String, Integer>> STRING_INTEGER_HASH_MAP_ADAPTER = ",
+            "      new HashMapAdapter<String, Integer>(",
+            "          StaticAdapters.STRING_ADAPTER, Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "  static final TypeAdapter<TreeSet<String>> STRING_TREE_SET_ADAPTER = ",
+            "      new TreeSetAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      ArrayList<String> a = Utils.readNullable(in, PaperParcelTest.STRING_ARRAY_LIST_ADAPTER);",
+            "      HashMap<String, Integer> b = Utils.readNullable(in, PaperParcelTest.STRING_INTEGER_HASH_MAP_ADAPTER);",
+            "      TreeSet<String> c = Utils.readNullable(in, PaperParcelTest.STRING_TREE_SET_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, PaperParcelTest.STRING_ARRAY_LIST_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, PaperParcelTest.STRING_INTEGER_HASH_MAP_ADAPTER);",
+            "    Utils.writeNullable(data.c, dest, flags, PaperParcelTest.STRING_TREE_SET_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void jdkValueTypesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.math.BigDecimal;",
+            "import java.util.Date;",
+            "import java.util.Optional;",
+            "import java.util.UUID;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public Date a;",
+            "  public UUID b;",
+            "  public BigDecimal c;",
+            "  public Optional<String> d;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.math.BigDecimal;",
+            "import java.util.Date;",
+            "import java.util.Optional;",
+            "import java.util.UUID;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.OptionalAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<Optional<String>> STRING_OPTIONAL_ADAPTER = ",
+            "      new OptionalAdapter<String>(StaticAdapters.STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      Date a = Utils.readNullable(in, StaticAdapters.DATE_ADAPTER);",
+            "      UUID b = Utils.readNullable(in, StaticAdapters.UUID_ADAPTER);",
+            "      BigDecimal c = Utils.readNullable(in, StaticAdapters.BIG_DECIMAL_ADAPTER);",
+            "      Optional<String> d = Utils.readNullable(in, PaperParcelTest.STRING_OPTIONAL_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, StaticAdapters.DATE_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, StaticAdapters.UUID_ADAPTER);",
+            "    Utils.writeNullable(data.c, dest, flags, StaticAdapters.BIG_DECIMAL_ADAPTER);",
+            "    Utils.writeNullable(data.d, dest, flags, PaperParcelTest.STRING_OPTIONAL_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void frameworkTypesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.graphics.Point;",
+            "import android.graphics.Rect;",
+            "import android.net.Uri;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public Uri a;",
+            "  public Rect b;",
+            "  public Point c;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.graphics.Point;",
+            "import android.graphics.Rect;",
+            "import android.net.Uri;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      Uri a = StaticAdapters.URI_ADAPTER.readFromParcel(in);",
+            "      Rect b = Utils.readNullable(in, StaticAdapters.RECT_ADAPTER);",
+            "      Point c = Utils.readNullable(in, StaticAdapters.POINT_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    StaticAdapters.URI_ADAPTER.writeToParcel(data.a, dest, flags);",
+            "    Utils.writeNullable(data.b, dest, flags, StaticAdapters.RECT_ADAPTER);",
+            "    Utils.writeNullable(data.c, dest, flags, StaticAdapters.POINT_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void byteBuffersTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.nio.ByteBuffer;",
+            "import paperparcel.ByteRange;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public ByteBuffer a;",
+            "  public ByteRange b;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.nio.ByteBuffer;",
+            "import paperparcel.ByteRange;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      ByteBuffer a = Utils.readNullable(in, StaticAdapters.BYTE_BUFFER_ADAPTER);",
+            "      ByteRange b = Utils.readNullable(in, StaticAdapters.BYTE_RANGE_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, StaticAdapters.BYTE_BUFFER_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, StaticAdapters.BYTE_RANGE_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void androidCollectionTypesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import android.util.ArrayMap;",
+            "import android.util.SparseIntArray;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public SparseIntArray a;",
+            "  public ArrayMap<String, Integer> b;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import android.util.ArrayMap;",
+            "import android.util.SparseIntArray;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.ArrayMapAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<ArrayMap<String, Integer>> STRING_INTEGER_ARRAY_MAP_ADAPTER = ",
+            "      new ArrayMapAdapter<String, Integer>(",
+            "          StaticAdapters.STRING_ADAPTER, Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      SparseIntArray a = Utils.readNullable(in, StaticAdapters.SPARSE_INT_ARRAY_ADAPTER);",
+            "      ArrayMap<String, Integer> b = Utils.readNullable(in, PaperParcelTest.STRING_INTEGER_ARRAY_MAP_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, StaticAdapters.SPARSE_INT_ARRAY_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, PaperParcelTest.STRING_INTEGER_ARRAY_MAP_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void enumSetAndEnumMapTest() {
+    JavaFileObject testEnum =
+        JavaFileObjects.forSourceString("test.TestEnum", Joiner.on('\n').join(
+            "package test;",
+            "public enum TestEnum {",
+            "  A,",
+            "  B,",
+            "}"
+        ));
+
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.util.EnumMap;",
+            "import java.util.EnumSet;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public EnumSet<TestEnum> a;",
+            "  public EnumMap<TestEnum, String> b;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import java.util.EnumMap;",
+            "import java.util.EnumSet;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.EnumMapAdapter;",
+            "import paperparcel.internal.EnumSetAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<EnumSet<TestEnum>> TEST_ENUM_ENUM_SET_ADAPTER = ",
+            "      new EnumSetAdapter<TestEnum>(TestEnum.class, 0xbe2);",
+            "  static final TypeAdapter<EnumMap<TestEnum, String>> TEST_ENUM_STRING_ENUM_MAP_ADAPTER = ",
+            "      new EnumMapAdapter<TestEnum, String>(TestEnum.class, 0xbe2, StaticAdapters.STRING_ADAPTER);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      EnumSet<TestEnum> a = Utils.readNullable(in, PaperParcelTest.TEST_ENUM_ENUM_SET_ADAPTER);",
+            "      EnumMap<TestEnum, String> b = Utils.readNullable(in, PaperParcelTest.TEST_ENUM_STRING_ENUM_MAP_ADAPTER);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, PaperParcelTest.TEST_ENUM_ENUM_SET_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, PaperParcelTest.TEST_ENUM_STRING_ENUM_MAP_ADAPTER);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSources()).that(Arrays.asList(source, testEnum))
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
+  }
+
+  @Test public void genericNestedParcelableTest() {
+    JavaFileObject root =
+        JavaFileObjects.forSourceString("test.Root", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Root implements Parcelable {",
+            "  Child<Boolean> child;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject child =
+        JavaFileObjects.forSourceString("test.Child", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import java.io.Serializable;",
+            "public final class Child<T extends Serializable> implements Parcelable {",
+            "  T something;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "  public static final Parcelable.Creator<Child> CREATOR = new Parcelable.Creator<Child>() {",
+            "    @Override",
+            "    public Child createFromParcel(Parcel in) {",
+            "      return null;",
+            "    }",
+            "    @Override",
+            "    public Child[] newArray(int size) {",
+            "      return new Child[size];",
+            "    }",
+            "  };",
+            "}"
+        ));
+
+    JavaFileObject expectedSource =
+        JavaFileObjects.forSourceString("test/PaperParcelRoot", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.ParcelableAdapter;",
+            "final class PaperParcelRoot {",
+            "  static final TypeAdapter<Child<Boolean>> BOOLEAN_CHILD_PARCELABLE_ADAPTER = ",
+            "      new ParcelableAdapter<Child<Boolean>>((Parcelable.Creator) Child.CREATOR, false);",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Root> CREATOR = new Parcelable.Creator<Root>() {",
+            "    @Override",
+            "    public Root createFromParcel(Parcel in) {",
+            "      Child<Boolean> child = PaperParcelRoot.BOOLEAN_CHILD_PARCELABLE_ADAPTER.readFromParcel(in);",
+            "      Root data = new Root();",
+            "      data.child = child;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Root[] newArray(int size) {",
+            "      return new Root[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelRoot() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Root data, @NonNull Parcel dest, int flags) {",
+            "    PaperParcelRoot.BOOLEAN_CHILD_PARCELABLE_ADAPTER.writeToParcel(data.child, dest, flags);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSources()).that(Arrays.asList(root, child))
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expectedSource);
+  }
+
+  @Test public void kotlinTypesTest() {
+    JavaFileObject source =
+        JavaFileObjects.forSourceString("test.Test", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import kotlin.Pair;",
+            "import kotlin.Triple;",
+            "import kotlin.UByte;",
+            "import kotlin.UInt;",
+            "import kotlin.ULong;",
+            "import kotlin.UShort;",
+            "import kotlin.ranges.IntRange;",
+            "import kotlin.ranges.LongRange;",
+            "import paperparcel.PaperParcel;",
+            "@PaperParcel",
+            "public final class Test implements Parcelable {",
+            "  public Pair<String, Integer> a;",
+            "  public Triple<String, Long, Boolean> b;",
+            "  public IntRange c;",
+            "  public LongRange d;",
+            "  public UByte e;",
+            "  public UShort f;",
+            "  public UInt g;",
+            "  public ULong h;",
+            "  public int describeContents() {",
+            "    return 0;",
+            "  }",
+            "  public void writeToParcel(Parcel dest, int flags) {",
+            "  }",
+            "}"
+        ));
+
+    JavaFileObject expected =
+        JavaFileObjects.forSourceString("test/PaperParcelTest", Joiner.on('\n').join(
+            "package test;",
+            "import android.os.Parcel;",
+            "import android.os.Parcelable;",
+            "import androidx.annotation.NonNull;",
+            "import kotlin.Pair;",
+            "import kotlin.Triple;",
+            "import kotlin.UByte;",
+            "import kotlin.UInt;",
+            "import kotlin.ULong;",
+            "import kotlin.UShort;",
+            "import kotlin.ranges.IntRange;",
+            "import kotlin.ranges.LongRange;",
+            "import paperparcel.TypeAdapter;",
+            "import paperparcel.internal.IntRangeAdapter;",
+            "import paperparcel.internal.LongRangeAdapter;",
+            "import paperparcel.internal.PairAdapter;",
+            "import paperparcel.internal.StaticAdapters;",
+            "import paperparcel.internal.TripleAdapter;",
+            "import paperparcel.internal.UByteAdapter;",
+            "import paperparcel.internal.UIntAdapter;",
+            "import paperparcel.internal.ULongAdapter;",
+            "import paperparcel.internal.UShortAdapter;",
+            "import paperparcel.internal.Utils;",
+            "final class PaperParcelTest {",
+            "  static final TypeAdapter<Pair<String, Integer>> STRING_INTEGER_PAIR_ADAPTER = ",
+            "      new PairAdapter<String, Integer>(",
+            "          StaticAdapters.STRING_ADAPTER, Utils.nullSafeClone(StaticAdapters.INTEGER_ADAPTER));",
+            "  static final TypeAdapter<Triple<String, Long, Boolean>> STRING_LONG_BOOLEAN_TRIPLE_ADAPTER = ",
+            "      new TripleAdapter<String, Long, Boolean>(",
+            "          StaticAdapters.STRING_ADAPTER,",
+            "          Utils.nullSafeClone(StaticAdapters.LONG_ADAPTER),",
+            "          Utils.nullSafeClone(StaticAdapters.BOOLEAN_ADAPTER));",
+            "  @NonNull",
+            "  static final Parcelable.Creator<Test> CREATOR = new Parcelable.Creator<Test>() {",
+            "    @Override",
+            "    public Test createFromParcel(Parcel in) {",
+            "      Pair<String, Integer> a = Utils.readNullable(in, PaperParcelTest.STRING_INTEGER_PAIR_ADAPTER);",
+            "      Triple<String, Long, Boolean> b = Utils.readNullable(in, PaperParcelTest.STRING_LONG_BOOLEAN_TRIPLE_ADAPTER);",
+            "      IntRange c = Utils.readNullable(in, IntRangeAdapter.INSTANCE);",
+            "      LongRange d = Utils.readNullable(in, LongRangeAdapter.INSTANCE);",
+            "      UByte e = Utils.readNullable(in, UByteAdapter.INSTANCE);",
+            "      UShort f = Utils.readNullable(in, UShortAdapter.INSTANCE);",
+            "      UInt g = Utils.readNullable(in, UIntAdapter.INSTANCE);",
+            "      ULong h = Utils.readNullable(in, ULongAdapter.INSTANCE);",
+            "      Test data = new Test();",
+            "      data.a = a;",
+            "      data.b = b;",
+            "      data.c = c;",
+            "      data.d = d;",
+            "      data.e = e;",
+            "      data.f = f;",
+            "      data.g = g;",
+            "      data.h = h;",
+            "      return data;",
+            "    }",
+            "    @Override",
+            "    public Test[] newArray(int size) {",
+            "      return new Test[size];",
+            "    }",
+            "  };",
+            "  private PaperParcelTest() {",
+            "  }",
+            "  static void writeToParcel(@NonNull Test data, @NonNull Parcel dest, int flags) {",
+            "    Utils.writeNullable(data.a, dest, flags, PaperParcelTest.STRING_INTEGER_PAIR_ADAPTER);",
+            "    Utils.writeNullable(data.b, dest, flags, PaperParcelTest.STRING_LONG_BOOLEAN_TRIPLE_ADAPTER);",
+            "    Utils.writeNullable(data.c, dest, flags, IntRangeAdapter.INSTANCE);",
+            "    Utils.writeNullable(data.d, dest, flags, LongRangeAdapter.INSTANCE);",
+            "    Utils.writeNullable(data.e, dest, flags, UByteAdapter.INSTANCE);",
+            "    Utils.writeNullable(data.f, dest, flags, UShortAdapter.INSTANCE);",
+            "    Utils.writeNullable(data.g, dest, flags, UIntAdapter.INSTANCE);",
+            "    Utils.writeNullable(data.h, dest, flags, ULongAdapter.INSTANCE);",
+            "  }",
+            "}"
+        ));
+
+    assertAbout(javaSource()).that(source)
+        .processedWith(new PaperParcelProcessor())
+        .compilesWithoutError()
+        .and()
+        .generatesSources(expected);
   }
 }